@@ -0,0 +1,29 @@
+package com.notification.client.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class NotificationPage {
+
+    private List<Notification> items = new ArrayList<>();
+    private String nextCursor;
+
+    public NotificationPage() {
+    }
+
+    public List<Notification> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Notification> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
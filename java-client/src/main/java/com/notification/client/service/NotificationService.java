@@ -1,15 +1,16 @@
 package com.notification.client.service;
 
 import com.notification.client.model.Notification;
+import com.notification.client.model.NotificationPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.Collections;
 import java.util.List;
@@ -71,25 +72,46 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Fetch the most recent page of the user's inbox.
+     */
     public List<Notification> getNotificationsForUser(String username) {
+        NotificationPage page = getNotificationPage(username, null, null);
+        return page != null ? page.getItems() : Collections.emptyList();
+    }
+
+    /**
+     * Fetch one page of the user's inbox, newest first.
+     *
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param limit Page size, or null for the server default
+     */
+    public NotificationPage getNotificationPage(String username, String cursor, Integer limit) {
         try {
-            String url = serverUrl + "/api/notifications/recipient/" + username;
+            UriComponentsBuilder url = UriComponentsBuilder.fromHttpUrl(serverUrl)
+                    .path("/api/notifications/recipient/{recipient}");
+            if (cursor != null) {
+                url.queryParam("cursor", cursor);
+            }
+            if (limit != null) {
+                url.queryParam("limit", limit);
+            }
             HttpEntity<?> requestEntity = new HttpEntity<>(authService.createAuthHeaders());
             
             log.info("Fetching notifications for user: {}", username);
-            ResponseEntity<List<Notification>> response = restTemplate.exchange(
-                url,
+            ResponseEntity<NotificationPage> response = restTemplate.exchange(
+                url.buildAndExpand(username).toUri(),
                 HttpMethod.GET,
                 requestEntity,
-                new ParameterizedTypeReference<List<Notification>>() {}
+                NotificationPage.class
             );
             
             log.info("Fetched {} notifications for user: {}", 
-                    response.getBody() != null ? response.getBody().size() : 0, username);
+                    response.getBody() != null ? response.getBody().getItems().size() : 0, username);
             return response.getBody();
         } catch (Exception e) {
             log.error("Error fetching notifications for user: {}", e.getMessage());
-            return Collections.emptyList();
+            return null;
         }
     }
 } 
\ No newline at end of file
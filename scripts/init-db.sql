@@ -19,13 +19,57 @@ ALTER DEFAULT PRIVILEGES IN SCHEMA notification
 GRANT USAGE ON SEQUENCES TO app_user;
 
 -- Create indexes for better performance
-CREATE INDEX IF NOT EXISTS idx_notifications_recipient ON notifications(recipient);
+-- Inbox pages are read newest first by keyset over (created_at, id); these also serve plain recipient lookups
+CREATE INDEX IF NOT EXISTS idx_notifications_recipient_created ON notifications(recipient, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_notifications_recipient_status_created ON notifications(recipient, status, created_at DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_notifications_status ON notifications(status);
 CREATE INDEX IF NOT EXISTS idx_notifications_created_at ON notifications(created_at);
 
+-- Retry backlog: next_attempt_at is only set while a notification awaits another attempt
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+UPDATE notifications SET next_attempt_at = NOW() WHERE status = 'FAILED' AND retry_count < 3 AND next_attempt_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_notifications_next_attempt ON notifications(next_attempt_at) WHERE next_attempt_at IS NOT NULL;
+
+-- Create broadcast tables; the payload is stored once per broadcast, recipients only get a status row
+CREATE TABLE IF NOT EXISTS notification_broadcasts (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    topic VARCHAR(255),
+    status VARCHAR(255) NOT NULL,
+    recipient_count INTEGER,
+    delivered_count INTEGER,
+    failed_count INTEGER,
+    created_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+-- Tables created before the payload was unbounded
+ALTER TABLE notification_broadcasts ALTER COLUMN payload TYPE TEXT;
+
+CREATE TABLE IF NOT EXISTS broadcast_deliveries (
+    broadcast_id BIGINT NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    processed_at TIMESTAMP,
+    PRIMARY KEY (broadcast_id, recipient)
+);
+
+-- Progress of the notification purge, advanced in the same transaction as each deleted chunk
+CREATE TABLE IF NOT EXISTS notification_purge_checkpoints (
+    job VARCHAR(255) PRIMARY KEY,
+    cutoff TIMESTAMP NOT NULL,
+    end_id BIGINT NOT NULL,
+    last_id BIGINT NOT NULL,
+    deleted_count BIGINT NOT NULL,
+    started_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
 -- Create audit logging table
 CREATE TABLE IF NOT EXISTS notification_audit_log (
-    id SERIAL PRIMARY KEY,
+    id BIGSERIAL PRIMARY KEY,
     event_id VARCHAR(50) NOT NULL,
     username VARCHAR(255) NOT NULL,
     action VARCHAR(50) NOT NULL,
@@ -36,9 +80,11 @@ CREATE TABLE IF NOT EXISTS notification_audit_log (
 );
 
 -- Create index on audit table
-CREATE INDEX IF NOT EXISTS idx_audit_log_timestamp ON notification_audit_log(timestamp);
-CREATE INDEX IF NOT EXISTS idx_audit_log_username ON notification_audit_log(username);
-CREATE INDEX IF NOT EXISTS idx_audit_log_action ON notification_audit_log(action);
+-- Rows arrive in timestamp order, so a BRIN index covers time ranges at a fraction of a btree's size
+CREATE INDEX IF NOT EXISTS idx_audit_log_timestamp ON notification_audit_log USING BRIN (timestamp);
+-- Serve /api/audit pages by user or action newest first, keyset on (timestamp, id)
+CREATE INDEX IF NOT EXISTS idx_audit_log_username_timestamp ON notification_audit_log(username, timestamp DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_log_action_timestamp ON notification_audit_log(action, timestamp DESC, id DESC);
 
 -- Add database parameters for better performance
 ALTER SYSTEM SET shared_buffers = '256MB';
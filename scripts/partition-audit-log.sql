@@ -0,0 +1,47 @@
+-- One-off migration of the notification_audit_log table to native range partitioning by timestamp.
+--
+-- Run it once with the service stopped, with the session TimeZone set to the service's time zone, then start
+-- the service with audit.partitioning.enabled=true. The existing table is not copied: it is attached as the
+-- partition notification_audit_log_legacy holding everything logged before tomorrow, and is dropped as a
+-- whole once all of it is older than audit.max-history-days. Daily partitions are created for the following
+-- week; from then on the service creates partitions ahead of time and drops expired ones.
+
+BEGIN;
+
+ALTER TABLE notification_audit_log RENAME TO notification_audit_log_legacy;
+ALTER TABLE notification_audit_log_legacy RENAME CONSTRAINT notification_audit_log_pkey TO notification_audit_log_legacy_pkey;
+ALTER INDEX IF EXISTS idx_audit_log_timestamp RENAME TO idx_audit_log_legacy_timestamp;
+ALTER INDEX IF EXISTS idx_audit_log_username RENAME TO idx_audit_log_legacy_username;
+ALTER INDEX IF EXISTS idx_audit_log_action RENAME TO idx_audit_log_legacy_action;
+ALTER INDEX IF EXISTS idx_audit_log_username_timestamp RENAME TO idx_audit_log_legacy_username_timestamp;
+ALTER INDEX IF EXISTS idx_audit_log_action_timestamp RENAME TO idx_audit_log_legacy_action_timestamp;
+-- Tables created before id became BIGSERIAL are widened first; this rewrites the table once
+ALTER TABLE notification_audit_log_legacy ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE IF EXISTS notification_audit_log_id_seq AS BIGINT;
+
+CREATE TABLE notification_audit_log (LIKE notification_audit_log_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (timestamp);
+ALTER TABLE notification_audit_log ADD CONSTRAINT notification_audit_log_pkey PRIMARY KEY (id, timestamp);
+
+-- Indexes on the parent are created on every partition; matching indexes of the legacy table are reused
+CREATE INDEX idx_audit_log_timestamp ON notification_audit_log USING BRIN (timestamp);
+CREATE INDEX idx_audit_log_username_timestamp ON notification_audit_log(username, timestamp DESC, id DESC);
+CREATE INDEX idx_audit_log_action_timestamp ON notification_audit_log(action, timestamp DESC, id DESC);
+
+DO $$
+DECLARE
+    cutover TIMESTAMP := date_trunc('day', LOCALTIMESTAMP) + INTERVAL '1 day';
+    day TIMESTAMP;
+BEGIN
+    -- A valid CHECK constraint matching the bounds lets ATTACH skip scanning the table
+    EXECUTE format('ALTER TABLE notification_audit_log_legacy ADD CONSTRAINT notification_audit_log_legacy_bound CHECK (timestamp < %L)', cutover);
+    EXECUTE format('ALTER TABLE notification_audit_log ATTACH PARTITION notification_audit_log_legacy FOR VALUES FROM (MINVALUE) TO (%L)', cutover);
+    ALTER TABLE notification_audit_log_legacy DROP CONSTRAINT notification_audit_log_legacy_bound;
+
+    FOR i IN 0..6 LOOP
+        day := cutover + i * INTERVAL '1 day';
+        EXECUTE format('CREATE TABLE notification_audit_log_p%s PARTITION OF notification_audit_log FOR VALUES FROM (%L) TO (%L)',
+                to_char(day, 'YYYYMMDD'), day, day + INTERVAL '1 day');
+    END LOOP;
+END $$;
+
+COMMIT;
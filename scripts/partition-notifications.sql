@@ -0,0 +1,50 @@
+-- One-off migration of the notifications table to native range partitioning by created_at.
+--
+-- Run it once with the service stopped, with the session TimeZone set to the service's time zone, then start
+-- the service with notification.partitioning.enabled=true. The existing table is not copied: it is attached
+-- as the partition notifications_legacy holding everything created before tomorrow, and is dropped as a
+-- whole once all of it is past the retention period and none of its notifications is still pending, being
+-- retried or waiting for a retry. Daily partitions are created for the following week; from then on the
+-- service creates partitions ahead of time and drops expired ones under the same condition.
+
+BEGIN;
+
+-- The partition key is part of the primary key, so it cannot be null
+UPDATE notifications SET created_at = COALESCE(processed_at, LOCALTIMESTAMP) WHERE created_at IS NULL;
+ALTER TABLE notifications ALTER COLUMN created_at SET NOT NULL;
+
+ALTER TABLE notifications RENAME TO notifications_legacy;
+ALTER TABLE notifications_legacy RENAME CONSTRAINT notifications_pkey TO notifications_legacy_pkey;
+ALTER INDEX IF EXISTS idx_notifications_recipient_created RENAME TO idx_notifications_legacy_recipient_created;
+ALTER INDEX IF EXISTS idx_notifications_recipient_status_created RENAME TO idx_notifications_legacy_recipient_status_created;
+ALTER INDEX IF EXISTS idx_notifications_status RENAME TO idx_notifications_legacy_status;
+ALTER INDEX IF EXISTS idx_notifications_created_at RENAME TO idx_notifications_legacy_created_at;
+ALTER INDEX IF EXISTS idx_notifications_next_attempt RENAME TO idx_notifications_legacy_next_attempt;
+
+CREATE TABLE notifications (LIKE notifications_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+ALTER TABLE notifications ADD CONSTRAINT notifications_pkey PRIMARY KEY (id, created_at);
+
+-- Indexes on the parent are created on every partition; matching indexes of the legacy table are reused
+CREATE INDEX idx_notifications_recipient_created ON notifications(recipient, created_at DESC, id DESC);
+CREATE INDEX idx_notifications_recipient_status_created ON notifications(recipient, status, created_at DESC, id DESC);
+CREATE INDEX idx_notifications_status ON notifications(status);
+CREATE INDEX idx_notifications_next_attempt ON notifications(next_attempt_at) WHERE next_attempt_at IS NOT NULL;
+
+DO $$
+DECLARE
+    cutover TIMESTAMP := date_trunc('day', LOCALTIMESTAMP) + INTERVAL '1 day';
+    day TIMESTAMP;
+BEGIN
+    -- A valid CHECK constraint matching the bounds lets ATTACH skip scanning the table
+    EXECUTE format('ALTER TABLE notifications_legacy ADD CONSTRAINT notifications_legacy_bound CHECK (created_at < %L)', cutover);
+    EXECUTE format('ALTER TABLE notifications ATTACH PARTITION notifications_legacy FOR VALUES FROM (MINVALUE) TO (%L)', cutover);
+    ALTER TABLE notifications_legacy DROP CONSTRAINT notifications_legacy_bound;
+
+    FOR i IN 0..6 LOOP
+        day := cutover + i * INTERVAL '1 day';
+        EXECUTE format('CREATE TABLE notifications_p%s PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                to_char(day, 'YYYYMMDD'), day, day + INTERVAL '1 day');
+    END LOOP;
+END $$;
+
+COMMIT;
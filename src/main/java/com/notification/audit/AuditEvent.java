@@ -0,0 +1,88 @@
+package com.notification.audit;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * One slot of the audit ring buffer.
+ *
+ * Slots are allocated once and reused: a producer fills a claimed slot and publishes it, and the consumer
+ * reads it and releases it for reuse after the batch it belongs to has been written. Sinks must therefore
+ * not keep a reference to an event beyond the call that hands it to them.
+ */
+public class AuditEvent {
+
+    private long eventId;
+    private long timestampMillis;
+    private String username;
+    private String action;
+    private String targetType;
+    private String targetId;
+    private Map<String, Object> details;
+    private String detailsJson;
+
+    void set(long eventId, long timestampMillis, String username, String action, String targetType,
+             String targetId, Map<String, Object> details) {
+        this.eventId = eventId;
+        this.timestampMillis = timestampMillis;
+        this.username = username;
+        this.action = action;
+        this.targetType = targetType;
+        this.targetId = targetId;
+        this.details = details;
+        this.detailsJson = null;
+    }
+
+    // Drops the references a released slot would otherwise keep alive until it is reused
+    void clear() {
+        this.username = null;
+        this.targetId = null;
+        this.details = null;
+        this.detailsJson = null;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault());
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getTargetType() {
+        return targetType;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+
+    /**
+     * @return The details serialised as JSON by the consumer, or null if there are none
+     */
+    public String getDetailsJson() {
+        return detailsJson;
+    }
+
+    void setDetailsJson(String detailsJson) {
+        this.detailsJson = detailsJson;
+    }
+}
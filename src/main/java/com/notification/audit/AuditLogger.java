@@ -1,47 +1,164 @@
 package com.notification.audit;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.notification.id.IdGenerator;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.AuditLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Asynchronous audit trail.
+ *
+ * Callers only capture the acting user, a snowflake event id and a timestamp, and publish them into a
+ * preallocated ring buffer of {@code audit.buffer-size} slots. A single background consumer takes published
+ * events in batches of up to {@code audit.batch-size}, serialises them and writes them to the audit log file
+ * and/or the notification_audit_log table. When the buffer is full, {@code audit.overflow} decides whether
+ * the event is dropped and counted ({@code drop}) or the caller waits for a free slot ({@code block}).
+ *
+ * High-volume actions can be condensed according to the {@link AuditPolicy}: sampled actions only publish every
+ * n-th event, and aggregated actions only bump a counter per user, action and target type on the calling
+ * thread. The writer turns those counters into one record each per window and on shutdown.
+ *
+ * Detail maps are serialised on the consumer thread, so callers must not modify them after handing them over.
+ */
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class AuditLogger {
 
     private static final String AUDIT_LOGGER_NAME = "AUDIT_LOG";
     private static final org.slf4j.Logger auditLogger = org.slf4j.LoggerFactory.getLogger(AUDIT_LOGGER_NAME);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Target id of aggregate records, which stand for events on any target
+    private static final String AGGREGATE_TARGET = "*";
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
     private final ObjectMapper objectMapper;
-    
+    private final IdGenerator idGenerator;
+    private final AuditLogRepository auditLogRepository;
+    private final NotificationMetrics notificationMetrics;
+    private final AuditPolicy auditPolicy;
+    private final boolean enabled;
+    private final boolean logToFile;
+    private final boolean logToDatabase;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AuditRingBuffer ringBuffer;
+    // Dropped since the consumer last reported it
+    private final AtomicLong dropped = new AtomicLong();
+    private final ConcurrentHashMap<AggregateKey, Long> aggregates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> sampleCounters = new ConcurrentHashMap<>();
+    // Start of the current aggregation window, only touched by the writer
+    private long windowStart = System.currentTimeMillis();
+    private volatile boolean stopping;
+    private Thread consumer;
+
+    public AuditLogger(ObjectMapper objectMapper,
+                       IdGenerator idGenerator,
+                       AuditLogRepository auditLogRepository,
+                       NotificationMetrics notificationMetrics,
+                       AuditPolicy auditPolicy,
+                       @Value("${audit.enabled:true}") boolean enabled,
+                       @Value("${audit.log-to-file:true}") boolean logToFile,
+                       @Value("${audit.log-to-database:false}") boolean logToDatabase,
+                       @Value("${audit.buffer-size:16384}") int bufferSize,
+                       @Value("${audit.batch-size:500}") int batchSize,
+                       @Value("${audit.overflow:drop}") String overflowPolicy) {
+        this.objectMapper = objectMapper;
+        this.idGenerator = idGenerator;
+        this.auditLogRepository = auditLogRepository;
+        this.notificationMetrics = notificationMetrics;
+        this.auditPolicy = auditPolicy;
+        this.enabled = enabled;
+        this.logToFile = logToFile;
+        this.logToDatabase = logToDatabase;
+        this.batchSize = batchSize;
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+        this.ringBuffer = new AuditRingBuffer(bufferSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        notificationMetrics.initializeAuditLagGauge(ringBuffer::size);
+        consumer = new Thread(this::consume, "notification-audit");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
     /**
      * Log an audit event
-     * 
+     *
      * @param action The action being performed
      * @param targetType The type of entity being acted upon
      * @param targetId The ID of the entity being acted upon
      * @param details Additional details about the action
      */
     public void logEvent(String action, String targetType, String targetId, Map<String, Object> details) {
-        try {
-            Map<String, Object> auditEvent = createAuditEvent(action, targetType, targetId, details);
-            auditLogger.info(objectMapper.writeValueAsString(auditEvent));
-        } catch (Exception e) {
-            log.error("Failed to log audit event", e);
+        if (!enabled) {
+            return;
+        }
+        String username = currentUsername();
+        switch (auditPolicy.modeFor(action)) {
+            case AGGREGATE -> {
+                aggregates.merge(new AggregateKey(username, action, targetType), 1L, Long::sum);
+                return;
+            }
+            case SAMPLE -> {
+                int every = auditPolicy.getSampleEvery();
+                if (sampleCounters.computeIfAbsent(action, key -> new AtomicLong()).getAndIncrement() % every != 0) {
+                    return;
+                }
+                Map<String, Object> weighted = details != null ? new HashMap<>(details) : new HashMap<>();
+                weighted.put("sampleWeight", every);
+                details = weighted;
+            }
+            case FULL -> {
+            }
+        }
+        publish(username, action, targetType, targetId, details);
+    }
+
+    private void publish(String username, String action, String targetType, String targetId, Map<String, Object> details) {
+        // Everything that can fail happens before a slot is claimed, so a claimed slot is always published
+        long eventId = idGenerator.nextId();
+        long timestamp = System.currentTimeMillis();
+
+        long sequence = claim();
+        if (sequence < 0) {
+            dropped.incrementAndGet();
+            notificationMetrics.recordAuditDropped();
+            return;
         }
+        ringBuffer.slot(sequence).set(eventId, timestamp, username, action, targetType, targetId, details);
+        ringBuffer.publish(sequence);
     }
-    
+
     /**
      * Log a notification action
-     * 
+     *
      * @param action The action being performed (CREATE, READ, UPDATE, DELETE)
      * @param notificationId The ID of the notification
      * @param details Additional details about the notification
@@ -49,10 +166,10 @@ public class AuditLogger {
     public void logNotificationAction(String action, Long notificationId, Map<String, Object> details) {
         logEvent(action, "NOTIFICATION", notificationId != null ? notificationId.toString() : "NEW", details);
     }
-    
+
     /**
      * Log an authentication event
-     * 
+     *
      * @param action The authentication action (LOGIN, LOGOUT, LOGIN_FAILED)
      * @param username The username attempting authentication
      * @param details Additional details about the authentication
@@ -60,10 +177,10 @@ public class AuditLogger {
     public void logAuthEvent(String action, String username, Map<String, Object> details) {
         logEvent(action, "AUTH", username, details);
     }
-    
+
     /**
      * Log a system event
-     * 
+     *
      * @param action The system action
      * @param component The system component
      * @param details Additional details about the system event
@@ -71,23 +188,135 @@ public class AuditLogger {
     public void logSystemEvent(String action, String component, Map<String, Object> details) {
         logEvent(action, "SYSTEM", component, details);
     }
-    
-    private Map<String, Object> createAuditEvent(String action, String targetType, String targetId, Map<String, Object> details) {
+
+    /**
+     * @return Events accepted but not yet written
+     */
+    public long getLag() {
+        return ringBuffer.size();
+    }
+
+    private long claim() {
+        long sequence = ringBuffer.tryClaim();
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            while (sequence < 0 && !stopping) {
+                LockSupport.parkNanos(1000);
+                sequence = ringBuffer.tryClaim();
+            }
+        }
+        return sequence;
+    }
+
+    private static String currentUsername() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth != null ? auth.getName() : "SYSTEM";
-        
-        Map<String, Object> auditEvent = new HashMap<>();
-        auditEvent.put("eventId", UUID.randomUUID().toString());
-        auditEvent.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
-        auditEvent.put("username", username);
-        auditEvent.put("action", action);
-        auditEvent.put("targetType", targetType);
-        auditEvent.put("targetId", targetId);
-        
-        if (details != null) {
-            auditEvent.put("details", details);
+        return auth != null ? auth.getName() : "SYSTEM";
+    }
+
+    private void consume() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            long first = ringBuffer.consumerPosition();
+            long sequence = first;
+            while (sequence - first < batchSize && ringBuffer.isPublished(sequence)) {
+                batch.add(ringBuffer.slot(sequence));
+                sequence++;
+            }
+            if (System.currentTimeMillis() - windowStart >= auditPolicy.getWindowMs()) {
+                flushAggregates();
+            }
+            if (batch.isEmpty()) {
+                // Only stop once everything published before shutdown has been written
+                if (stopping) {
+                    flushAggregates();
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            write(batch);
+            ringBuffer.release(sequence);
+            batch.clear();
+
+            long droppedEvents = dropped.getAndSet(0);
+            if (droppedEvents > 0) {
+                log.warn("Audit buffer full, dropped {} audit events", droppedEvents);
+            }
+        }
+    }
+
+    // Removing each counter atomically means an event counted concurrently lands in the next window, never in none
+    private void flushAggregates() {
+        long windowEnd = System.currentTimeMillis();
+        List<AuditEvent> records = new ArrayList<>();
+        long events = 0;
+        for (AggregateKey key : aggregates.keySet()) {
+            Long count = aggregates.remove(key);
+            if (count == null) {
+                continue;
+            }
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("count", count);
+            details.put("windowStart", Instant.ofEpochMilli(windowStart).toString());
+            details.put("windowEnd", Instant.ofEpochMilli(windowEnd).toString());
+            AuditEvent record = new AuditEvent();
+            record.set(idGenerator.nextId(), windowEnd, key.username(), key.action(), key.targetType(), AGGREGATE_TARGET, details);
+            records.add(record);
+            events += count;
+        }
+        windowStart = windowEnd;
+        for (int from = 0; from < records.size(); from += batchSize) {
+            write(records.subList(from, Math.min(from + batchSize, records.size())));
+        }
+        if (events > 0) {
+            notificationMetrics.recordAuditAggregated(events, records.size());
         }
-        
-        return auditEvent;
     }
-} 
\ No newline at end of file
+
+    private void write(List<AuditEvent> batch) {
+        long lagMillis = System.currentTimeMillis() - batch.get(0).getTimestampMillis();
+        if (logToFile) {
+            for (AuditEvent event : batch) {
+                try {
+                    auditLogger.info(objectMapper.writeValueAsString(toLogEntry(event)));
+                } catch (Exception e) {
+                    log.error("Failed to log audit event", e);
+                }
+            }
+        }
+        if (logToDatabase) {
+            try {
+                for (AuditEvent event : batch) {
+                    event.setDetailsJson(event.getDetails() != null ? objectMapper.writeValueAsString(event.getDetails()) : null);
+                }
+                auditLogRepository.insertAll(batch);
+            } catch (Exception e) {
+                log.error("Failed to write {} audit events to the database: {}", batch.size(), e.getMessage());
+                notificationMetrics.recordAuditWriteFailed(batch.size());
+            }
+        }
+        notificationMetrics.recordAuditBatch(batch.size(), lagMillis);
+    }
+
+    private static Map<String, Object> toLogEntry(AuditEvent event) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("eventId", Long.toString(event.getEventId()));
+        entry.put("timestamp", event.getTimestamp().format(DateTimeFormatter.ISO_DATE_TIME));
+        entry.put("username", event.getUsername());
+        entry.put("action", event.getAction());
+        entry.put("targetType", event.getTargetType());
+        entry.put("targetId", event.getTargetId());
+        if (event.getDetails() != null) {
+            entry.put("details", event.getDetails());
+        }
+        return entry;
+    }
+
+    private record AggregateKey(String username, String action, String targetType) {
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,65 @@
+package com.notification.audit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides how each audit action is recorded.
+ *
+ * Actions listed in {@code audit.policy.aggregate} are counted per user, action and target type and written
+ * as one record per {@code audit.policy.window-ms}, so their totals stay exact. Actions listed in
+ * {@code audit.policy.sample} are recorded once every {@code audit.policy.sample-every} occurrences, each
+ * record standing for that many events. Every other action gets a full record.
+ */
+@Component
+public class AuditPolicy {
+
+    public enum Mode {
+        FULL,
+        SAMPLE,
+        AGGREGATE
+    }
+
+    private final Set<String> aggregateActions;
+    private final Set<String> sampleActions;
+    private final int sampleEvery;
+    private final long windowMs;
+
+    public AuditPolicy(@Value("${audit.policy.aggregate:READ}") String aggregateActions,
+                       @Value("${audit.policy.sample:}") String sampleActions,
+                       @Value("${audit.policy.sample-every:100}") int sampleEvery,
+                       @Value("${audit.policy.window-ms:60000}") long windowMs) {
+        this.aggregateActions = parse(aggregateActions);
+        this.sampleActions = parse(sampleActions);
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.windowMs = windowMs;
+    }
+
+    public Mode modeFor(String action) {
+        if (aggregateActions.contains(action)) {
+            return Mode.AGGREGATE;
+        }
+        return sampleActions.contains(action) ? Mode.SAMPLE : Mode.FULL;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    private static Set<String> parse(String actions) {
+        return Arrays.stream(StringUtils.commaDelimitedListToStringArray(actions))
+                .map(action -> action.trim().toUpperCase(Locale.ROOT))
+                .filter(action -> !action.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
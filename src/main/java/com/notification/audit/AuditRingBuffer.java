@@ -0,0 +1,92 @@
+package com.notification.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated {@link AuditEvent} slots.
+ *
+ * Producers claim a sequence with one CAS, fill the slot it maps to and publish it by storing the sequence
+ * in the slot's marker. The consumer walks sequences in order, stops at the first one not yet published, and
+ * releases everything it has taken in one volatile write once the batch has been written.
+ */
+class AuditRingBuffer {
+
+    private static final long UNPUBLISHED = -1;
+
+    private final AuditEvent[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    // Sequences below this have been written and their slots may be reused
+    private volatile long released;
+
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AuditEvent[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AuditEvent();
+            published.set(i, UNPUBLISHED);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return A claimed sequence, or -1 if the ring is full
+     */
+    long tryClaim() {
+        while (true) {
+            long sequence = next.get();
+            if (sequence - released >= slots.length) {
+                return -1;
+            }
+            if (next.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    AuditEvent slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.setRelease((int) sequence & mask, sequence);
+    }
+
+    /**
+     * @return Next sequence for the consumer to take, that is the first one not yet released
+     */
+    long consumerPosition() {
+        return released;
+    }
+
+    /**
+     * @return Whether {@code sequence} has been published and can be read
+     */
+    boolean isPublished(long sequence) {
+        return published.getAcquire((int) sequence & mask) == sequence;
+    }
+
+    /**
+     * Hand the slots of every sequence below {@code upTo} back to the producers.
+     */
+    void release(long upTo) {
+        for (long sequence = released; sequence < upTo; sequence++) {
+            slot(sequence).clear();
+        }
+        released = upTo;
+    }
+
+    /**
+     * @return Events claimed but not yet released by the consumer
+     */
+    long size() {
+        return next.get() - released;
+    }
+}
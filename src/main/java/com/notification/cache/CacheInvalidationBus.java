@@ -0,0 +1,21 @@
+package com.notification.cache;
+
+import org.springframework.lang.Nullable;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Tells the other instances of the service to drop entries from their in-process cache tier.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Announce that an entry changed, or with a null key that the whole cache was cleared.
+     */
+    void publish(String cacheName, @Nullable String key);
+
+    /**
+     * Receive the announcements of other instances; the key is null when a cache was cleared.
+     */
+    void subscribe(BiConsumer<String, String> listener);
+}
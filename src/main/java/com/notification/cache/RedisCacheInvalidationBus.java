@@ -0,0 +1,65 @@
+package com.notification.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link CacheInvalidationBus} over a Redis pub/sub channel. A message holds the sending instance, the cache name
+ * and, unless the cache was cleared, the key, one per line; an instance ignores the messages it sent itself.
+ *
+ * Pub/sub is fire-and-forget: an instance that is disconnected when a message is sent misses it, so the
+ * in-process tier must expire entries on its own as well.
+ */
+@Slf4j
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String origin = UUID.randomUUID().toString();
+    private final List<BiConsumer<String, String>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisCacheInvalidationBus(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void publish(String cacheName, @Nullable String key) {
+        String message = key == null ? origin + "\n" + cacheName : origin + "\n" + cacheName + "\n" + key;
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish invalidation of cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(BiConsumer<String, String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 2 || origin.equals(parts[0])) {
+            return;
+        }
+        String key = parts.length == 3 ? parts[2] : null;
+        for (BiConsumer<String, String> listener : listeners) {
+            listener.accept(parts[1], key);
+        }
+    }
+}
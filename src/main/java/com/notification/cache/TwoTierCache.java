@@ -0,0 +1,372 @@
+package com.notification.cache;
+
+import com.notification.metrics.NotificationMetrics.CacheMeters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache with an in-process Caffeine tier (L1) in front of an optional shared tier (L2, Redis in production).
+ *
+ * Reads try L1, then L2, and copy L2 hits into L1. Writes and evictions go to L2 first, then L1, and are
+ * announced on the {@link CacheInvalidationBus} so that other instances drop their L1 copy and read the new
+ * value from L2. L1 is keyed by the string form of the key, as Redis is, so that keys received from other
+ * instances match. L2 failures are logged and treated as misses, leaving the instance on L1 alone.
+ *
+ * Misses through {@link #get(Object, Callable)}, which {@code @Cacheable(sync = true)} uses, are coalesced:
+ * concurrent callers missing the same key wait for the first one's load instead of each running their own.
+ * With {@code refreshAheadNanos} set, an L1 hit on an entry older than that reloads it in the background, so
+ * popular entries are replaced before they expire rather than missed.
+ *
+ * An L1 entry can only outlive a change made elsewhere if the announcement is lost or a read of the old value
+ * races the change; both are bounded by the L1 expiry.
+ *
+ * With a {@code stale} tier, every value kept in L1 is also kept there, under a longer expiry, so that
+ * {@link #getStale} can still return it after it has left L1. It is never read on the normal path; it is for
+ * serving the last known value while the source is unavailable. Evicting or clearing an entry, here or on
+ * another instance, drops its stale copy too.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final int CHANGE_STRIPES = 1024;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> stale;
+    private final Cache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheMeters meters;
+    private final long refreshAheadNanos;
+    private final Executor refreshExecutor;
+    // Bumped by every change to a key hashing to the stripe, so a read that raced one does not cache its stale value
+    private final AtomicLongArray changes = new AtomicLongArray(CHANGE_STRIPES);
+    // Loads and refreshes in progress, which callers missing the same key wait for
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local,
+                        @Nullable com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> stale,
+                        @Nullable Cache remote, @Nullable CacheInvalidationBus invalidationBus, CacheMeters meters,
+                        long refreshAheadNanos, @Nullable Executor refreshExecutor) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.stale = stale;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.meters = meters;
+        this.refreshAheadNanos = refreshExecutor != null ? refreshAheadNanos : 0;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        LocalEntry entry = local.getIfPresent(localKey);
+        if (entry != null) {
+            meters.l1Hits().increment();
+            return entry.value();
+        }
+        meters.l1Misses().increment();
+        long changesBefore = changes.get(stripe(localKey));
+        Object value = remoteLookup(key);
+        if (value != null) {
+            keepLocally(localKey, value, changesBefore);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        LocalEntry entry = local.getIfPresent(localKey);
+        if (entry != null) {
+            meters.l1Hits().increment();
+            if (refreshAheadNanos > 0 && System.nanoTime() - entry.loadedAt() > refreshAheadNanos) {
+                refreshAhead(key, localKey, valueLoader);
+            }
+            return (T) entry.value();
+        }
+        meters.l1Misses().increment();
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            meters.coalescedLoads().increment();
+            return (T) await(key, valueLoader, inFlight);
+        }
+        try {
+            long changesBefore = changes.get(stripe(localKey));
+            Object value = remoteLookup(key);
+            if (value == null) {
+                value = loadFromSource(key, valueLoader);
+                populateRemote(key, localKey, value, changesBefore);
+            }
+            if (value != null) {
+                keepLocally(localKey, value, changesBefore);
+            }
+            load.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e instanceof ValueRetrievalException && e.getCause() != null ? e.getCause() : e);
+            throw e;
+        } finally {
+            loads.remove(localKey, load);
+        }
+    }
+
+    private void refreshAhead(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (loads.putIfAbsent(localKey, refresh) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long changesBefore = changes.get(stripe(localKey));
+                    Object value = loadFromSource(key, valueLoader);
+                    if (value != null && changes.get(stripe(localKey)) == changesBefore) {
+                        // A reload is newer than what either tier holds, so it replaces both
+                        putRemote(key, value);
+                        keep(localKey, new LocalEntry(value, System.nanoTime()));
+                    }
+                    refresh.complete(value);
+                } catch (RuntimeException e) {
+                    log.debug("Could not refresh {} in cache {}: {}", key, name, e.getMessage());
+                    refresh.completeExceptionally(e instanceof ValueRetrievalException && e.getCause() != null ? e.getCause() : e);
+                } finally {
+                    loads.remove(localKey, refresh);
+                }
+            });
+            meters.refreshes().increment();
+        } catch (RejectedExecutionException e) {
+            // Refreshing is optional; the entry is loaded on its next miss instead
+            loads.remove(localKey, refresh);
+            refresh.cancel(false);
+        }
+    }
+
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+        try {
+            return load.get();
+        } catch (CancellationException e) {
+            return loadFromSource(key, valueLoader);
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Nullable
+    private Object loadFromSource(Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            meters.sourceLoadTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Nullable
+    private Object remoteLookup(Object key) {
+        if (remote == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        ValueWrapper wrapper;
+        try {
+            wrapper = remote.get(key);
+        } catch (RuntimeException e) {
+            log.warn("Could not read {} from the shared tier of cache {}: {}", key, name, e.getMessage());
+            return null;
+        } finally {
+            meters.l2LoadTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (wrapper == null || wrapper.get() == null) {
+            meters.l2Misses().increment();
+            return null;
+        }
+        meters.l2Hits().increment();
+        return wrapper.get();
+    }
+
+    // A loaded value is what the source holds, so other instances need not be told; a write that raced the load
+    // has already put the newer value, which must not be overwritten
+    private void populateRemote(Object key, String localKey, @Nullable Object value, long changesBefore) {
+        if (remote == null || value == null || changes.get(stripe(localKey)) != changesBefore) {
+            return;
+        }
+        try {
+            remote.putIfAbsent(key, value);
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} to the shared tier of cache {}: {}", key, name, e.getMessage());
+        }
+    }
+
+    private void keepLocally(String localKey, Object value, long changesBefore) {
+        if (changes.get(stripe(localKey)) == changesBefore) {
+            LocalEntry entry = new LocalEntry(value, System.nanoTime());
+            if (local.asMap().putIfAbsent(localKey, entry) == null && stale != null) {
+                stale.put(localKey, entry);
+            }
+        }
+    }
+
+    private void keep(String localKey, LocalEntry entry) {
+        local.put(localKey, entry);
+        if (stale != null) {
+            stale.put(localKey, entry);
+        }
+    }
+
+    /**
+     * Look up the last value this instance held for a key, even one that has expired from L1 since.
+     *
+     * @return The value with the {@link System#nanoTime()} it was stored at, or null if none is kept
+     */
+    @Nullable
+    public LocalEntry getStale(Object key) {
+        if (stale == null) {
+            return null;
+        }
+        LocalEntry entry = stale.getIfPresent(localKey(key));
+        (entry != null ? meters.staleHits() : meters.staleMisses()).increment();
+        return entry;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        String localKey = localKey(key);
+        putRemote(key, value);
+        changes.incrementAndGet(stripe(localKey));
+        keep(localKey, new LocalEntry(value, System.nanoTime()));
+        announce(localKey);
+    }
+
+    private void putRemote(Object key, Object value) {
+        if (remote != null) {
+            try {
+                remote.put(key, value);
+            } catch (RuntimeException e) {
+                log.warn("Could not write {} to the shared tier of cache {}: {}", key, name, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        if (remote != null) {
+            try {
+                remote.evict(key);
+            } catch (RuntimeException e) {
+                log.warn("Could not evict {} from the shared tier of cache {}: {}", key, name, e.getMessage());
+            }
+        }
+        changes.incrementAndGet(stripe(localKey));
+        local.invalidate(localKey);
+        if (stale != null) {
+            stale.invalidate(localKey);
+        }
+        announce(localKey);
+    }
+
+    @Override
+    public void clear() {
+        if (remote != null) {
+            try {
+                remote.clear();
+            } catch (RuntimeException e) {
+                log.warn("Could not clear the shared tier of cache {}: {}", name, e.getMessage());
+            }
+        }
+        changeAll();
+        local.invalidateAll();
+        if (stale != null) {
+            stale.invalidateAll();
+        }
+        announce(null);
+    }
+
+    /**
+     * Drop an entry, or with a null key every entry, from L1 and the stale tier only, after another instance
+     * changed it.
+     */
+    void invalidateLocal(@Nullable String key) {
+        if (key == null) {
+            changeAll();
+            local.invalidateAll();
+            if (stale != null) {
+                stale.invalidateAll();
+            }
+        } else {
+            changes.incrementAndGet(stripe(key));
+            local.invalidate(key);
+            if (stale != null) {
+                stale.invalidate(key);
+            }
+        }
+    }
+
+    private void changeAll() {
+        for (int i = 0; i < CHANGE_STRIPES; i++) {
+            changes.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(String localKey) {
+        int hash = localKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (CHANGE_STRIPES - 1);
+    }
+
+    long localSize() {
+        return local.estimatedSize();
+    }
+
+    private void announce(@Nullable String localKey) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(name, localKey);
+        }
+    }
+
+    private static String localKey(Object key) {
+        return key instanceof String string ? string : String.valueOf(key);
+    }
+
+    /**
+     * An L1 value with the {@link System#nanoTime()} it was stored at, which refresh-ahead compares against.
+     */
+    public record LocalEntry(Object value, long loadedAt) {
+    }
+}
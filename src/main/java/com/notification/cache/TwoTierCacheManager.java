@@ -0,0 +1,111 @@
+package com.notification.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.metrics.NotificationMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates a {@link TwoTierCache} per cache name, with L1 built from {@code localSpec} and L2 taken from
+ * {@code remoteCacheManager} when there is one. With a positive {@code refreshAhead}, entries older than that are
+ * reloaded in the background on a small pool; refreshes that do not fit in its queue are skipped. With a
+ * {@code staleSpec}, each cache also keeps a stale tier built from it (see {@link TwoTierCache#getStale}).
+ */
+public class TwoTierCacheManager extends AbstractCacheManager implements DisposableBean {
+
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_SIZE = 1000;
+
+
+    private final Collection<String> cacheNames;
+    private final Caffeine<Object, Object> localSpec;
+    private final Caffeine<Object, Object> staleSpec;
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final NotificationMetrics notificationMetrics;
+    private final long refreshAheadNanos;
+    private final ExecutorService refreshExecutor;
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(Collection<String> cacheNames, Caffeine<Object, Object> localSpec,
+                               @Nullable CacheManager remoteCacheManager, @Nullable CacheInvalidationBus invalidationBus,
+                               NotificationMetrics notificationMetrics) {
+        this(cacheNames, localSpec, remoteCacheManager, invalidationBus, notificationMetrics, Duration.ZERO);
+    }
+
+    public TwoTierCacheManager(Collection<String> cacheNames, Caffeine<Object, Object> localSpec,
+                               @Nullable CacheManager remoteCacheManager, @Nullable CacheInvalidationBus invalidationBus,
+                               NotificationMetrics notificationMetrics, Duration refreshAhead) {
+        this(cacheNames, localSpec, remoteCacheManager, invalidationBus, notificationMetrics, refreshAhead, null);
+    }
+
+    public TwoTierCacheManager(Collection<String> cacheNames, Caffeine<Object, Object> localSpec,
+                               @Nullable CacheManager remoteCacheManager, @Nullable CacheInvalidationBus invalidationBus,
+                               NotificationMetrics notificationMetrics, Duration refreshAhead,
+                               @Nullable Caffeine<Object, Object> staleSpec) {
+        this.cacheNames = List.copyOf(cacheNames);
+        this.localSpec = localSpec;
+        this.staleSpec = staleSpec;
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationBus = invalidationBus;
+        this.notificationMetrics = notificationMetrics;
+        this.refreshAheadNanos = refreshAhead.toNanos();
+        this.refreshExecutor = refreshAheadNanos > 0
+                ? new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE), new CustomizableThreadFactory("notification-cache-refresh-"))
+                : null;
+        if (invalidationBus != null) {
+            invalidationBus.subscribe(this::invalidateLocal);
+        }
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return cacheNames.stream().map(this::createCache).toList();
+    }
+
+    @Override
+    @Nullable
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private TwoTierCache createCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            Cache remote = remoteCacheManager != null ? remoteCacheManager.getCache(n) : null;
+            TwoTierCache cache = new TwoTierCache(n, localSpec.build(), staleSpec != null ? staleSpec.build() : null,
+                    remote, invalidationBus,
+                    notificationMetrics.cacheMeters(n), refreshAheadNanos, refreshExecutor);
+            notificationMetrics.initializeCacheSizeGauge(n, cache::localSize);
+            return cache;
+        });
+    }
+
+    void invalidateLocal(String cacheName, @Nullable String key) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidateLocal(key);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+}
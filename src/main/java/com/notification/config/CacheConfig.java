@@ -1,97 +1,126 @@
 package com.notification.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import com.notification.cache.RedisCacheInvalidationBus;
+import com.notification.cache.TwoTierCacheManager;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.Notification;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Every cache has an in-process Caffeine tier. In production it sits in front of a shared Redis tier, and
+ * changes are announced to the other instances over a Redis channel so that they drop their in-process copy.
+ * Values also stay in a stale tier for much longer than in either, to be served while the database is down.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    private static final List<String> CACHE_NAMES = List.of("notifications", "users");
+
+    @Value("${notification.cache.local.ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    @Value("${notification.cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${notification.cache.refresh-ahead-seconds:0}")
+    private long refreshAheadSeconds;
+
+    @Value("${notification.cache.stale.ttl-seconds:86400}")
+    private long staleTtlSeconds;
+
+    @Value("${notification.cache.stale.max-size:100000}")
+    private long staleMaxSize;
+
     @Bean
     @Profile("!prod")
     @Primary
-    public CacheManager localCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCacheNames(Arrays.asList("rateLimit", "notifications", "users"));
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .expireAfterWrite(60, TimeUnit.MINUTES)
-            .maximumSize(1000));
-        return cacheManager;
+    public CacheManager localCacheManager(NotificationMetrics notificationMetrics) {
+        return new TwoTierCacheManager(CACHE_NAMES, localSpec(), null, null, notificationMetrics,
+                Duration.ofSeconds(refreshAheadSeconds), staleSpec());
     }
 
     @Bean
     @Profile("prod")
     @Primary
-    public RedisCacheManagerBuilderCustomizer redisCacheManagerBuilderCustomizer() {
-        return (builder) -> {
-            Map<String, RedisCacheConfiguration> configMap = new HashMap<>();
-            
-            // Rate limit cache - short TTL
-            configMap.put("rateLimit", createCacheConfiguration(Duration.ofMinutes(1)));
-            
-            // Notifications cache - longer TTL
-            configMap.put("notifications", createCacheConfiguration(Duration.ofMinutes(60)));
-            
-            // Users cache - medium TTL
-            configMap.put("users", createCacheConfiguration(Duration.ofMinutes(30)));
-            
-            builder.withInitialCacheConfigurations(configMap);
-        };
-    }
-    
-    private RedisCacheConfiguration createCacheConfiguration(Duration ttl) {
-        return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(ttl)
-                .disableCachingNullValues()
-                .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(
-                                new GenericJackson2JsonRedisSerializer()));
+    public CacheManager layeredCacheManager(RedisConnectionFactory redisConnectionFactory,
+                                            RedisCacheInvalidationBus cacheInvalidationBus,
+                                            ObjectMapper objectMapper,
+                                            NotificationMetrics notificationMetrics) {
+        Map<String, RedisCacheConfiguration> configMap = new HashMap<>();
+
+        // Notifications cache - longer TTL
+        configMap.put("notifications", createCacheConfiguration(Duration.ofMinutes(60),
+                new Jackson2JsonRedisSerializer<>(objectMapper.copy(), Notification.class)));
+
+        // Users cache - medium TTL
+        configMap.put("users", createCacheConfiguration(Duration.ofMinutes(30), new GenericJackson2JsonRedisSerializer()));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .withInitialCacheConfigurations(configMap)
+                .build();
+        redisCacheManager.initializeCaches();
+        return new TwoTierCacheManager(CACHE_NAMES, localSpec(), redisCacheManager, cacheInvalidationBus, notificationMetrics,
+                Duration.ofSeconds(refreshAheadSeconds), staleSpec());
     }
 
-    // For non-Redis specific caches
     @Bean
-    public Caffeine<Object, Object> rateLimitCaffeine() {
-        return Caffeine.newBuilder()
-            .expireAfterWrite(1, TimeUnit.MINUTES)
-            .maximumSize(100);
+    @Profile("prod")
+    public RedisCacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                                          @Value("${notification.cache.invalidation-channel:notification-cache-invalidation}") String channel) {
+        return new RedisCacheInvalidationBus(redisTemplate, channel);
     }
 
     @Bean
-    public Caffeine<Object, Object> notificationsCaffeine() {
+    @Profile("prod")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            RedisCacheInvalidationBus cacheInvalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(cacheInvalidationBus.getChannel()));
+        return container;
+    }
+
+    // Entries also expire locally, bounding how long an instance that missed an invalidation serves a stale copy
+    private Caffeine<Object, Object> localSpec() {
         return Caffeine.newBuilder()
-            .expireAfterWrite(60, TimeUnit.MINUTES)
-            .maximumSize(500);
+            .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+            .maximumSize(localMaxSize);
     }
 
-    // For specific use cases where local caching is still preferred
-    @Bean
-    public CaffeineCacheManager rateLimitCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("rateLimit");
-        cacheManager.setCaffeine(rateLimitCaffeine());
-        return cacheManager;
+    private Caffeine<Object, Object> staleSpec() {
+        return Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(staleTtlSeconds))
+            .maximumSize(staleMaxSize);
     }
 
-    @Bean
-    public CaffeineCacheManager notificationsCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("notifications");
-        cacheManager.setCaffeine(notificationsCaffeine());
-        return cacheManager;
+    private RedisCacheConfiguration createCacheConfiguration(Duration ttl, RedisSerializer<?> serializer) {
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(ttl)
+                .disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
     }
-} 
\ No newline at end of file
+}
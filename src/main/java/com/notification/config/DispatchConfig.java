@@ -0,0 +1,19 @@
+package com.notification.config;
+
+import com.notification.dispatch.StripedDispatchExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DispatchConfig {
+
+    /**
+     * Delivery lanes shared by single-notification dispatch and broadcast fan-out, so per-recipient
+     * ordering holds across both.
+     */
+    @Bean
+    public StripedDispatchExecutor dispatchExecutor(@Value("${notification.dispatch.worker-threads:8}") int workerThreads) {
+        return new StripedDispatchExecutor("notification-dispatch-", workerThreads);
+    }
+}
@@ -0,0 +1,29 @@
+package com.notification.config;
+
+import com.notification.id.IdGenerator;
+import com.notification.id.IdGenerators;
+import com.notification.id.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class IdGeneratorConfig {
+
+    @Bean
+    public IdGenerator idGenerator(@Value("${notification.id.worker-id:-1}") long workerId,
+                                   @Value("${notification.id.require-worker-id:false}") boolean requireWorkerId,
+                                   @Value("${notification.id.max-clock-skew-ms:5000}") long maxClockSkewMillis) {
+        // Hashed hostnames of a few dozen replicas collide too often, and colliding workers issue the same ids
+        if (workerId < 0 && requireWorkerId) {
+            throw new IllegalStateException("notification.id.worker-id must be set to a value unique to this node");
+        }
+        long effectiveWorkerId = workerId >= 0 ? workerId : IdGenerators.defaultWorkerId();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(effectiveWorkerId, maxClockSkewMillis);
+        IdGenerators.set(generator);
+        log.info("Using snowflake id generator with worker id {}", effectiveWorkerId);
+        return generator;
+    }
+}
@@ -1,6 +1,9 @@
 package com.notification.config;
 
+import com.notification.controller.AuditController;
 import com.notification.security.JwtRequestFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -40,10 +43,13 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses finish on an async dispatch that was already authorized on the way in
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 .requestMatchers("/api/authenticate").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/api/notifications/**").authenticated()
+                .requestMatchers("/api/audit/**").authenticated()
                 .anyRequest().permitAll()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -71,14 +77,23 @@ public class SecurityConfig {
     }
 
     @Bean
-    public UserDetailsService userDetailsService() {
+    public UserDetailsService userDetailsService(
+            @Value("${notification.security.auditor.username:auditor}") String auditorUsername,
+            @Value("${notification.security.auditor.password:auditor}") String auditorPassword) {
         UserDetails user = User.builder()
             .username("user")
             .password(passwordEncoder().encode("password"))
             .roles("USER")
             .build();
 
-        return new InMemoryUserDetailsManager(user);
+        // The JWT filter reloads the user on every request, so this authority reaches the security context.
+        UserDetails auditor = User.builder()
+            .username(auditorUsername)
+            .password(passwordEncoder().encode(auditorPassword))
+            .authorities("ROLE_AUDITOR", AuditController.AUDIT_READ_AUTHORITY)
+            .build();
+
+        return new InMemoryUserDetailsManager(user, auditor);
     }
 
     @Bean
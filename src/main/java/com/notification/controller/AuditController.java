@@ -0,0 +1,74 @@
+package com.notification.controller;
+
+import com.notification.repository.AuditLogRepository.Filter;
+import com.notification.service.AuditSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Audit", description = "Audit trail search API")
+public class AuditController {
+
+    // Holders may search the audit trail of every user; everyone else only their own
+    public static final String AUDIT_READ_AUTHORITY = "AUDIT_READ";
+
+    private final AuditSearchService auditSearchService;
+
+    @Operation(summary = "Search the audit trail", description = "Returns a page of audit entries matching all given filters, newest first. "
+            + "from is inclusive and to exclusive. Pass the returned nextCursor to fetch the following page. "
+            + "Without the AUDIT_READ authority only the caller's own entries can be searched, and username defaults to the caller")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Audit entries found"),
+        @ApiResponse(responseCode = "400", description = "Invalid limit, cursor or time range"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Audit trail of another user requested without the AUDIT_READ authority"),
+        @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    })
+    @GetMapping("/api/audit")
+    public ResponseEntity<StreamingResponseBody> search(@RequestParam(required = false) String username,
+                                                        @RequestParam(required = false) String action,
+                                                        @RequestParam(required = false) String targetType,
+                                                        @RequestParam(required = false) String targetId,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String cursor) {
+        // Security check - without the audit authority a user can only search their own entries
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new AccessDeniedException("Cannot access the audit trail");
+        }
+        if (!canReadAll(authentication)) {
+            if (username != null && !username.equals(authentication.getName())) {
+                throw new AccessDeniedException("Cannot access the audit trail of other users");
+            }
+            username = authentication.getName();
+        }
+        StreamingResponseBody body = auditSearchService.search(
+                new Filter(username, action, targetType, targetId, from, to), cursor, limit);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static boolean canReadAll(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(AUDIT_READ_AUTHORITY::equals);
+    }
+}
@@ -1,6 +1,14 @@
 package com.notification.controller;
 
+import com.notification.dispatch.NotificationDispatcher;
+import com.notification.exception.NotificationNotFoundException;
+import com.notification.id.NotificationIdFilter;
+import com.notification.model.BatchResult;
+import com.notification.model.Broadcast;
+import com.notification.model.BroadcastRequest;
 import com.notification.model.Notification;
+import com.notification.model.NotificationPage;
+import com.notification.service.BroadcastService;
 import com.notification.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,7 +17,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -18,6 +29,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -27,28 +40,78 @@ public class NotificationController {
 
     private final SimpMessagingTemplate messagingTemplate;
     private final NotificationService notificationService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final BroadcastService broadcastService;
+    private final NotificationIdFilter notificationIdFilter;
 
     @Operation(summary = "Send notification via WebSocket", description = "Sends a notification to a specific user via WebSocket")
     @MessageMapping("/send-notification")
     public void sendNotification(@Payload Notification notification) {
-        notificationService.processNotification(notification);
+        if (notificationDispatcher.isAsyncEnabled()) {
+            notificationDispatcher.submit(notification);
+        } else {
+            notificationService.processNotification(notification);
+        }
     }
 
     @Operation(summary = "Create a new notification", description = "Creates a new notification in the system")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Notification created",
                     content = @Content(schema = @Schema(implementation = Notification.class))),
+        @ApiResponse(responseCode = "202", description = "Notification accepted for asynchronous delivery",
+                    content = @Content(schema = @Schema(implementation = Notification.class))),
         @ApiResponse(responseCode = "400", description = "Invalid notification data"),
         @ApiResponse(responseCode = "401", description = "Unauthorized"),
-        @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+        @ApiResponse(responseCode = "429", description = "Rate limit exceeded"),
+        @ApiResponse(responseCode = "503", description = "Dispatch queue full")
     })
     @PostMapping("/api/notifications")
-    @ResponseStatus(HttpStatus.CREATED)
-    public Notification createNotification(@RequestBody Notification notification) {
-        return notificationService.saveNotification(notification);
+    public ResponseEntity<Notification> createNotification(@RequestBody Notification notification) {
+        if (notificationDispatcher.isAsyncEnabled()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(notificationDispatcher.submit(notification));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(notificationService.saveNotification(notification));
+    }
+
+    @Operation(summary = "Create notifications in bulk", description = "Persists a list of notifications in a single transaction and reports the outcome per item")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed",
+                    content = @Content(schema = @Schema(implementation = BatchResult.class))),
+        @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    })
+    @PostMapping("/api/notifications/batch")
+    public BatchResult createNotifications(@RequestBody List<Notification> notifications) {
+        return notificationService.saveNotifications(notifications);
+    }
+
+    @Operation(summary = "Broadcast a notification", description = "Sends one payload to a list of recipients or to a /topic destination; recipient fan-out continues in the background")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Broadcast accepted",
+                    content = @Content(schema = @Schema(implementation = Broadcast.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid broadcast request"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    })
+    @PostMapping("/api/notifications/broadcast")
+    public ResponseEntity<Broadcast> createBroadcast(@RequestBody BroadcastRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(broadcastService.createBroadcast(request));
     }
 
-    @Operation(summary = "Get notification by ID", description = "Returns a notification by its ID")
+    @Operation(summary = "Get broadcast by ID", description = "Returns a broadcast with its delivery progress")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Broadcast found",
+                    content = @Content(schema = @Schema(implementation = Broadcast.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    })
+    @GetMapping("/api/notifications/broadcast/{id}")
+    public Broadcast getBroadcast(@PathVariable Long id) {
+        return broadcastService.getBroadcast(id);
+    }
+
+    @Operation(summary = "Get notification by ID", description = "Returns a notification by its ID. While the database is unavailable, returns the last known copy with Age and Warning headers")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Notification found",
                     content = @Content(schema = @Schema(implementation = Notification.class))),
@@ -57,23 +120,44 @@ public class NotificationController {
         @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
     })
     @GetMapping("/api/notifications/{id}")
-    public Notification getNotification(@PathVariable Long id) {
-        return notificationService.getNotification(id);
+    public ResponseEntity<Notification> getNotification(@PathVariable Long id) {
+        // Ids that cannot exist are turned away before they reach the circuit breaker or the database
+        if (!notificationIdFilter.mightExist(id)) {
+            throw new NotificationNotFoundException(id);
+        }
+        Notification notification = notificationService.getNotification(id);
+        if (notification.getStaleAsOf() != null) {
+            long age = Math.max(0, Duration.between(notification.getStaleAsOf(), Instant.now()).toSeconds());
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .header(HttpHeaders.AGE, String.valueOf(age))
+                    .header(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+                    .body(notification);
+        }
+        if ("FALLBACK".equals(notification.getStatus())) {
+            // A placeholder, not the notification; nothing downstream may keep it
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(notification);
+        }
+        return ResponseEntity.ok(notification);
     }
 
-    @Operation(summary = "Get notifications by recipient", description = "Returns all notifications for a specific recipient")
+    @Operation(summary = "Get notifications by recipient", description = "Returns a page of notifications for a specific recipient, newest first. Pass the returned nextCursor to fetch the following page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Notifications found",
-                    content = @Content(schema = @Schema(implementation = Notification.class, type = "array"))),
+                    content = @Content(schema = @Schema(implementation = NotificationPage.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid limit or cursor"),
         @ApiResponse(responseCode = "401", description = "Unauthorized"),
         @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
     })
     @GetMapping("/api/notifications/recipient/{recipient}")
-    public List<Notification> getNotificationsByRecipient(@PathVariable String recipient) {
+    public NotificationPage getNotificationsByRecipient(@PathVariable String recipient,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) String status) {
         // Security check - user can only fetch their own notifications
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.getName().equals(recipient)) {
-            return notificationService.getNotificationsByRecipient(recipient);
+            return notificationService.getNotificationsByRecipient(recipient, status, cursor, limit);
         } else {
             throw new AccessDeniedException("Cannot access notifications for other users");
         }
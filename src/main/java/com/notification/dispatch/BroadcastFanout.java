@@ -0,0 +1,246 @@
+package com.notification.dispatch;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.BroadcastDeliveryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Expands a broadcast into per-recipient deliveries.
+ *
+ * Recipients are walked in chunks of {@code chunk-size}: each chunk's delivery rows are inserted with one
+ * JDBC batch, then every recipient is pushed on its dispatch lane. When the last push of a chunk finishes,
+ * the chunk's rows are marked DELIVERED/FAILED with one batch of updates. At most {@code max-in-flight}
+ * pushes are queued at any time, so expansion streams at the speed of the lanes instead of buffering
+ * the whole recipient list as tasks.
+ */
+@Slf4j
+@Component
+public class BroadcastFanout {
+
+    private final BroadcastDeliveryRepository broadcastDeliveryRepository;
+    private final StripedDispatchExecutor dispatchExecutor;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationMetrics notificationMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final int expanders;
+
+    private Semaphore inFlight;
+    private ExecutorService expander;
+
+    public BroadcastFanout(BroadcastDeliveryRepository broadcastDeliveryRepository,
+                           StripedDispatchExecutor dispatchExecutor,
+                           SimpMessagingTemplate messagingTemplate,
+                           NotificationMetrics notificationMetrics,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${notification.broadcast.chunk-size:1000}") int chunkSize,
+                           @Value("${notification.broadcast.max-in-flight:5000}") int maxInFlight,
+                           @Value("${notification.broadcast.expanders:2}") int expanders) {
+        this.broadcastDeliveryRepository = broadcastDeliveryRepository;
+        this.dispatchExecutor = dispatchExecutor;
+        this.messagingTemplate = messagingTemplate;
+        this.notificationMetrics = notificationMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+        this.expanders = expanders;
+    }
+
+    @PostConstruct
+    public void start() {
+        inFlight = new Semaphore(maxInFlight);
+        expander = Executors.newFixedThreadPool(expanders, new CustomizableThreadFactory("notification-broadcast-"));
+    }
+
+    /**
+     * Start fanning a broadcast out in the background.
+     *
+     * @param broadcastId Id of the already persisted broadcast
+     * @param payload The payload pushed to every recipient
+     * @param recipients Distinct, non-blank recipients
+     * @return Completes with the final counts once every recipient has been processed
+     */
+    public CompletableFuture<Result> fanOut(long broadcastId, String payload, List<String> recipients) {
+        Progress progress = new Progress(broadcastId);
+        expander.execute(() -> expand(progress, payload, recipients));
+        return progress.future;
+    }
+
+    private void expand(Progress progress, String payload, List<String> recipients) {
+        Chunk chunk = null;
+        int submitted = 0;
+        try {
+            for (int from = 0; from < recipients.size(); from += chunkSize) {
+                List<String> recipientChunk = recipients.subList(from, Math.min(from + chunkSize, recipients.size()));
+                transactionTemplate.executeWithoutResult(status ->
+                        broadcastDeliveryRepository.insertPending(progress.broadcastId, recipientChunk));
+
+                Chunk current = new Chunk(progress, recipientChunk);
+                chunk = current;
+                submitted = 0;
+                progress.outstanding.incrementAndGet();
+                for (String recipient : recipientChunk) {
+                    inFlight.acquire();
+                    dispatchExecutor.execute(recipient, () -> push(current, recipient, payload));
+                    submitted++;
+                }
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            progress.aborted = true;
+            log.error("Broadcast {} expansion failed: {}", progress.broadcastId, e.getMessage());
+            if (chunk != null) {
+                abandon(chunk, submitted);
+            }
+        } finally {
+            progress.arrive();
+        }
+    }
+
+    // Settle a chunk whose expansion stopped part way: recipients never pushed count as failed
+    private void abandon(Chunk chunk, int submitted) {
+        int unsubmitted = chunk.recipients.size() - submitted;
+        if (unsubmitted == 0) {
+            return;
+        }
+        chunk.failed.addAll(chunk.recipients.subList(submitted, chunk.recipients.size()));
+        if (chunk.remaining.addAndGet(-unsubmitted) == 0) {
+            complete(chunk);
+        }
+    }
+
+    private void push(Chunk chunk, String recipient, String payload) {
+        try {
+            messagingTemplate.convertAndSendToUser(recipient, "/queue/notifications", payload);
+        } catch (Exception e) {
+            log.debug("Broadcast {} push to {} failed: {}", chunk.progress.broadcastId, recipient, e.getMessage());
+            chunk.failed.add(recipient);
+        } finally {
+            inFlight.release();
+            if (chunk.remaining.decrementAndGet() == 0) {
+                complete(chunk);
+            }
+        }
+    }
+
+    private void complete(Chunk chunk) {
+        Progress progress = chunk.progress;
+        int failed = chunk.failed.size();
+        int delivered = chunk.recipients.size() - failed;
+        try {
+            transactionTemplate.executeWithoutResult(status -> recordOutcome(chunk, delivered));
+        } catch (Exception e) {
+            log.error("Failed to record delivery status for a chunk of broadcast {}: {}", progress.broadcastId, e.getMessage());
+        }
+        progress.delivered.addAndGet(delivered);
+        progress.failed.addAndGet(failed);
+        notificationMetrics.recordBroadcastRecipients(delivered, failed);
+        progress.arrive();
+    }
+
+    private void recordOutcome(Chunk chunk, int delivered) {
+        long broadcastId = chunk.progress.broadcastId;
+        LocalDateTime now = LocalDateTime.now();
+        if (chunk.failed.isEmpty()) {
+            broadcastDeliveryRepository.updateStatus(broadcastId, chunk.recipients, "DELIVERED", now);
+            return;
+        }
+        Set<String> failedRecipients = new HashSet<>(chunk.failed);
+        List<String> deliveredRecipients = new ArrayList<>(delivered);
+        for (String recipient : chunk.recipients) {
+            if (!failedRecipients.contains(recipient)) {
+                deliveredRecipients.add(recipient);
+            }
+        }
+        if (!deliveredRecipients.isEmpty()) {
+            broadcastDeliveryRepository.updateStatus(broadcastId, deliveredRecipients, "DELIVERED", now);
+        }
+        broadcastDeliveryRepository.updateStatus(broadcastId, new ArrayList<>(failedRecipients), "FAILED", now);
+    }
+
+    private void finish(Progress progress) {
+        long elapsed = System.nanoTime() - progress.startNanos;
+        Result result = new Result(progress.broadcastId, progress.aborted ? "FAILED" : "COMPLETED",
+                progress.delivered.get(), progress.failed.get());
+        try {
+            broadcastDeliveryRepository.completeBroadcast(result.broadcastId(), result.status(),
+                    result.delivered(), result.failed(), LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Failed to record completion of broadcast {}: {}", progress.broadcastId, e.getMessage());
+        }
+        notificationMetrics.recordBroadcastCompleted(result.delivered() + result.failed(), elapsed);
+        log.info("Broadcast {} {}: {} delivered, {} failed in {} ms", result.broadcastId(), result.status(),
+                result.delivered(), result.failed(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        progress.future.complete(result);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        expander.shutdown();
+        if (!expander.awaitTermination(10, TimeUnit.SECONDS)) {
+            expander.shutdownNow();
+        }
+    }
+
+    public record Result(long broadcastId, String status, int delivered, int failed) {
+    }
+
+    private final class Progress {
+        private final long broadcastId;
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+        private final AtomicInteger delivered = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        // One party for the expansion itself plus one per chunk not yet completed
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private volatile boolean aborted;
+
+        private Progress(long broadcastId) {
+            this.broadcastId = broadcastId;
+        }
+
+        private void arrive() {
+            if (outstanding.decrementAndGet() == 0) {
+                finish(this);
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final Progress progress;
+        private final List<String> recipients;
+        private final AtomicInteger remaining;
+        private final Queue<String> failed = new ConcurrentLinkedQueue<>();
+
+        private Chunk(Progress progress, List<String> recipients) {
+            this.progress = progress;
+            this.recipients = recipients;
+            this.remaining = new AtomicInteger(recipients.size());
+        }
+    }
+}
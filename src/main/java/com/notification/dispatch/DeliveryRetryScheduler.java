@@ -0,0 +1,137 @@
+package com.notification.dispatch;
+
+import com.notification.metrics.NotificationMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules quick re-attempts of a failed delivery without holding the thread that saw the failure.
+ *
+ * A single timer thread keeps the pending attempts in a delay queue; when one is due it only hands it to
+ * the recipient's {@link StripedDispatchExecutor} lane, which runs the attempt. Attempt {@code n} fails over
+ * to attempt {@code n + 1} after {@code initial-delay-ms * multiplier^(n - 1)}, up to {@code max-attempts}
+ * in total. At most {@code max-scheduled} attempts wait at once; beyond that a failure is not re-attempted
+ * inline and falls through to the durable retry queue.
+ *
+ * Waiting attempts live only in memory. Callers store a notification as RETRYING until {@link #leaseUntil}
+ * before scheduling it, so if this process goes away first the retry queue claims the row once that passes.
+ */
+@Slf4j
+@Component
+public class DeliveryRetryScheduler {
+
+    private final StripedDispatchExecutor dispatchExecutor;
+    private final NotificationMetrics notificationMetrics;
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final double multiplier;
+    private final int maxScheduled;
+    private final long leaseSlackMs;
+
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private ScheduledThreadPoolExecutor timer;
+
+    public DeliveryRetryScheduler(StripedDispatchExecutor dispatchExecutor,
+                                  NotificationMetrics notificationMetrics,
+                                  @Value("${notification.retry.inline.max-attempts:3}") int maxAttempts,
+                                  @Value("${notification.retry.inline.initial-delay-ms:1000}") long initialDelayMs,
+                                  @Value("${notification.retry.inline.multiplier:2.0}") double multiplier,
+                                  @Value("${notification.retry.inline.max-scheduled:10000}") int maxScheduled,
+                                  @Value("${notification.retry.inline.lease-slack-ms:60000}") long leaseSlackMs) {
+        this.dispatchExecutor = dispatchExecutor;
+        this.notificationMetrics = notificationMetrics;
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMs = initialDelayMs;
+        this.multiplier = multiplier;
+        this.maxScheduled = maxScheduled;
+        this.leaseSlackMs = leaseSlackMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        timer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("notification-retry-timer-"));
+        timer.setRemoveOnCancelPolicy(true);
+        timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        notificationMetrics.initializeInlineRetryDepthGauge(scheduled::get);
+    }
+
+    /**
+     * The latest time the attempts after a failed one can still be running: the remaining backoff plus
+     * {@code lease-slack-ms} for the attempts themselves.
+     *
+     * @param failedAttempt 1-based number of the attempt that just failed
+     * @return null if no further attempt would be scheduled
+     */
+    public LocalDateTime leaseUntil(int failedAttempt) {
+        if (failedAttempt >= maxAttempts) {
+            return null;
+        }
+        long waitMs = leaseSlackMs;
+        for (int attempt = failedAttempt; attempt < maxAttempts; attempt++) {
+            waitMs += delayAfter(attempt);
+        }
+        return LocalDateTime.now().plusNanos(waitMs * 1_000_000L);
+    }
+
+    /**
+     * Schedule the next attempt after a failed one.
+     *
+     * @param key Ordering key of the dispatch lane the attempt runs on, i.e. the recipient
+     * @param failedAttempt 1-based number of the attempt that just failed
+     * @param nextAttempt The attempt to run
+     * @return false if no further attempt was scheduled, because attempts are used up or too many are waiting
+     */
+    public boolean schedule(String key, int failedAttempt, Runnable nextAttempt) {
+        if (failedAttempt >= maxAttempts) {
+            return false;
+        }
+        if (scheduled.incrementAndGet() > maxScheduled) {
+            scheduled.decrementAndGet();
+            notificationMetrics.recordInlineRetry("rejected");
+            return false;
+        }
+        long delayMs = delayAfter(failedAttempt);
+        try {
+            timer.schedule(() -> {
+                scheduled.decrementAndGet();
+                try {
+                    dispatchExecutor.execute(key, nextAttempt);
+                } catch (IllegalStateException e) {
+                    log.warn("Dropped a delivery retry for {} during shutdown", key);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            scheduled.decrementAndGet();
+            return false;
+        }
+        notificationMetrics.recordInlineRetry("scheduled");
+        return true;
+    }
+
+    private long delayAfter(int failedAttempt) {
+        return (long) (initialDelayMs * Math.pow(multiplier, failedAttempt - 1));
+    }
+
+    public int getScheduledCount() {
+        return scheduled.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int dropped = timer.shutdownNow().size();
+        if (dropped > 0) {
+            // Their rows are RETRYING on a lease, so the retry queue picks them up once it expires
+            log.warn("{} scheduled delivery retries left to the retry queue on shutdown", dropped);
+        }
+    }
+}
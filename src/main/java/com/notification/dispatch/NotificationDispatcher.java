@@ -0,0 +1,177 @@
+package com.notification.dispatch;
+
+import com.notification.exception.DispatchRejectedException;
+import com.notification.exception.NotificationException;
+import com.notification.messaging.RabbitDispatchPublisher;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.Notification;
+import com.notification.service.NotificationService;
+import com.notification.service.NotificationValidator;
+import com.notification.status.NotificationStatusCounters;
+import com.notification.status.NotificationStatusUpdater;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Accepts notifications for asynchronous delivery.
+ *
+ * In async mode a notification is validated and persisted on the calling thread, then handed to a
+ * {@link StripedDispatchExecutor} lane picked by recipient, which performs the WebSocket push and status
+ * update. Notifications for one recipient are therefore delivered in the order they were accepted. The
+ * total backlog across lanes is bounded; when it is full the notification is rejected before anything
+ * is written. Webhook requests are only started on the lane and finish on the webhook client's threads,
+ * so a slow endpoint does not hold a lane.
+ *
+ * In rabbit mode the persisted notification is published to the durable dispatch exchange instead and
+ * delivered by {@link com.notification.messaging.RabbitDispatchListener} workers, which may run on other
+ * nodes. A notification whose publish is not confirmed is marked FAILED so the retry task picks it up.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    private static final String MODE_ASYNC = "async";
+    private static final String MODE_RABBIT = "rabbit";
+
+    private final NotificationService notificationService;
+    private final NotificationMetrics notificationMetrics;
+    private final NotificationStatusUpdater notificationStatusUpdater;
+    private final NotificationStatusCounters notificationStatusCounters;
+    private final ObjectProvider<RabbitDispatchPublisher> rabbitDispatchPublisher;
+    private final boolean asyncEnabled;
+    private final boolean rabbitEnabled;
+    private final StripedDispatchExecutor executor;
+    private final int queueCapacity;
+    private final double hotLaneFactor;
+    private final int hotLaneMinDepth;
+
+    private Semaphore permits;
+
+    public NotificationDispatcher(NotificationService notificationService,
+                                  NotificationMetrics notificationMetrics,
+                                  NotificationStatusUpdater notificationStatusUpdater,
+                                  NotificationStatusCounters notificationStatusCounters,
+                                  ObjectProvider<RabbitDispatchPublisher> rabbitDispatchPublisher,
+                                  StripedDispatchExecutor dispatchExecutor,
+                                  @Value("${notification.dispatch.mode:sync}") String mode,
+                                  @Value("${notification.dispatch.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${notification.dispatch.hot-lane.factor:4.0}") double hotLaneFactor,
+                                  @Value("${notification.dispatch.hot-lane.min-depth:100}") int hotLaneMinDepth) {
+        this.notificationService = notificationService;
+        this.notificationMetrics = notificationMetrics;
+        this.notificationStatusUpdater = notificationStatusUpdater;
+        this.notificationStatusCounters = notificationStatusCounters;
+        this.rabbitDispatchPublisher = rabbitDispatchPublisher;
+        this.asyncEnabled = MODE_ASYNC.equalsIgnoreCase(mode);
+        this.rabbitEnabled = MODE_RABBIT.equalsIgnoreCase(mode);
+        this.executor = dispatchExecutor;
+        this.queueCapacity = queueCapacity;
+        this.hotLaneFactor = hotLaneFactor;
+        this.hotLaneMinDepth = hotLaneMinDepth;
+    }
+
+    @PostConstruct
+    public void start() {
+        notificationMetrics.initializeDispatchQueueGauge(executor::getQueuedCount);
+        for (int lane = 0; lane < executor.getLaneCount(); lane++) {
+            int index = lane;
+            notificationMetrics.initializeDispatchLaneGauge(index, () -> executor.getLaneDepth(index));
+        }
+        if (!asyncEnabled) {
+            return;
+        }
+        // Permits cover queued plus in-flight work across all lanes
+        permits = new Semaphore(queueCapacity + executor.getLaneCount());
+        log.info("Async notification dispatch enabled with {} lanes and queue capacity {}", executor.getLaneCount(), queueCapacity);
+    }
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled || rabbitEnabled;
+    }
+
+    /**
+     * Validate, persist and enqueue a notification for delivery.
+     *
+     * @param notification The notification to accept
+     * @return The persisted notification, still in PENDING state
+     * @throws DispatchRejectedException if the dispatch queue is full
+     */
+    public Notification submit(Notification notification) {
+        validate(notification);
+
+        if (rabbitEnabled) {
+            return publish(notification);
+        }
+
+        if (!permits.tryAcquire()) {
+            notificationMetrics.recordDispatchRejected();
+            log.warn("Dispatch queue full, rejecting notification for recipient: {}", notification.getRecipient());
+            throw new DispatchRejectedException("Notification dispatch queue is full, retry later");
+        }
+
+        Notification saved;
+        try {
+            saved = notificationService.saveNotification(notification);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        long enqueuedAt = System.nanoTime();
+        executor.execute(saved.getRecipient(), () -> {
+            try {
+                notificationMetrics.recordDispatchWait(System.nanoTime() - enqueuedAt);
+                notificationService.deliverNotification(saved);
+            } catch (Exception e) {
+                log.error("Error delivering notification {}: {}", saved.getId(), e.getMessage());
+            } finally {
+                permits.release();
+            }
+        });
+        return saved;
+    }
+
+    /**
+     * Report lanes whose backlog is far above the average, usually a single recipient receiving a burst.
+     * Their notifications still go out in order, just behind that recipient's backlog.
+     */
+    @Scheduled(fixedDelayString = "${notification.dispatch.hot-lane.check-interval-ms:1000}")
+    public void detectHotLanes() {
+        List<Integer> hotLanes = executor.findHotLanes(hotLaneFactor, hotLaneMinDepth);
+        for (int lane : hotLanes) {
+            notificationMetrics.recordDispatchHotLane(lane);
+            log.warn("Dispatch lane {} is hot: depth {} against {} queued across {} lanes",
+                    lane, executor.getLaneDepth(lane), executor.getQueuedCount(), executor.getLaneCount());
+        }
+    }
+
+    private Notification publish(Notification notification) {
+        Notification saved = notificationService.saveNotification(notification);
+        try {
+            rabbitDispatchPublisher.getObject().publish(saved);
+        } catch (RuntimeException e) {
+            log.error("Failed to publish notification {} for dispatch: {}", saved.getId(), e.getMessage());
+            notificationStatusCounters.transition(saved.getStatus(), "FAILED");
+            saved.setStatus("FAILED");
+            saved.setErrorMessage("Dispatch publish failed: " + e.getMessage());
+            saved.setNextAttemptAt(LocalDateTime.now());
+            notificationStatusUpdater.record(saved);
+        }
+        return saved;
+    }
+
+    private void validate(Notification notification) {
+        String error = NotificationValidator.validate(notification);
+        if (error != null) {
+            throw new NotificationException(error);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.notification.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executor that runs tasks on a fixed set of single-consumer lanes chosen by a key hash.
+ *
+ * Every task for the same key lands on the same lane and lanes run their tasks strictly in submission
+ * order, so work for one recipient is never reordered while different recipients proceed in parallel.
+ * Each lane is a lock-free multi-producer queue drained by one dedicated thread that parks when idle.
+ *
+ * The executor itself is unbounded; callers are expected to bound admission (see
+ * {@link NotificationDispatcher}).
+ */
+@Slf4j
+public class StripedDispatchExecutor {
+
+    private final Lane[] lanes;
+    private volatile boolean running = true;
+
+    public StripedDispatchExecutor(String threadNamePrefix, int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be at least 1");
+        }
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(threadNamePrefix + i);
+        }
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+    }
+
+    /**
+     * Queue a task behind every earlier task submitted with the same key.
+     *
+     * @param key Ordering key, e.g. the recipient; null keys all share lane 0
+     * @param task The task to run
+     * @throws IllegalStateException if the executor has been shut down
+     */
+    public void execute(String key, Runnable task) {
+        if (!running) {
+            throw new IllegalStateException("Dispatch executor has been shut down");
+        }
+        lanes[laneFor(key)].offer(task);
+    }
+
+    public int laneFor(String key) {
+        if (key == null) {
+            return 0;
+        }
+        // Spread the hash so recipients differing only in their last characters do not cluster
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, lanes.length);
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getLaneDepth(int lane) {
+        return lanes[lane].depth.get();
+    }
+
+    public int getQueuedCount() {
+        int total = 0;
+        for (Lane lane : lanes) {
+            total += lane.depth.get();
+        }
+        return total;
+    }
+
+    /**
+     * Find lanes whose backlog is disproportionate to the rest, typically because one recipient is hot.
+     *
+     * @param factor How many times the mean lane depth a lane must exceed
+     * @param minDepth Lanes shallower than this are never reported, to avoid noise when mostly idle
+     * @return Indexes of the hot lanes, empty if none
+     */
+    public List<Integer> findHotLanes(double factor, int minDepth) {
+        List<Integer> hot = new ArrayList<>();
+        if (lanes.length < 2) {
+            return hot;
+        }
+        double mean = (double) getQueuedCount() / lanes.length;
+        for (int i = 0; i < lanes.length; i++) {
+            int depth = lanes[i].depth.get();
+            if (depth >= minDepth && depth > mean * factor) {
+                hot.add(i);
+            }
+        }
+        return hot;
+    }
+
+    /**
+     * Stop accepting tasks. Lanes keep running until their queues are empty.
+     */
+    public void shutdown() {
+        running = false;
+        for (Lane lane : lanes) {
+            LockSupport.unpark(lane.thread);
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Lane lane : lanes) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return !anyAlive();
+            }
+            lane.thread.join(remainingMs);
+        }
+        return !anyAlive();
+    }
+
+    /**
+     * Interrupt the lane threads and discard whatever is still queued.
+     *
+     * @return Number of tasks that were discarded
+     */
+    public int shutdownNow() {
+        shutdown();
+        int discarded = 0;
+        for (Lane lane : lanes) {
+            Runnable task;
+            while ((task = lane.queue.poll()) != null) {
+                lane.depth.decrementAndGet();
+                discarded++;
+            }
+            lane.thread.interrupt();
+        }
+        return discarded;
+    }
+
+    /**
+     * Stop accepting tasks and give the lanes up to ten seconds to drain before discarding the rest.
+     */
+    public void close() throws InterruptedException {
+        shutdown();
+        if (!awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Dispatch lanes did not drain in time, {} tasks left pending", shutdownNow());
+        }
+    }
+
+    private boolean anyAlive() {
+        for (Lane lane : lanes) {
+            if (lane.thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class Lane implements Runnable {
+
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Thread thread;
+        private volatile boolean waiting;
+
+        private Lane(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        private void offer(Runnable task) {
+            depth.incrementAndGet();
+            queue.offer(task);
+            // Only pay for unpark when the consumer has announced it is about to park
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    if (!running) {
+                        return;
+                    }
+                    waiting = true;
+                    // Re-check after publishing the flag so an offer racing with it cannot be missed
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                depth.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    log.error("Dispatch task failed on {}: {}", thread.getName(), t.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.notification.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DispatchRejectedException extends RuntimeException {
+    public DispatchRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.notification.exception;
+
+/**
+ * No notification exists with the requested id. Not counted as a failure by the circuit breaker.
+ */
+public class NotificationNotFoundException extends NotificationException {
+    public NotificationNotFoundException(Long id) {
+        super(String.format("Notification not found with id: %d", id));
+    }
+}
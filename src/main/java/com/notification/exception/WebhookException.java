@@ -0,0 +1,11 @@
+package com.notification.exception;
+
+public class WebhookException extends RuntimeException {
+    public WebhookException(String message) {
+        super(message);
+    }
+
+    public WebhookException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,151 @@
+package com.notification.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter over long identifiers.
+ *
+ * Each element sets {@code k} of {@code m} 4-bit counters, chosen by double hashing, so elements can be removed
+ * as well as added. A lookup answers "definitely absent" or "possibly present"; the false positive rate stays
+ * near the one the filter was sized for as long as it holds no more than its capacity. Counters are packed
+ * sixteen to a word and updated with compare-and-set, so no operation takes a lock.
+ *
+ * A counter that reaches 15 stays there, since its true count is no longer known. Removing an element that was
+ * never added can take counts away from other elements and make them read as absent, so callers must only
+ * remove elements they know were added.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashes;
+    private final long capacity;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param capacity Number of elements the filter is sized for
+     * @param fpp False positive rate wanted at that number of elements
+     */
+    public CountingBloomFilter(long capacity, double fpp) {
+        if (capacity <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Capacity must be positive and fpp between 0 and 1");
+        }
+        double optimal = -capacity * Math.log(fpp) / (Math.log(2) * Math.log(2));
+        long words = Math.max(1, (long) Math.ceil(optimal / COUNTERS_PER_WORD));
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Filter for " + capacity + " elements at fpp " + fpp + " is too large");
+        }
+        this.words = new AtomicLongArray((int) words);
+        this.counters = words * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) counters / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    public void add(long element) {
+        long h1 = mix(element);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            increment(index(h1 + i * h2));
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * Remove an element previously {@link #add added}.
+     */
+    public void remove(long element) {
+        long h1 = mix(element);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            decrement(index(h1 + i * h2));
+        }
+        size.decrementAndGet();
+    }
+
+    /**
+     * @return False if the element was definitely never added or has been removed since
+     */
+    public boolean mightContain(long element) {
+        long h1 = mix(element);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long index = index(h1 + i * h2);
+            if (count(words.get((int) (index / COUNTERS_PER_WORD)), index) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of elements added and not removed
+     */
+    public long size() {
+        return Math.max(0, size.get());
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return False positive rate expected at the current number of elements
+     */
+    public double expectedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashes * size() / counters), hashes);
+    }
+
+    public long memoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private void increment(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        long unit = 1L << shift(index);
+        while (true) {
+            long current = words.get(word);
+            if (count(current, index) == MAX_COUNT || words.compareAndSet(word, current, current + unit)) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        long unit = 1L << shift(index);
+        while (true) {
+            long current = words.get(word);
+            long count = count(current, index);
+            if (count == 0 || count == MAX_COUNT || words.compareAndSet(word, current, current - unit)) {
+                return;
+            }
+        }
+    }
+
+    private long index(long hash) {
+        return (hash & Long.MAX_VALUE) % counters;
+    }
+
+    private static long count(long word, long index) {
+        return (word >>> shift(index)) & MAX_COUNT;
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    // Finalizer of MurmurHash3, spreading sequential ids over the whole range
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
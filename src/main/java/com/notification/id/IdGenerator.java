@@ -0,0 +1,12 @@
+package com.notification.id;
+
+/**
+ * Source of unique, time-ordered 64-bit identifiers.
+ */
+public interface IdGenerator {
+
+    /**
+     * @return A new identifier, strictly greater than any previously returned by this generator
+     */
+    long nextId();
+}
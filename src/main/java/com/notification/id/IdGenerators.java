@@ -0,0 +1,54 @@
+package com.notification.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+
+/**
+ * Process-wide access to the configured {@link IdGenerator}.
+ *
+ * Hibernate instantiates identifier generators itself, outside the Spring context, so the generator bean
+ * is published here by {@link com.notification.config.IdGeneratorConfig}. If nothing has been published
+ * yet a generator with a hostname-derived worker id is created on first use.
+ */
+@Slf4j
+public final class IdGenerators {
+
+    private static volatile IdGenerator instance;
+
+    private IdGenerators() {
+    }
+
+    public static IdGenerator get() {
+        IdGenerator generator = instance;
+        if (generator == null) {
+            synchronized (IdGenerators.class) {
+                if (instance == null) {
+                    instance = new SnowflakeIdGenerator(defaultWorkerId(), 5000);
+                }
+                generator = instance;
+            }
+        }
+        return generator;
+    }
+
+    public static void set(IdGenerator generator) {
+        instance = generator;
+    }
+
+    /**
+     * Two hostnames can hash to the same worker id, so this is only for single-node and development
+     * setups; production nodes are given an explicit one.
+     *
+     * @return A worker id derived from the local hostname, for nodes without an explicit one
+     */
+    public static long defaultWorkerId() {
+        try {
+            String hostname = InetAddress.getLocalHost().getHostName();
+            return Math.floorMod(hostname.hashCode(), SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+        } catch (Exception e) {
+            log.warn("Unable to resolve hostname for worker id, falling back to 0: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.notification.id;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.NotificationBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tells whether a notification id can exist, so that lookups of ids that were never stored or have been purged
+ * are answered without a database round trip and without counting against the circuit breaker.
+ *
+ * A {@link CountingBloomFilter} is filled by scanning every id in the table, at start and every
+ * {@code rebuild-interval-ms}. It is only trusted for ids issued before its scan began, less {@code trust-lag-ms}
+ * for clock skew between instances and for rows committed after the scan went past them; newer ids may have
+ * been stored by other instances since, so they are always looked up, as is every id until the first scan ends.
+ * Ids issued further in the future than the trust lag cannot exist yet and are always rejected.
+ *
+ * Ids stored by this instance are added once committed and ids deleted by the chunked purge are removed.
+ * Partitions dropped wholesale are not scanned for their ids, which stay in the filter until the next rebuild.
+ * Each rebuild sizes the filter for twice the ids the previous one held, and a rebuild is started early once it
+ * holds more than it was sized for, so the false positive rate stays near {@code fpp} as the table grows.
+ */
+@Component
+@Slf4j
+public class NotificationIdFilter {
+
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationMetrics notificationMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long initialCapacity;
+    private final double fpp;
+    private final long trustLagMillis;
+    private final int fetchSize;
+
+    // Null until the first scan has completed
+    private volatile Generation current;
+    // The filter being filled by a scan in progress, which new ids are added to as well
+    private volatile CountingBloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private ExecutorService rebuilder;
+
+    public NotificationIdFilter(NotificationBatchRepository notificationBatchRepository,
+                                NotificationMetrics notificationMetrics,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${notification.id-filter.enabled:true}") boolean enabled,
+                                @Value("${notification.id-filter.expected-ids:1000000}") long initialCapacity,
+                                @Value("${notification.id-filter.fpp:0.01}") double fpp,
+                                @Value("${notification.id-filter.trust-lag-ms:60000}") long trustLagMillis,
+                                @Value("${notification.id-filter.fetch-size:10000}") int fetchSize) {
+        this.notificationBatchRepository = notificationBatchRepository;
+        this.notificationMetrics = notificationMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.initialCapacity = initialCapacity;
+        this.fpp = fpp;
+        this.trustLagMillis = trustLagMillis;
+        this.fetchSize = fetchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("notification-id-filter-"));
+        notificationMetrics.initializeIdFilterGauges(
+                () -> current != null ? current.filter().size() : 0,
+                () -> current != null ? current.filter().expectedFpp() : 0,
+                () -> (current != null ? current.filter().memoryBytes() : 0)
+                        + (building != null ? building.memoryBytes() : 0));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return False if no notification with the id can exist
+     */
+    public boolean mightExist(long id) {
+        Generation generation = current;
+        if (generation == null) {
+            notificationMetrics.recordIdFilterLookup("unchecked");
+            return true;
+        }
+        long issuedAt = SnowflakeIdGenerator.timestampOf(id).toEpochMilli();
+        if (issuedAt > System.currentTimeMillis() + trustLagMillis) {
+            notificationMetrics.recordIdFilterLookup("absent");
+            return false;
+        }
+        if (issuedAt >= generation.horizonMillis()) {
+            notificationMetrics.recordIdFilterLookup("unchecked");
+            return true;
+        }
+        if (!generation.filter().mightContain(id)) {
+            notificationMetrics.recordIdFilterLookup("absent");
+            return false;
+        }
+        notificationMetrics.recordIdFilterLookup("present");
+        return true;
+    }
+
+    /**
+     * Count a lookup that found nothing although the filter let it through.
+     */
+    public void recordNotFound(long id) {
+        if (covers(current, id)) {
+            notificationMetrics.recordIdFilterLookup("false_positive");
+        }
+    }
+
+    /**
+     * Add the id of a notification whose insert has committed.
+     */
+    public void add(long id) {
+        // The scan in progress is read first: an id missed by it was committed before the scan began, so the scan sees it
+        CountingBloomFilter next = building;
+        if (next != null) {
+            next.add(id);
+        }
+        Generation generation = current;
+        if (generation != null) {
+            generation.filter().add(id);
+            if (generation.filter().size() > generation.filter().capacity()) {
+                requestRebuild();
+            }
+        }
+    }
+
+    /**
+     * Remove the ids of notifications whose delete has committed.
+     */
+    public void removeAll(Collection<Long> ids) {
+        // Only the ids the current filter was built from may be removed from it; the filter being built is left
+        // alone, as the scan may not have reached them yet
+        Generation generation = current;
+        for (Long id : ids) {
+            if (covers(generation, id) && generation.filter().mightContain(id)) {
+                generation.filter().remove(id);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.id-filter.rebuild-interval-ms:600000}")
+    public void requestRebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        rebuilder.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("Rebuilding the notification id filter failed, keeping the previous one: {}", e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+            // Sized from the previous scan, which the table had outgrown since
+            Generation generation = current;
+            if (generation != null && generation.filter().size() > generation.filter().capacity()) {
+                requestRebuild();
+            }
+        });
+    }
+
+    /**
+     * Scan every id in the table into a new filter on the calling thread, then start using it.
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        Generation previous = current;
+        long capacity = previous != null ? Math.max(initialCapacity, previous.filter().size() * 2) : initialCapacity;
+        CountingBloomFilter next = new CountingBloomFilter(capacity, fpp);
+        building = next;
+        try {
+            transactionTemplate.executeWithoutResult(status -> notificationBatchRepository.forEachId(fetchSize, next::add));
+            current = new Generation(next, started - trustLagMillis);
+        } finally {
+            building = null;
+        }
+        notificationMetrics.recordIdFilterRebuild(System.nanoTime() - startNanos);
+        log.info("Rebuilt the notification id filter with {} ids in {} ms, {} bytes",
+                next.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), next.memoryBytes());
+    }
+
+    private static boolean covers(Generation generation, long id) {
+        return generation != null && SnowflakeIdGenerator.timestampOf(id).toEpochMilli() < generation.horizonMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+            rebuilder.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A filled filter and the issue time of the newest ids it can answer for.
+     */
+    private record Generation(CountingBloomFilter filter, long horizonMillis) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.notification.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate bridge for {@link SnowflakeId}. Ids are produced in memory, so Hibernate can defer and batch
+ * INSERT statements instead of executing each one immediately to read back a database-generated key.
+ */
+public class SnowflakeHibernateIdGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return IdGenerators.get().nextId();
+    }
+}
@@ -0,0 +1,105 @@
+package com.notification.id;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style identifier generator.
+ *
+ * Layout (most significant first): 1 unused sign bit, 41 bits of milliseconds since {@link #EPOCH_MILLIS},
+ * 10 bits of worker id and 12 bits of per-millisecond sequence. Identifiers from one generator are strictly
+ * increasing and identifiers from different workers never collide, so they can be assigned before an
+ * INSERT is flushed and sort by creation time.
+ *
+ * The timestamp and sequence live in a single {@link AtomicLong}, so concurrent callers never take a lock.
+ * If the wall clock steps backwards the generator keeps counting from its last timestamp, and only spins
+ * once that millisecond's sequence is exhausted; it never issues ids ahead of the clock. A backwards step
+ * larger than the configured tolerance is refused with an exception rather than waited out.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    /** 2024-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+
+    /** Widest gap between the time in an id and the creation time stored next to it, clock skew included */
+    public static final Duration TIMESTAMP_SLACK = Duration.ofMinutes(1);
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    private final long workerId;
+    private final long maxClockSkewMillis;
+    private final LongSupplier clock;
+
+    // (milliseconds since EPOCH_MILLIS << SEQUENCE_BITS) | sequence
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId, long maxClockSkewMillis) {
+        this(workerId, maxClockSkewMillis, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long workerId, long maxClockSkewMillis, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID + ": " + workerId);
+        }
+        this.workerId = workerId;
+        this.maxClockSkewMillis = maxClockSkewMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > maxClockSkewMillis) {
+                    throw new IllegalStateException(String.format(
+                            "Clock moved backwards by %d ms, more than the tolerated %d ms", lastTimestamp - now, maxClockSkewMillis));
+                }
+                if ((current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // Sequence exhausted for this millisecond: wait for the clock to move past it
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // Same millisecond, or the clock is behind: keep counting from the last timestamp
+                next = current + 1;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << TIMESTAMP_SHIFT) | (workerId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * @return The creation time encoded in an identifier
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS);
+    }
+
+    /**
+     * @return The smallest identifier any worker could have issued at the given instant
+     */
+    public static long minIdAt(Instant instant) {
+        return Math.max(0, instant.toEpochMilli() - EPOCH_MILLIS) << TIMESTAMP_SHIFT;
+    }
+}
@@ -2,8 +2,12 @@ package com.notification.interceptor;
 
 import com.notification.exception.RateLimitExceededException;
 import com.notification.service.RateLimitService;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -17,12 +21,19 @@ public class RateLimitInterceptor implements HandlerInterceptor {
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        String clientId = request.getRemoteAddr();
+        // A streamed response is dispatched a second time to finish; the request was already counted
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String subject = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
         
-        if (!rateLimitService.isAllowed(clientId)) {
+        if (!rateLimitService.isAllowed(subject, request.getRemoteAddr(), request.getMethod(), request.getRequestURI())) {
             throw new RateLimitExceededException("Rate limit exceeded");
         }
         
         return true;
     }
-} 
\ No newline at end of file
+}
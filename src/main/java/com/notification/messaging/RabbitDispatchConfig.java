@@ -0,0 +1,108 @@
+package com.notification.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Topology for the RabbitMQ dispatch mode.
+ *
+ * Notifications are published to a durable direct exchange and routed to one of {@code partitions}
+ * durable queues by a hash of the recipient, so all notifications for one recipient land on the same
+ * queue. Each queue gets exactly one consumer, which keeps per-recipient delivery in publish order while
+ * the partitions are drained in parallel. Rejected messages are dead-lettered instead of requeued.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notification.dispatch.mode", havingValue = "rabbit")
+public class RabbitDispatchConfig {
+
+    public static final String QUEUE_PREFIX = "notification.dispatch.";
+    public static final String DEAD_LETTER_EXCHANGE = "notification.dispatch.dlx";
+    public static final String DEAD_LETTER_QUEUE = "notification.dispatch.dead";
+
+    @Value("${notification.dispatch.rabbit.exchange:notification.dispatch}")
+    private String exchangeName;
+
+    @Value("${notification.dispatch.rabbit.partitions:8}")
+    private int partitions;
+
+    @Value("${notification.dispatch.rabbit.prefetch:250}")
+    private int prefetch;
+
+    public static String queueName(int partition) {
+        return QUEUE_PREFIX + partition;
+    }
+
+    public static int partitionFor(String recipient, int partitions) {
+        return Math.floorMod(recipient.hashCode(), partitions);
+    }
+
+    @Bean
+    public Declarables notificationDispatchTopology() {
+        List<Declarable> declarables = new ArrayList<>();
+        DirectExchange exchange = ExchangeBuilder.directExchange(exchangeName).durable(true).build();
+        DirectExchange deadLetterExchange = ExchangeBuilder.directExchange(DEAD_LETTER_EXCHANGE).durable(true).build();
+        Queue deadLetterQueue = QueueBuilder.durable(DEAD_LETTER_QUEUE).build();
+        declarables.add(exchange);
+        declarables.add(deadLetterExchange);
+        declarables.add(deadLetterQueue);
+        declarables.add(BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with(DEAD_LETTER_QUEUE));
+
+        for (int i = 0; i < partitions; i++) {
+            Queue queue = QueueBuilder.durable(queueName(i))
+                    .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                    .deadLetterRoutingKey(DEAD_LETTER_QUEUE)
+                    .build();
+            // Routing key equals the queue name so a partition can be addressed directly
+            Binding binding = BindingBuilder.bind(queue).to(exchange).with(queue.getName());
+            declarables.add(queue);
+            declarables.add(binding);
+        }
+        return new Declarables(declarables);
+    }
+
+    @Bean
+    public String[] notificationDispatchQueueNames() {
+        String[] names = new String[partitions];
+        for (int i = 0; i < partitions; i++) {
+            names[i] = queueName(i);
+        }
+        return names;
+    }
+
+    @Bean
+    public MessageConverter notificationMessageConverter(ObjectMapper objectMapper) {
+        return new Jackson2JsonMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public DirectRabbitListenerContainerFactory dispatchListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                 MessageConverter notificationMessageConverter) {
+        DirectRabbitListenerContainerFactory factory = new DirectRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(notificationMessageConverter);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConsumersPerQueue(1);
+        factory.setPrefetchCount(prefetch);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+}
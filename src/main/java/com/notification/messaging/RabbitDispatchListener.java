@@ -0,0 +1,71 @@
+package com.notification.messaging;
+
+import com.notification.model.Notification;
+import com.notification.service.NotificationService;
+import com.notification.status.NotificationStatusCounters;
+import com.notification.status.NotificationStatusUpdater;
+import com.rabbitmq.client.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Delivery worker for the RabbitMQ dispatch mode. Each message is pushed over WebSocket (and to its webhook,
+ * if it has one) and acknowledged only after its resulting status transition has been written to the
+ * database, so a crash between the push and the status write leads to redelivery rather than a lost status.
+ * A message whose delivery cannot even be started is marked FAILED and due for a retry straight away, so the
+ * retry queue picks it up, and is dead-lettered once that status has been written.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "notification.dispatch.mode", havingValue = "rabbit")
+public class RabbitDispatchListener {
+
+    private final NotificationService notificationService;
+    private final NotificationStatusUpdater notificationStatusUpdater;
+    private final NotificationStatusCounters notificationStatusCounters;
+
+    @RabbitListener(
+            queues = "#{@notificationDispatchQueueNames}",
+            containerFactory = "dispatchListenerContainerFactory",
+            autoStartup = "${notification.dispatch.rabbit.listener-auto-startup:true}")
+    public void onNotification(Notification notification, Channel channel,
+                               @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
+        try {
+            notificationService.deliverNotification(notification).whenComplete((result, error) ->
+                    notificationStatusUpdater.afterPersisted(notification.getId(), () -> ack(channel, deliveryTag)));
+        } catch (Exception e) {
+            log.error("Error consuming notification {}: {}", notification.getId(), e.getMessage());
+            notificationStatusCounters.transition(notification.getStatus(), "FAILED");
+            notification.setStatus("FAILED");
+            notification.setErrorMessage("Dispatch failed: " + e.getMessage());
+            notification.setNextAttemptAt(LocalDateTime.now());
+            notificationStatusUpdater.record(notification);
+            notificationStatusUpdater.afterPersisted(notification.getId(), () -> nack(channel, deliveryTag));
+        }
+    }
+
+    private void nack(Channel channel, long deliveryTag) {
+        try {
+            channel.basicNack(deliveryTag, false, false);
+        } catch (IOException e) {
+            log.error("Failed to reject delivery {}: {}", deliveryTag, e.getMessage());
+        }
+    }
+
+    private void ack(Channel channel, long deliveryTag) {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException e) {
+            log.error("Failed to acknowledge delivery {}: {}", deliveryTag, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.notification.messaging;
+
+import com.notification.model.Notification;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes accepted notifications to the dispatch exchange with batched publisher confirms.
+ *
+ * Callers enqueue a notification and wait; a publisher thread sends everything that is waiting (up to
+ * {@code confirm-batch-size}) on one channel and then waits once for the broker to confirm the whole
+ * batch, instead of paying a confirm round trip per message.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.dispatch.mode", havingValue = "rabbit")
+public class RabbitDispatchPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final String exchangeName;
+    private final int partitions;
+    private final int confirmBatchSize;
+    private final long confirmTimeoutMs;
+
+    private final BlockingQueue<PendingPublish> queue = new LinkedBlockingQueue<>();
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public RabbitDispatchPublisher(RabbitTemplate rabbitTemplate,
+                                   @Value("${notification.dispatch.rabbit.exchange:notification.dispatch}") String exchangeName,
+                                   @Value("${notification.dispatch.rabbit.partitions:8}") int partitions,
+                                   @Value("${notification.dispatch.rabbit.confirm-batch-size:100}") int confirmBatchSize,
+                                   @Value("${notification.dispatch.rabbit.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.exchangeName = exchangeName;
+        this.partitions = partitions;
+        this.confirmBatchSize = confirmBatchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("notification-rabbit-publish-"));
+        executor.execute(this::publishLoop);
+    }
+
+    /**
+     * Publish a persisted notification and wait until the broker has confirmed it.
+     *
+     * @throws IllegalStateException if the broker did not confirm the message in time
+     */
+    public void publish(Notification notification) {
+        PendingPublish pending = new PendingPublish(notification, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            pending.future().get(confirmTimeoutMs * 2, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Broker did not confirm notification " + notification.getId(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for broker confirm of notification " + notification.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for broker confirm", e);
+        }
+    }
+
+    private void publishLoop() {
+        List<PendingPublish> batch = new ArrayList<>(confirmBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPublish first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, confirmBatchSize - 1);
+                publishBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void publishBatch(List<PendingPublish> batch) {
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (PendingPublish pending : batch) {
+                    Notification notification = pending.notification();
+                    String routingKey = RabbitDispatchConfig.queueName(
+                            RabbitDispatchConfig.partitionFor(notification.getRecipient(), partitions));
+                    operations.convertAndSend(exchangeName, routingKey, notification, message -> {
+                        message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+                        return message;
+                    });
+                }
+                operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+            batch.forEach(pending -> pending.future().complete(null));
+        } catch (Exception e) {
+            log.error("Failed to publish batch of {} notifications: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.future().completeExceptionally(e));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private record PendingPublish(Notification notification, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.notification.metrics;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Maps tag values that come from client input onto a bounded set, so that no producer can create an unbounded
+ * number of time series.
+ *
+ * Values listed as known always keep their own tag. Any other value gets one once it has been seen
+ * {@code admitAfter} times, while fewer than {@code capacity} values hold a tag, so the free slots go to values
+ * that recur rather than to one-off noise. Everything else, including occurrences before admission and values
+ * that are too long or contain unusual characters, is reported as {@value #OTHER}. Lookups of admitted values
+ * are a single concurrent map read.
+ */
+class BoundedTagDictionary {
+
+    static final String OTHER = "other";
+    static final String NONE = "none";
+
+    private static final Pattern SAFE_VALUE = Pattern.compile("[A-Za-z0-9_.:-]{1,64}");
+
+    private final int capacity;
+    private final int admitAfter;
+    // Pending values tracked at once; the counts start over when it fills up
+    private final int maxCandidates;
+    private final Set<String> admitted = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger slots = new AtomicInteger();
+    private final ConcurrentHashMap<String, LongAdder> candidates = new ConcurrentHashMap<>();
+
+    BoundedTagDictionary(int capacity, int admitAfter, Collection<String> known) {
+        this.capacity = capacity;
+        this.admitAfter = Math.max(1, admitAfter);
+        this.maxCandidates = Math.max(1024, capacity * 16);
+        for (String value : known) {
+            if (SAFE_VALUE.matcher(value).matches() && admitted.add(value)) {
+                slots.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return The tag to report {@code value} under
+     */
+    String resolve(String value) {
+        if (value == null || value.isEmpty()) {
+            return NONE;
+        }
+        if (admitted.contains(value)) {
+            return value;
+        }
+        if (slots.get() >= capacity || !SAFE_VALUE.matcher(value).matches()) {
+            return OTHER;
+        }
+        if (candidates.size() >= maxCandidates) {
+            candidates.clear();
+        }
+        LongAdder seen = candidates.computeIfAbsent(value, v -> new LongAdder());
+        seen.increment();
+        if (seen.sum() < admitAfter) {
+            return OTHER;
+        }
+        return admit(value) ? value : OTHER;
+    }
+
+    private boolean admit(String value) {
+        int taken;
+        do {
+            taken = slots.get();
+            if (taken >= capacity) {
+                return false;
+            }
+        } while (!slots.compareAndSet(taken, taken + 1));
+        if (!admitted.add(value)) {
+            // Another thread admitted it first
+            slots.decrementAndGet();
+        }
+        candidates.remove(value);
+        return true;
+    }
+
+    int size() {
+        return admitted.size();
+    }
+}
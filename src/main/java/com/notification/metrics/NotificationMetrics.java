@@ -3,7 +3,10 @@ package com.notification.metrics;
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -11,24 +14,84 @@ import java.util.function.Supplier;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Facade over the Micrometer registry for everything the service measures.
+ *
+ * Safe to call from any thread: meters are registered up front or cached in concurrent maps, so recording is
+ * lock-free once a meter exists. The {@code type} and {@code status} tags of the per-notification counters come
+ * from client input and are bounded by a {@link BoundedTagDictionary} each, with values beyond the limit
+ * counted under {@code other}.
+ */
 @Component
 @Slf4j
 public class NotificationMetrics {
 
+    /**
+     * Stages of handling one notification, timed separately by {@code notification.stage.time}.
+     */
+    public enum Stage {
+        PERSIST,
+        PUSH,
+        AUDIT,
+        STATUS
+    }
+
     private final MeterRegistry meterRegistry;
     private final Counter totalNotificationsCounter;
     private final Counter failedNotificationsCounter;
     private final Counter deliveredNotificationsCounter;
     private final Timer notificationProcessingTimer;
-    private final Map<String, Counter> notificationTypeCounters;
-    private final Map<String, Counter> notificationStatusCounters;
+    private final BoundedTagDictionary typeTags;
+    private final BoundedTagDictionary statusTags;
+    private final Map<String, Counter> notificationTypeCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> notificationStatusCounters = new ConcurrentHashMap<>();
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<String, Timer> webhookTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> inlineRetryCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> idFilterLookupCounters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> rateLimitLeaseTimers = new ConcurrentHashMap<>();
     private final DistributionSummary payloadSizeSummary;
+    private final Timer dispatchWaitTimer;
+    private final Counter dispatchRejectedCounter;
+    private final Counter batchItemsCounter;
+    private final Counter batchRejectedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+    private final Timer statusFlushTimer;
+    private final DistributionSummary statusFlushBatchSummary;
+    private final DistributionSummary groupCommitSizeSummary;
+    private final Timer groupCommitTimer;
+    private final Counter broadcastDeliveredCounter;
+    private final Counter broadcastFailedCounter;
+    private final Timer broadcastTimer;
+    private final DistributionSummary broadcastThroughputSummary;
+    private final Counter retryClaimedCounter;
+    private final Counter purgeDeletedCounter;
+    private final Timer purgeChunkTimer;
+    private final Counter auditDroppedCounter;
+    private final Counter auditWriteFailedCounter;
+    private final DistributionSummary auditBatchSummary;
+    private final Timer auditLagTimer;
+    private final DistributionSummary rateLimitLeaseSummary;
+    private final Counter rateLimitLeaseExpiredCounter;
 
     public NotificationMetrics(MeterRegistry meterRegistry) {
+        this(meterRegistry, 50, 20, 10, "");
+    }
+
+    @Autowired
+    public NotificationMetrics(MeterRegistry meterRegistry,
+                               @Value("${notification.metrics.max-type-tags:50}") int maxTypeTags,
+                               @Value("${notification.metrics.max-status-tags:20}") int maxStatusTags,
+                               @Value("${notification.metrics.admit-after:10}") int admitAfter,
+                               @Value("${notification.metrics.known-types:}") String knownTypes) {
         this.meterRegistry = meterRegistry;
-        this.notificationTypeCounters = new HashMap<>();
-        this.notificationStatusCounters = new HashMap<>();
+        this.typeTags = new BoundedTagDictionary(maxTypeTags, admitAfter,
+                StringUtils.commaDelimitedListToSet(StringUtils.trimAllWhitespace(knownTypes)));
+        // Statuses are set by the service itself, so they are admitted as soon as they are seen
+        this.statusTags = new BoundedTagDictionary(maxStatusTags, 1, List.of());
         
+
         // Total notifications
         this.totalNotificationsCounter = Counter.builder("notification.count.total")
                 .description("Total number of notifications processed")
@@ -50,12 +113,124 @@ public class NotificationMetrics {
                 .publishPercentiles(0.5, 0.95, 0.99)
                 .register(meterRegistry);
         
+        // Time spent in each stage of handling a notification, to tell which one regresses
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("notification.stage.time")
+                    .description("Time taken by one stage of handling a notification")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+        
         // Payload size
         this.payloadSizeSummary = DistributionSummary.builder("notification.payload.size")
                 .description("Distribution of notification payload sizes")
                 .baseUnit("bytes")
                 .publishPercentiles(0.5, 0.95, 0.99)
                 .register(meterRegistry);
+        
+        // Time spent in the dispatch queue before a worker picks the notification up
+        this.dispatchWaitTimer = Timer.builder("notification.dispatch.wait.time")
+                .description("Time notifications spend queued before delivery starts")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        
+        // Notifications refused because the dispatch queue was full
+        this.dispatchRejectedCounter = Counter.builder("notification.dispatch.rejected")
+                .description("Number of notifications rejected because the dispatch queue was full")
+                .register(meterRegistry);
+        
+        // Batch ingestion
+        this.batchItemsCounter = Counter.builder("notification.batch.items")
+                .description("Number of notifications persisted through batch ingestion")
+                .register(meterRegistry);
+        this.batchRejectedCounter = Counter.builder("notification.batch.rejected")
+                .description("Number of batch items rejected by validation")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("notification.batch.size")
+                .description("Distribution of accepted items per ingestion batch")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("notification.batch.time")
+                .description("Time taken to persist an ingestion batch")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        
+        // Write-behind status flushes
+        this.statusFlushTimer = Timer.builder("notification.status.flush.time")
+                .description("Time taken to flush pending status transitions")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.statusFlushBatchSummary = DistributionSummary.builder("notification.status.flush.batch.size")
+                .description("Number of status transitions written per flush")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        
+        // Group commit of single-notification inserts
+        this.groupCommitSizeSummary = DistributionSummary.builder("notification.groupcommit.size")
+                .description("Number of notifications inserted per group commit")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.groupCommitTimer = Timer.builder("notification.groupcommit.time")
+                .description("Time taken to insert and commit one group")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        
+        // Broadcast fan-out; rate() over the recipient counters gives recipients/sec across broadcasts
+        this.broadcastDeliveredCounter = Counter.builder("notification.broadcast.recipients")
+                .description("Number of broadcast recipients processed")
+                .tag("outcome", "delivered")
+                .register(meterRegistry);
+        this.broadcastFailedCounter = Counter.builder("notification.broadcast.recipients")
+                .description("Number of broadcast recipients processed")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.broadcastTimer = Timer.builder("notification.broadcast.time")
+                .description("Time taken to fan a broadcast out to all its recipients")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.broadcastThroughputSummary = DistributionSummary.builder("notification.broadcast.throughput")
+                .description("Recipients per second achieved by each completed broadcast")
+                .baseUnit("recipients/s")
+                .register(meterRegistry);
+        
+        // Failed notifications claimed for another attempt
+        this.retryClaimedCounter = Counter.builder("notification.retry.claimed")
+                .description("Number of failed notifications claimed for retry")
+                .register(meterRegistry);
+        
+        // Old notifications removed by the purge
+        this.purgeDeletedCounter = Counter.builder("notification.purge.deleted")
+                .description("Number of old notifications deleted by the purge")
+                .register(meterRegistry);
+        
+        this.purgeChunkTimer = Timer.builder("notification.purge.chunk.time")
+                .description("Time taken to delete one purge chunk")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        
+        // Asynchronous audit trail
+        this.auditDroppedCounter = Counter.builder("notification.audit.dropped")
+                .description("Number of audit events dropped because the audit buffer was full")
+                .register(meterRegistry);
+        this.auditWriteFailedCounter = Counter.builder("notification.audit.write.failed")
+                .description("Number of audit events that could not be written to the database")
+                .register(meterRegistry);
+        this.auditBatchSummary = DistributionSummary.builder("notification.audit.batch.size")
+                .description("Number of audit events written per batch")
+                .register(meterRegistry);
+        this.auditLagTimer = Timer.builder("notification.audit.lag.time")
+                .description("Age of the oldest audit event of a batch when it is written")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        
+        // Tokens leased from the shared rate limit store
+        this.rateLimitLeaseSummary = DistributionSummary.builder("notification.ratelimit.lease.tokens")
+                .description("Number of rate limit tokens granted per lease")
+                .register(meterRegistry);
+        this.rateLimitLeaseExpiredCounter = Counter.builder("notification.ratelimit.lease.expired")
+                .description("Number of leased rate limit tokens discarded unused")
+                .register(meterRegistry);
     }
     
     public void recordNotificationProcessed(String type, String status, long processingTimeMs, int payloadSize) {
@@ -87,7 +262,9 @@ public class NotificationMetrics {
     }
     
     private Counter getOrCreateTypeCounter(String type) {
-        return notificationTypeCounters.computeIfAbsent(type, t -> 
+        String tag = typeTags.resolve(type);
+        Counter counter = notificationTypeCounters.get(tag);
+        return counter != null ? counter : notificationTypeCounters.computeIfAbsent(tag, t -> 
             Counter.builder("notification.count.byType")
                 .tag("type", t)
                 .description("Number of notifications by type")
@@ -96,7 +273,9 @@ public class NotificationMetrics {
     }
     
     private Counter getOrCreateStatusCounter(String status) {
-        return notificationStatusCounters.computeIfAbsent(status, s -> 
+        String tag = statusTags.resolve(status);
+        Counter counter = notificationStatusCounters.get(tag);
+        return counter != null ? counter : notificationStatusCounters.computeIfAbsent(tag, s -> 
             Counter.builder("notification.count.byStatus")
                 .tag("status", s)
                 .description("Number of notifications by status")
@@ -104,10 +283,325 @@ public class NotificationMetrics {
         );
     }
     
+    public void recordStage(Stage stage, long elapsedNanos) {
+        stageTimers.get(stage).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
     // Gauge for active notifications in the system
     public void initializeActiveNotificationsGauge(Supplier<Number> activeNotificationsSupplier) {
         Gauge.builder("notification.active", activeNotificationsSupplier)
             .description("Number of active notifications in the system")
             .register(meterRegistry);
     }
-} 
\ No newline at end of file
+    
+    // Gauge for the notifications in one status
+    public void initializeStatusCountGauge(String status, Supplier<Number> countSupplier) {
+        Gauge.builder("notification.status.count", countSupplier)
+            .description("Number of notifications in each status")
+            .tag("status", status)
+            .register(meterRegistry);
+    }
+    
+    // Gauge for notifications waiting in the dispatch queue
+    public void initializeDispatchQueueGauge(Supplier<Number> queueDepthSupplier) {
+        Gauge.builder("notification.dispatch.queue.depth", queueDepthSupplier)
+            .description("Number of notifications waiting in the dispatch queue")
+            .register(meterRegistry);
+    }
+    
+    public void initializeDispatchLaneGauge(int lane, Supplier<Number> laneDepthSupplier) {
+        Gauge.builder("notification.dispatch.lane.depth", laneDepthSupplier)
+            .description("Number of notifications waiting in one dispatch lane")
+            .tag("lane", String.valueOf(lane))
+            .register(meterRegistry);
+    }
+    
+    public void recordDispatchHotLane(int lane) {
+        Counter.builder("notification.dispatch.lane.hot")
+            .description("Number of times a dispatch lane was detected as hot")
+            .tag("lane", String.valueOf(lane))
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    public void recordDispatchWait(long waitNanos) {
+        dispatchWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordDispatchRejected() {
+        dispatchRejectedCounter.increment();
+    }
+    
+    public void recordBatchIngested(int accepted, int rejected, long processingTimeMs) {
+        batchItemsCounter.increment(accepted);
+        batchRejectedCounter.increment(rejected);
+        batchSizeSummary.record(accepted);
+        batchTimer.record(processingTimeMs, TimeUnit.MILLISECONDS);
+        
+        log.debug("Recorded metrics for notification batch: accepted={}, rejected={}, time={}ms",
+                accepted, rejected, processingTimeMs);
+    }
+    
+    // Gauge for status transitions waiting to be flushed
+    public void initializeStatusPendingGauge(Supplier<Number> pendingSupplier) {
+        Gauge.builder("notification.status.pending", pendingSupplier)
+            .description("Number of status transitions not yet written to the database")
+            .register(meterRegistry);
+    }
+    
+    public void recordStatusFlush(int batchSize, long flushNanos) {
+        statusFlushBatchSummary.record(batchSize);
+        statusFlushTimer.record(flushNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordGroupCommit(int groupSize, long commitNanos) {
+        groupCommitSizeSummary.record(groupSize);
+        groupCommitTimer.record(commitNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordBroadcastRecipients(int delivered, int failed) {
+        broadcastDeliveredCounter.increment(delivered);
+        broadcastFailedCounter.increment(failed);
+    }
+    
+    public void recordBroadcastCompleted(int recipients, long elapsedNanos) {
+        broadcastTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (elapsedNanos > 0) {
+            broadcastThroughputSummary.record(recipients * 1_000_000_000.0 / elapsedNanos);
+        }
+    }
+    
+    // Gauge for webhook requests currently on the wire
+    public void initializeWebhookInFlightGauge(Supplier<Number> inFlightSupplier) {
+        Gauge.builder("notification.webhook.inflight", inFlightSupplier)
+            .description("Number of webhook requests awaiting a response")
+            .register(meterRegistry);
+    }
+    
+    public void recordWebhookResult(String outcome, long elapsedNanos) {
+        webhookTimers.computeIfAbsent(outcome, o -> Timer.builder("notification.webhook.time")
+            .description("Webhook request latency by outcome")
+            .tag("outcome", o)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry))
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    // Gauge for how long the oldest due retry has been waiting
+    public void initializeRetryBacklogAgeGauge(Supplier<Number> ageSecondsSupplier) {
+        Gauge.builder("notification.retry.backlog.age", ageSecondsSupplier)
+            .description("Seconds the oldest due retry has been waiting to be claimed")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+    
+    public void recordRetryClaimed(int count) {
+        retryClaimedCounter.increment(count);
+    }
+    
+    // Gauge for delivery re-attempts waiting on the retry timer
+    public void initializeInlineRetryDepthGauge(Supplier<Number> scheduledSupplier) {
+        Gauge.builder("notification.retry.inline.scheduled", scheduledSupplier)
+            .description("Number of delivery re-attempts waiting for their backoff to elapse")
+            .register(meterRegistry);
+    }
+    
+    public void recordInlineRetry(String outcome) {
+        inlineRetryCounters.computeIfAbsent(outcome, o -> Counter.builder("notification.retry.inline")
+            .description("Delivery re-attempts by whether they could be scheduled")
+            .tag("outcome", o)
+            .register(meterRegistry))
+            .increment();
+    }
+    
+    // Gauge for the share of the current purge run's id range already processed
+    public void initializePurgeProgressGauge(Supplier<Number> progressSupplier) {
+        Gauge.builder("notification.purge.progress", progressSupplier)
+            .description("Fraction of the current purge run completed")
+            .register(meterRegistry);
+    }
+    
+    public void recordPurgeChunk(int deleted, long chunkNanos) {
+        purgeDeletedCounter.increment(deleted);
+        purgeChunkTimer.record(chunkNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    // Gauges for the partitions of a time-partitioned table and how far ahead of now they reach
+    public void initializePartitionGauges(String table, Supplier<Number> countSupplier, Supplier<Number> horizonSecondsSupplier) {
+        Gauge.builder("notification.partition.count", countSupplier)
+            .description("Number of partitions attached to a partitioned table")
+            .tag("table", table)
+            .register(meterRegistry);
+        Gauge.builder("notification.partition.horizon", horizonSecondsSupplier)
+            .description("Time until inserts run past the newest partition of a partitioned table")
+            .tag("table", table)
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+    
+    public void recordPartitionDropped(String table, boolean archived, long archivedBytes) {
+        Counter.builder("notification.partition.dropped")
+            .description("Number of expired partitions dropped")
+            .tag("table", table)
+            .tag("archived", String.valueOf(archived))
+            .register(meterRegistry)
+            .increment();
+        if (archived) {
+            Counter.builder("notification.partition.archived.bytes")
+                .description("Compressed size of the archives written for expired partitions")
+                .tag("table", table)
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .increment(archivedBytes);
+        }
+    }
+    
+    // Gauge for audit events accepted but not yet written
+    public void initializeAuditLagGauge(Supplier<Number> lagSupplier) {
+        Gauge.builder("notification.audit.lag", lagSupplier)
+            .description("Number of audit events waiting in the audit buffer")
+            .register(meterRegistry);
+    }
+    
+    public void recordAuditDropped() {
+        auditDroppedCounter.increment();
+    }
+    
+    public void recordAuditWriteFailed(int count) {
+        auditWriteFailedCounter.increment(count);
+    }
+    
+    public void recordAuditBatch(int size, long lagMillis) {
+        auditBatchSummary.record(size);
+        auditLagTimer.record(lagMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public void recordAuditAggregated(long events, int records) {
+        Counter.builder("notification.audit.aggregated")
+            .description("Number of audit events folded into aggregate records")
+            .register(meterRegistry)
+            .increment(events);
+        Counter.builder("notification.audit.aggregate.records")
+            .description("Number of aggregate audit records written")
+            .register(meterRegistry)
+            .increment(records);
+    }
+    
+    // Gauge for leased rate limit tokens not used yet, the most the cluster can admit beyond the shared limit
+    public void initializeRateLimitOutstandingGauge(Supplier<Number> outstandingSupplier) {
+        Gauge.builder("notification.ratelimit.lease.outstanding", outstandingSupplier)
+            .description("Number of rate limit tokens leased by this instance and not used yet")
+            .register(meterRegistry);
+    }
+    
+    public void recordRateLimitLease(String outcome, long granted, long elapsedNanos) {
+        Timer timer = rateLimitLeaseTimers.get(outcome);
+        if (timer == null) {
+            timer = rateLimitLeaseTimers.computeIfAbsent(outcome, o -> Timer.builder("notification.ratelimit.lease.time")
+                .description("Time taken to lease rate limit tokens from the shared store, by outcome")
+                .tag("outcome", o)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+        }
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (granted > 0) {
+            rateLimitLeaseSummary.record(granted);
+        }
+    }
+    
+    public void recordRateLimitLeaseExpired(long tokens) {
+        rateLimitLeaseExpiredCounter.increment(tokens);
+    }
+    
+    /**
+     * Register the meters of one two-tier cache: requests per tier by result under
+     * {@code notification.cache.requests}, where tier {@code stale} counts lookups of last known values, and load
+     * times per tier under {@code notification.cache.load.time}, where tier {@code source} is the method computing
+     * the value. Misses that waited for another caller's load are counted by
+     * {@code notification.cache.loads.coalesced}, background reloads by {@code notification.cache.refreshes}.
+     */
+    public CacheMeters cacheMeters(String cache) {
+        return new CacheMeters(
+            cacheRequestCounter(cache, "l1", "hit"),
+            cacheRequestCounter(cache, "l1", "miss"),
+            cacheRequestCounter(cache, "l2", "hit"),
+            cacheRequestCounter(cache, "l2", "miss"),
+            cacheRequestCounter(cache, "stale", "hit"),
+            cacheRequestCounter(cache, "stale", "miss"),
+            cacheLoadTimer(cache, "l2"),
+            cacheLoadTimer(cache, "source"),
+            Counter.builder("notification.cache.loads.coalesced")
+                .description("Cache misses served by a load already in progress for the same key")
+                .tag("cache", cache)
+                .register(meterRegistry),
+            Counter.builder("notification.cache.refreshes")
+                .description("Cache entries reloaded in the background before they expire")
+                .tag("cache", cache)
+                .register(meterRegistry));
+    }
+    
+    private Counter cacheRequestCounter(String cache, String tier, String result) {
+        return Counter.builder("notification.cache.requests")
+            .description("Cache lookups by tier and result")
+            .tag("cache", cache)
+            .tag("tier", tier)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+    
+    private Timer cacheLoadTimer(String cache, String tier) {
+        return Timer.builder("notification.cache.load.time")
+            .description("Time taken to fetch a value missing from the tier above")
+            .tag("cache", cache)
+            .tag("tier", tier)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+    
+    // Gauge for the entries held in the in-process tier of a cache
+    public void initializeCacheSizeGauge(String cache, Supplier<Number> sizeSupplier) {
+        Gauge.builder("notification.cache.size", sizeSupplier)
+            .description("Number of entries in the in-process tier of a cache")
+            .tag("cache", cache)
+            .register(meterRegistry);
+    }
+    
+    // Gauges for the filter of notification ids that can exist: ids held, expected false positive rate and size
+    public void initializeIdFilterGauges(Supplier<Number> sizeSupplier, Supplier<Number> fppSupplier,
+                                         Supplier<Number> memorySupplier) {
+        Gauge.builder("notification.idfilter.size", sizeSupplier)
+            .description("Number of notification ids held by the id filter")
+            .register(meterRegistry);
+        Gauge.builder("notification.idfilter.fpp", fppSupplier)
+            .description("Expected share of lookups of absent ids that the id filter lets through")
+            .register(meterRegistry);
+        Gauge.builder("notification.idfilter.memory", memorySupplier)
+            .description("Memory used by the id filter, including one being rebuilt")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Count a lookup checked against the id filter by its result: {@code absent} when rejected, {@code present}
+     * when let through, {@code unchecked} when the id is newer than the filter, and {@code false_positive} when a
+     * lookup let through found nothing.
+     */
+    public void recordIdFilterLookup(String result) {
+        idFilterLookupCounters.computeIfAbsent(result, r -> Counter.builder("notification.idfilter.lookups")
+            .description("Notification lookups checked against the id filter, by result")
+            .tag("result", r)
+            .register(meterRegistry))
+            .increment();
+    }
+    
+    public void recordIdFilterRebuild(long elapsedNanos) {
+        Timer.builder("notification.idfilter.rebuild.time")
+            .description("Time taken to rebuild the id filter from the notifications table")
+            .register(meterRegistry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public record CacheMeters(Counter l1Hits, Counter l1Misses, Counter l2Hits, Counter l2Misses,
+                              Counter staleHits, Counter staleMisses, Timer l2LoadTimer, Timer sourceLoadTimer, Counter coalescedLoads, Counter refreshes) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.notification.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of notification_audit_log as returned by the audit search API. {@code details} is the stored JSON
+ * document, written out as-is.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuditLogEntry {
+    private Long id;
+    private String eventId;
+    private String username;
+    private String action;
+    private String targetType;
+    private String targetId;
+    @JsonRawValue
+    private String details;
+    private LocalDateTime timestamp;
+}
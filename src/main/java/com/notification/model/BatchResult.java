@@ -0,0 +1,25 @@
+package com.notification.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchResult {
+    private int accepted;
+    private int rejected;
+    private List<Item> items;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private int index;
+        private Long id;
+        private String error;
+    }
+}
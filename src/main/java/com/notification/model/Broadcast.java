@@ -0,0 +1,58 @@
+package com.notification.model;
+
+import com.notification.id.SnowflakeId;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification sent to many recipients. The payload is stored once here; each recipient only gets a
+ * lightweight {@link BroadcastDelivery} row.
+ */
+@Data
+@Entity
+@Table(name = "notification_broadcasts")
+@NoArgsConstructor
+public class Broadcast {
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    // Set for topic broadcasts, which are published once to /topic/<topic> instead of per recipient
+    @Column
+    private String topic;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column
+    private Integer recipientCount = 0;
+
+    @Column
+    private Integer deliveredCount = 0;
+
+    @Column
+    private Integer failedCount = 0;
+
+    @Column
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = "PENDING";
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.notification.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Delivery state of one recipient of a {@link Broadcast}. Rows are written and updated in bulk with
+ * plain JDBC by {@link com.notification.repository.BroadcastDeliveryRepository}.
+ */
+@Data
+@Entity
+@Table(name = "broadcast_deliveries")
+@IdClass(BroadcastDelivery.Key.class)
+@NoArgsConstructor
+public class BroadcastDelivery {
+    @Id
+    @Column(name = "broadcast_id")
+    private Long broadcastId;
+
+    @Id
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column
+    private LocalDateTime processedAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long broadcastId;
+        private String recipient;
+    }
+}
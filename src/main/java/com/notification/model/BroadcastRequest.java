@@ -0,0 +1,21 @@
+package com.notification.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/notifications/broadcast}. Exactly one of {@code recipients} and {@code topic}
+ * must be given.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BroadcastRequest {
+    private String type;
+    private String payload;
+    private List<String> recipients;
+    private String topic;
+}
@@ -1,17 +1,24 @@
 package com.notification.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.notification.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_recipient_created", columnList = "recipient, createdAt DESC, id DESC"),
+        @Index(name = "idx_notifications_recipient_status_created", columnList = "recipient, status, createdAt DESC, id DESC"),
+        @Index(name = "idx_notifications_next_attempt", columnList = "nextAttemptAt")
+})
 @NoArgsConstructor
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(nullable = false)
@@ -41,6 +48,16 @@ public class Notification {
     @Column
     private String errorMessage;
 
+    // When the retry task may next pick the notification up; null once it needs no further attempt
+    @Column
+    private LocalDateTime nextAttemptAt;
+
+    // Only set on copies served from the stale cache tier while the database is unavailable: when the copy was
+    // last known to match the database. Neither stored nor serialized; the controller reports it in headers
+    @Transient
+    @JsonIgnore
+    private Instant staleAsOf;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -127,4 +144,40 @@ public class Notification {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
-} 
\ No newline at end of file
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Instant getStaleAsOf() {
+        return staleAsOf;
+    }
+
+    public void setStaleAsOf(Instant staleAsOf) {
+        this.staleAsOf = staleAsOf;
+    }
+
+    /**
+     * @return A copy of this notification marked as last known to match the database at {@code asOf}
+     */
+    public Notification staleCopy(Instant asOf) {
+        Notification copy = new Notification();
+        copy.setId(id);
+        copy.setType(type);
+        copy.setRecipient(recipient);
+        copy.setPayload(payload);
+        copy.setStatus(status);
+        copy.setTargetUrl(targetUrl);
+        copy.setRetryCount(retryCount);
+        copy.setCreatedAt(createdAt);
+        copy.setProcessedAt(processedAt);
+        copy.setErrorMessage(errorMessage);
+        copy.setNextAttemptAt(nextAttemptAt);
+        copy.setStaleAsOf(asOf);
+        return copy;
+    }
+}
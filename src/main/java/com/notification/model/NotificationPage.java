@@ -0,0 +1,18 @@
+package com.notification.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a recipient's inbox, newest first. {@code nextCursor} is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationPage {
+    private List<Notification> items;
+    private String nextCursor;
+}
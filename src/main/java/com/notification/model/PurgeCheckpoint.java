@@ -0,0 +1,45 @@
+package com.notification.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a purge run. The row is updated in the same transaction as each deleted chunk, so after a
+ * crash the run resumes right after the last committed chunk. Written with plain JDBC by
+ * {@link com.notification.repository.PurgeRepository}.
+ */
+@Data
+@Entity
+@Table(name = "notification_purge_checkpoints")
+@NoArgsConstructor
+public class PurgeCheckpoint {
+    @Id
+    private String job;
+
+    // Rows created at or before this instant are purged
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+
+    // Highest id the run has to look at, fixed when the run starts
+    @Column(nullable = false)
+    private Long endId;
+
+    // Every id up to and including this one has been processed
+    @Column(nullable = false)
+    private Long lastId;
+
+    @Column(nullable = false)
+    private Long deletedCount;
+
+    @Column
+    private LocalDateTime startedAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @Column
+    private LocalDateTime completedAt;
+}
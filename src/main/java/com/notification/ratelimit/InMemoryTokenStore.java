@@ -0,0 +1,43 @@
+package com.notification.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link TokenStore} kept in the local heap, with the same semantics as {@link RedisTokenStore}. It only limits
+ * across the limiters sharing the instance, so it stands in for Redis in tests and benchmarks.
+ */
+public class InMemoryTokenStore implements TokenStore {
+
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+
+    public InMemoryTokenStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public long take(String key, long requested, long limit, long periodNanos) {
+        long interval = periodNanos / limit;
+        long period = interval * limit;
+        long now = clock.getAsLong();
+        AtomicLong arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = arrival.get();
+            long start = current - now < 0 ? now : current;
+            long granted = Math.min(requested, (now + period - start) / interval);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (arrival.compareAndSet(current, start + granted * interval)) {
+                return granted;
+            }
+        }
+    }
+
+    @Override
+    public void reset(String key) {
+        arrivals.remove(key);
+    }
+}
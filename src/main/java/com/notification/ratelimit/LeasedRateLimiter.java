@@ -0,0 +1,177 @@
+package com.notification.ratelimit;
+
+import com.notification.metrics.NotificationMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limit shared by all instances of the service: each key's allowance is a bucket in a {@link TokenStore}, from
+ * which this instance leases up to {@code batchSize} tokens at a time and then admits calls locally, with one
+ * CAS, until the lease is used up or {@code leaseTtl} has passed. Only refills reach the store, and only one
+ * call per key waits for each refill.
+ *
+ * Every admitted call is paid for with a token from the shared bucket, so across the cluster a key is admitted
+ * at most {@code limit} calls per period plus the tokens instances still held when the period started: at
+ * most {@code batchSize} per instance. Tokens left when a lease expires are discarded, so a key spread over many
+ * instances may be admitted somewhat less than its limit. When the store cannot be reached, calls are limited
+ * by a local {@code fallback} for {@code leaseTtl} before the store is tried again.
+ */
+@Slf4j
+public class LeasedRateLimiter implements RateLimiter {
+
+    private final String namespace;
+    private final long limit;
+    private final long period;
+    private final long batchSize;
+    private final long leaseTtl;
+    private final TokenStore store;
+    private final RateLimiter fallback;
+    private final LongSupplier clock;
+    private final NotificationMetrics metrics;
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final LongAdder outstanding = new LongAdder();
+
+    public LeasedRateLimiter(String namespace, int limit, long periodNanos, TokenStore store, int batchSize,
+                      long leaseTtlNanos, RateLimiter fallback, LongSupplier clock, NotificationMetrics metrics) {
+        if (limit < 1 || periodNanos < limit || batchSize < 1) {
+            throw new IllegalArgumentException("Rate limit must allow at least one call per period");
+        }
+        this.namespace = namespace;
+        this.limit = limit;
+        this.period = periodNanos;
+        this.batchSize = Math.min(batchSize, limit);
+        this.leaseTtl = leaseTtlNanos;
+        this.store = store;
+        this.fallback = fallback;
+        this.clock = clock;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        Lease lease = leases.get(key);
+        if (lease == null) {
+            lease = leases.computeIfAbsent(key, k -> new Lease(now));
+        }
+        if (lease.expiresAt - now > 0 && lease.take()) {
+            outstanding.decrement();
+            return true;
+        }
+        return refill(key, lease, now);
+    }
+
+    private boolean refill(String key, Lease lease, long now) {
+        synchronized (lease) {
+            // Another caller may have refilled the lease while this one waited
+            if (lease.expiresAt - now > 0 && lease.take()) {
+                outstanding.decrement();
+                return true;
+            }
+            if (lease.fallbackUntil - now > 0) {
+                return fallback.tryAcquire(key);
+            }
+            if (lease.emptyUntil - now > 0) {
+                return false;
+            }
+            discard(lease);
+
+            long start = System.nanoTime();
+            long granted;
+            try {
+                granted = store.take(namespace + "|" + key, batchSize, limit, period);
+            } catch (RuntimeException e) {
+                metrics.recordRateLimitLease("failed", 0, System.nanoTime() - start);
+                log.warn("Could not lease rate limit tokens, limiting locally: {}", e.getMessage());
+                lease.fallbackUntil = now + leaseTtl;
+                return fallback.tryAcquire(key);
+            }
+            metrics.recordRateLimitLease(granted > 0 ? "granted" : "empty", granted, System.nanoTime() - start);
+            if (granted <= 0) {
+                // Nothing to lease before the shared bucket regains a token
+                lease.emptyUntil = now + period / limit;
+                return false;
+            }
+            lease.expiresAt = now + leaseTtl;
+            lease.tokens.set(granted - 1);
+            outstanding.add(granted - 1);
+            return true;
+        }
+    }
+
+    private void discard(Lease lease) {
+        long unused = lease.tokens.getAndSet(0);
+        if (unused > 0) {
+            outstanding.add(-unused);
+            metrics.recordRateLimitLeaseExpired(unused);
+        }
+    }
+
+    @Override
+    public void reset(String key) {
+        Lease lease = leases.remove(key);
+        if (lease != null) {
+            discard(lease);
+        }
+        store.reset(namespace + "|" + key);
+        fallback.reset(key);
+    }
+
+    // A lease refilled while it is being evicted loses its tokens, which only costs the key some allowance
+    @Override
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = leases.size();
+        leases.values().removeIf(lease -> {
+            if (lease.expiresAt - now > 0 || lease.emptyUntil - now > 0 || lease.fallbackUntil - now > 0) {
+                return false;
+            }
+            discard(lease);
+            return true;
+        });
+        fallback.evictIdle();
+        return Math.max(0, before - leases.size());
+    }
+
+    @Override
+    public int size() {
+        return leases.size();
+    }
+
+    /**
+     * @return Tokens leased by this instance and not used yet
+     */
+    public long outstanding() {
+        return outstanding.sum();
+    }
+
+    private static final class Lease {
+
+        private final AtomicLong tokens = new AtomicLong();
+        // Written under the lease's lock, read without it
+        private volatile long expiresAt;
+        private volatile long emptyUntil;
+        private volatile long fallbackUntil;
+
+        private Lease(long now) {
+            this.expiresAt = now;
+            this.emptyUntil = now;
+            this.fallbackUntil = now;
+        }
+
+        private boolean take() {
+            long current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+}
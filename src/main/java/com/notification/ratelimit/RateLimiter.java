@@ -0,0 +1,52 @@
+package com.notification.ratelimit;
+
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits at most {@code limit} calls per {@code period} for each key.
+ *
+ * Implementations keep one small state object per key, created on the key's first call; checking an existing
+ * key allocates nothing. Keys that have been idle long enough to be back at their full allowance hold no
+ * information and are removed by {@link #evictIdle()}.
+ */
+public interface RateLimiter {
+
+    /**
+     * @return Whether the call is admitted; an admitted call is counted against the key
+     */
+    boolean tryAcquire(String key);
+
+    /**
+     * Forget the key, giving it its full allowance again.
+     */
+    void reset(String key);
+
+    /**
+     * Remove the state of keys that are back at their full allowance.
+     *
+     * @return Number of keys removed
+     */
+    int evictIdle();
+
+    /**
+     * @return Number of keys currently tracked
+     */
+    int size();
+
+    enum Algorithm {
+        TOKEN_BUCKET,
+        SLIDING_LOG
+    }
+
+    static RateLimiter create(Algorithm algorithm, int limit, long periodNanos, LongSupplier clock) {
+        return switch (algorithm) {
+            case TOKEN_BUCKET -> new TokenBucketRateLimiter(limit, periodNanos, clock);
+            case SLIDING_LOG -> new SlidingLogRateLimiter(limit, periodNanos, clock);
+        };
+    }
+
+    static Algorithm algorithm(String value) {
+        return Algorithm.valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,60 @@
+package com.notification.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TokenStore} in Redis. Each bucket is one string key holding its theoretical arrival time in
+ * microseconds, the same representation as {@link TokenBucketRateLimiter}, updated by a script so that taking
+ * tokens is atomic. Time comes from the Redis server, so instance clocks need not agree. Keys expire once their
+ * bucket is full again.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.rate-limit.mode", havingValue = "distributed")
+public class RedisTokenStore implements TokenStore {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    private static final RedisScript<Long> TAKE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local requested = tonumber(ARGV[1])
+            local interval = tonumber(ARGV[2])
+            local period = interval * tonumber(ARGV[3])
+            local arrival = tonumber(redis.call('GET', KEYS[1]) or now)
+            if arrival < now then
+                arrival = now
+            end
+            local granted = math.min(requested, math.floor((now + period - arrival) / interval))
+            if granted <= 0 then
+                return 0
+            end
+            arrival = arrival + granted * interval
+            redis.call('SET', KEYS[1], string.format('%.0f', arrival), 'PX', math.ceil((arrival - now) / 1000) + 1)
+            return granted
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisTokenStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public long take(String key, long requested, long limit, long periodNanos) {
+        long interval = Math.max(1, TimeUnit.NANOSECONDS.toMicros(periodNanos) / limit);
+        Long granted = redisTemplate.execute(TAKE_SCRIPT, List.of(KEY_PREFIX + key),
+                String.valueOf(requested), String.valueOf(interval), String.valueOf(limit));
+        return granted != null ? granted : 0;
+    }
+
+    @Override
+    public void reset(String key) {
+        redisTemplate.delete(KEY_PREFIX + key);
+    }
+}
@@ -0,0 +1,84 @@
+package com.notification.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Exact sliding window: each key keeps the times of its last {@code limit} admitted calls in a ring, and a call
+ * is admitted only if the oldest of them is at least one {@code period} old.
+ *
+ * Unlike the token bucket it never admits a burst at a window boundary, at the cost of {@code limit} longs per
+ * key and a short per-key lock, so it suits small limits where exactness matters.
+ */
+class SlidingLogRateLimiter implements RateLimiter {
+
+    private final int limit;
+    private final long period;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Log> logs = new ConcurrentHashMap<>();
+
+    SlidingLogRateLimiter(int limit, long periodNanos, LongSupplier clock) {
+        if (limit < 1 || periodNanos < 1) {
+            throw new IllegalArgumentException("Rate limit must allow at least one call per period");
+        }
+        this.limit = limit;
+        this.period = periodNanos;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        Log log = logs.get(key);
+        if (log == null) {
+            log = logs.computeIfAbsent(key, k -> new Log(limit));
+        }
+        return log.tryAdd(clock.getAsLong(), period);
+    }
+
+    @Override
+    public void reset(String key) {
+        logs.remove(key);
+    }
+
+    @Override
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = logs.size();
+        logs.values().removeIf(log -> log.isIdle(now, period));
+        return Math.max(0, before - logs.size());
+    }
+
+    @Override
+    public int size() {
+        return logs.size();
+    }
+
+    private static final class Log {
+
+        private final long[] times;
+        private int next;
+        private int size;
+
+        private Log(int limit) {
+            this.times = new long[limit];
+        }
+
+        private synchronized boolean tryAdd(long now, long period) {
+            // Once full, the slot about to be overwritten holds the oldest admitted call
+            if (size == times.length && now - times[next] < period) {
+                return false;
+            }
+            times[next] = now;
+            next = next + 1 == times.length ? 0 : next + 1;
+            if (size < times.length) {
+                size++;
+            }
+            return true;
+        }
+
+        private synchronized boolean isIdle(long now, long period) {
+            int newest = next == 0 ? times.length - 1 : next - 1;
+            return size == 0 || now - times[newest] >= period;
+        }
+    }
+}
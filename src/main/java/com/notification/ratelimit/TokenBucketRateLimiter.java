@@ -0,0 +1,69 @@
+package com.notification.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket holding up to {@code limit} tokens and refilled at {@code limit} per {@code period}, stored as a
+ * single "theoretical arrival time" per key (the generic cell rate algorithm).
+ *
+ * Each admitted call pushes the key's arrival time one emission interval ({@code period / limit}) further; a call
+ * is refused when that would put it more than one period ahead of now. A check is one CAS on the key's
+ * {@link AtomicLong}, with no locks. A key whose arrival time has passed has a full bucket and can be dropped.
+ */
+class TokenBucketRateLimiter implements RateLimiter {
+
+    private final long emissionInterval;
+    private final long period;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+
+    TokenBucketRateLimiter(int limit, long periodNanos, LongSupplier clock) {
+        if (limit < 1 || periodNanos < limit) {
+            throw new IllegalArgumentException("Rate limit must allow at least one call per period");
+        }
+        this.emissionInterval = periodNanos / limit;
+        this.period = emissionInterval * limit;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong arrival = arrivals.get(key);
+        if (arrival == null) {
+            arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = arrival.get();
+            // An arrival time in the past means a full bucket; compare differences since nanoTime may be negative
+            long next = (current - now < 0 ? now : current) + emissionInterval;
+            if (next - now > period) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void reset(String key) {
+        arrivals.remove(key);
+    }
+
+    // A call racing the removal may be charged to the dropped state, granting the key at most one extra call
+    @Override
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = arrivals.size();
+        arrivals.values().removeIf(arrival -> arrival.get() - now <= 0);
+        return Math.max(0, before - arrivals.size());
+    }
+
+    @Override
+    public int size() {
+        return arrivals.size();
+    }
+}
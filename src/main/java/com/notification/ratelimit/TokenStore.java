@@ -0,0 +1,22 @@
+package com.notification.ratelimit;
+
+/**
+ * Token buckets shared by all instances of the service, from which each instance leases tokens in batches.
+ *
+ * A bucket holds up to {@code limit} tokens and is refilled at {@code limit} per {@code period}. Taking tokens
+ * must be atomic, so that no token is ever handed to two instances.
+ */
+public interface TokenStore {
+
+    /**
+     * Take up to {@code requested} tokens from the bucket of {@code key}, creating it full if it does not exist.
+     *
+     * @return Number of tokens taken, 0 when the bucket is empty
+     */
+    long take(String key, long requested, long limit, long periodNanos);
+
+    /**
+     * Refill the bucket of {@code key}.
+     */
+    void reset(String key);
+}
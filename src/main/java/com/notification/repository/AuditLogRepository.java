@@ -0,0 +1,133 @@
+package com.notification.repository;
+
+import com.notification.audit.AuditEvent;
+import com.notification.model.AuditLogEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to notification_audit_log.
+ *
+ * A batch of events is sent as one JDBC batch; with the PostgreSQL driver's reWriteBatchedInserts it is
+ * collapsed into multi-row INSERTs. Searches page newest first by {@code (timestamp, id)} and stream their
+ * rows, so a page never has to be held in memory.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditLogRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notification_audit_log (event_id, username, action, target_type, target_id, details, timestamp) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SEARCH_SQL =
+            "SELECT id, event_id, username, action, target_type, target_id, details, timestamp FROM notification_audit_log";
+
+    private static final int SEARCH_FETCH_SIZE = 500;
+
+    /**
+     * Conditions of an audit search; null fields match everything. {@code from} is inclusive, {@code to} exclusive.
+     */
+    public record Filter(String username, String action, String targetType, String targetId,
+                         LocalDateTime from, LocalDateTime to) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // details is JSONB on PostgreSQL, which only accepts a string parameter sent without a declared type
+    private volatile Integer detailsSqlType;
+
+    public void insertAll(List<AuditEvent> events) {
+        int detailsType = detailsSqlType();
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AuditEvent event = events.get(i);
+                ps.setString(1, Long.toString(event.getEventId()));
+                ps.setString(2, event.getUsername());
+                ps.setString(3, event.getAction());
+                ps.setString(4, event.getTargetType());
+                ps.setString(5, event.getTargetId());
+                if (event.getDetailsJson() == null) {
+                    ps.setNull(6, detailsType);
+                } else {
+                    ps.setObject(6, event.getDetailsJson(), detailsType);
+                }
+                ps.setTimestamp(7, Timestamp.valueOf(event.getTimestamp()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    /**
+     * Stream up to {@code limit} entries matching {@code filter}, newest first, starting after the entry at
+     * {@code (afterTimestamp, afterId)} when given. Rows are fetched in chunks, which on PostgreSQL requires the
+     * call to run inside a transaction.
+     */
+    public void search(Filter filter, LocalDateTime afterTimestamp, Long afterId, int limit, Consumer<AuditLogEntry> consumer) {
+        StringBuilder sql = new StringBuilder(SEARCH_SQL);
+        List<Object> args = new ArrayList<>();
+        appendCondition(sql, args, "username = ?", filter.username());
+        appendCondition(sql, args, "action = ?", filter.action());
+        appendCondition(sql, args, "target_type = ?", filter.targetType());
+        appendCondition(sql, args, "target_id = ?", filter.targetId());
+        appendCondition(sql, args, "timestamp >= ?", filter.from() != null ? Timestamp.valueOf(filter.from()) : null);
+        appendCondition(sql, args, "timestamp < ?", filter.to() != null ? Timestamp.valueOf(filter.to()) : null);
+        if (afterTimestamp != null) {
+            // Row comparison lets the (..., timestamp DESC, id DESC) indexes seek straight to the next page
+            sql.append(args.isEmpty() ? " WHERE " : " AND ").append("(timestamp, id) < (?, ?)");
+            args.add(Timestamp.valueOf(afterTimestamp));
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+        args.add(limit);
+
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(Math.min(limit, SEARCH_FETCH_SIZE));
+        cursor.query(sql.toString(), rs -> {
+            consumer.accept(new AuditLogEntry(
+                    rs.getLong("id"),
+                    rs.getString("event_id"),
+                    rs.getString("username"),
+                    rs.getString("action"),
+                    rs.getString("target_type"),
+                    rs.getString("target_id"),
+                    rs.getString("details"),
+                    rs.getTimestamp("timestamp").toLocalDateTime()));
+        }, args.toArray());
+    }
+
+    private static void appendCondition(StringBuilder sql, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            sql.append(args.isEmpty() ? " WHERE " : " AND ").append(condition);
+            args.add(value);
+        }
+    }
+
+    private int detailsSqlType() {
+        Integer type = detailsSqlType;
+        if (type == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            type = "PostgreSQL".equalsIgnoreCase(product) ? Types.OTHER : Types.VARCHAR;
+            detailsSqlType = type;
+        }
+        return type;
+    }
+}
@@ -0,0 +1,77 @@
+package com.notification.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC access for broadcast delivery rows, which are only ever written and updated in bulk.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BroadcastDeliveryRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO broadcast_deliveries (broadcast_id, recipient, status) VALUES (?, ?, ?)";
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE broadcast_deliveries SET status = ?, processed_at = ? WHERE broadcast_id = ? AND recipient = ?";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE notification_broadcasts SET status = ?, delivered_count = ?, failed_count = ?, completed_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert one PENDING delivery row per recipient as a single JDBC batch.
+     */
+    public void insertPending(long broadcastId, List<String> recipients) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, broadcastId);
+                ps.setString(2, recipients.get(i));
+                ps.setString(3, "PENDING");
+            }
+
+            @Override
+            public int getBatchSize() {
+                return recipients.size();
+            }
+        });
+    }
+
+    /**
+     * Apply the same status to a set of recipients of one broadcast as a single JDBC batch of primary key
+     * updates. A {@code recipient IN (...)} predicate would be one statement, but it is evaluated against
+     * every row of the broadcast on some databases, which gets quadratic for large broadcasts.
+     */
+    public void updateStatus(long broadcastId, List<String> recipients, String status, LocalDateTime processedAt) {
+        Timestamp timestamp = Timestamp.valueOf(processedAt);
+        jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setString(1, status);
+                ps.setTimestamp(2, timestamp);
+                ps.setLong(3, broadcastId);
+                ps.setString(4, recipients.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return recipients.size();
+            }
+        });
+    }
+
+    public void completeBroadcast(long broadcastId, String status, int delivered, int failed, LocalDateTime completedAt) {
+        jdbcTemplate.update(COMPLETE_SQL, status, delivered, failed, Timestamp.valueOf(completedAt), broadcastId);
+    }
+}
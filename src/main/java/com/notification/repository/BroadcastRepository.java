@@ -0,0 +1,9 @@
+package com.notification.repository;
+
+import com.notification.model.Broadcast;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BroadcastRepository extends JpaRepository<Broadcast, Long> {
+}
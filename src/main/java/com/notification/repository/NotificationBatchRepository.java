@@ -0,0 +1,179 @@
+package com.notification.repository;
+
+import com.notification.id.IdGenerator;
+import com.notification.id.SnowflakeIdGenerator;
+import com.notification.model.Notification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Plain JDBC access for bulk writes to the notifications table.
+ *
+ * Statements are sent with JDBC batching so a whole chunk travels in one round trip; with the
+ * PostgreSQL driver's reWriteBatchedInserts the chunk is further collapsed into multi-row INSERTs.
+ */
+@Repository
+public class NotificationBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (id, type, recipient, payload, status, target_url, retry_count, created_at, processed_at, error_message) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_IDS_SQL = "SELECT id FROM notifications";
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE notifications SET status = ?, processed_at = ?, error_message = ?, retry_count = ?, next_attempt_at = ? "
+                    + "WHERE id = ?";
+
+    private static final String UPDATE_STATUS_IN_RANGE_SQL = UPDATE_STATUS_SQL + " AND created_at BETWEEN ? AND ?";
+
+    /**
+     * The status columns of one notification, as written by {@link #updateStatuses}.
+     */
+    public record StatusRow(long id, String status, LocalDateTime processedAt, String errorMessage, int retryCount,
+                            LocalDateTime nextAttemptAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdGenerator idGenerator;
+    private final boolean partitioned;
+
+    public NotificationBatchRepository(JdbcTemplate jdbcTemplate,
+                                       IdGenerator idGenerator,
+                                       @Value("${notification.partitioning.enabled:false}") boolean partitioned) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idGenerator = idGenerator;
+        this.partitioned = partitioned;
+    }
+
+    /**
+     * Insert notifications using JDBC statement batching. Notifications without an id are assigned one
+     * from the {@link IdGenerator} before the statements are sent.
+     * Must be called inside a transaction so all chunks commit together.
+     *
+     * @param notifications The notifications to insert
+     * @param batchSize Maximum number of rows sent per JDBC batch
+     */
+    public void insertAll(List<Notification> notifications, int batchSize) {
+        for (int from = 0; from < notifications.size(); from += batchSize) {
+            List<Notification> chunk = notifications.subList(from, Math.min(from + batchSize, notifications.size()));
+            insertChunk(chunk);
+        }
+    }
+
+    /**
+     * Write the status columns of each notification as one JDBC batch of primary key updates, so every row
+     * keeps its own timestamps.
+     *
+     * On a partitioned table each update also bounds created_at by the time encoded in the snowflake id, so
+     * only the partitions that can hold the row are probed. Rows the bound misses, i.e. ids issued before
+     * snowflake ids, are written again in a second batch without it.
+     */
+    public void updateStatuses(List<StatusRow> rows) {
+        if (!partitioned) {
+            batchUpdateStatuses(rows, false);
+            return;
+        }
+        int[] counts = batchUpdateStatuses(rows, true);
+        List<StatusRow> missed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missed.add(rows.get(i));
+            }
+        }
+        if (!missed.isEmpty()) {
+            batchUpdateStatuses(missed, false);
+        }
+    }
+
+    private int[] batchUpdateStatuses(List<StatusRow> rows, boolean bounded) {
+        return jdbcTemplate.batchUpdate(bounded ? UPDATE_STATUS_IN_RANGE_SQL : UPDATE_STATUS_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StatusRow row = rows.get(i);
+                ps.setString(1, row.status());
+                setTimestamp(ps, 2, row.processedAt());
+                ps.setString(3, row.errorMessage());
+                ps.setInt(4, row.retryCount());
+                setTimestamp(ps, 5, row.nextAttemptAt());
+                ps.setLong(6, row.id());
+                if (bounded) {
+                    LocalDateTime issuedAt = LocalDateTime.ofInstant(SnowflakeIdGenerator.timestampOf(row.id()), ZoneId.systemDefault());
+                    setTimestamp(ps, 7, issuedAt.minus(SnowflakeIdGenerator.TIMESTAMP_SLACK));
+                    setTimestamp(ps, 8, issuedAt.plus(SnowflakeIdGenerator.TIMESTAMP_SLACK));
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Stream the id of every notification to {@code consumer}, {@code fetchSize} rows per round trip.
+     * Must be called inside a transaction, without which the PostgreSQL driver reads the whole result at once.
+     */
+    public void forEachId(int fetchSize, LongConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_IDS_SQL);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1)));
+    }
+
+    private void insertChunk(List<Notification> chunk) {
+        for (Notification notification : chunk) {
+            if (notification.getId() == null) {
+                notification.setId(idGenerator.nextId());
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                bind(ps, chunk.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+    }
+
+    private void bind(PreparedStatement ps, Notification notification) throws SQLException {
+        ps.setLong(1, notification.getId());
+        ps.setString(2, notification.getType());
+        ps.setString(3, notification.getRecipient());
+        ps.setString(4, notification.getPayload());
+        ps.setString(5, notification.getStatus());
+        ps.setString(6, notification.getTargetUrl());
+        ps.setInt(7, notification.getRetryCount() != null ? notification.getRetryCount() : 0);
+        ps.setTimestamp(8, Timestamp.valueOf(notification.getCreatedAt()));
+        setTimestamp(ps, 9, notification.getProcessedAt());
+        ps.setString(10, notification.getErrorMessage());
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+}
@@ -1,25 +1,39 @@
 package com.notification.repository;
 
 import com.notification.model.Notification;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
-    List<Notification> findByRecipientOrderByCreatedAtDesc(String recipient);
+    // Keyset pages over (created_at, id), served by idx_notifications_recipient_created
+    List<Notification> findByRecipientOrderByCreatedAtDescIdDesc(String recipient, Limit limit);
     
-    List<Notification> findByStatus(String status);
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient "
+            + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageAfter(String recipient, LocalDateTime createdAt, Long id, Limit limit);
+    
+    List<Notification> findByRecipientAndStatusOrderByCreatedAtDescIdDesc(String recipient, String status, Limit limit);
     
-    long countByStatus(String status);
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.status = :status "
+            + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageAfterWithStatus(String recipient, String status, LocalDateTime createdAt, Long id, Limit limit);
     
-    @Query("SELECT n FROM Notification n WHERE n.status = 'FAILED' AND n.retryCount < 3")
-    List<Notification> findFailedNotificationsToRetry();
+    // Lets a lookup by id prune the partitions of a table partitioned by created_at
+    Optional<Notification> findByIdAndCreatedAtBetween(Long id, LocalDateTime from, LocalDateTime to);
+    
+    List<Notification> findByStatus(String status);
     
-    @Query("SELECT n FROM Notification n WHERE n.createdAt <= :cutoffDate AND n.status IN ('DELIVERED', 'FAILED')")
-    List<Notification> findOldNotifications(LocalDateTime cutoffDate);
+    // Rows per status, for reconciling the in-memory status counts
+    @Query("SELECT n.status, COUNT(n) FROM Notification n GROUP BY n.status")
+    List<Object[]> countGroupedByStatus();
 } 
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.notification.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plain JDBC access to the range partitions of time-partitioned tables on PostgreSQL.
+ *
+ * Only partitions of the tables in {@link #PARENTS}, named like the partitions this service creates
+ * ({@code <parent>_pYYYYMMDD}) or like the {@code <parent>_legacy} partition left by the migration scripts,
+ * are ever detached, exported or dropped.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartitionRepository {
+
+    public static final String NOTIFICATIONS = "notifications";
+    public static final String AUDIT_LOG = "notification_audit_log";
+    public static final Set<String> PARENTS = Set.of(NOTIFICATIONS, AUDIT_LOG);
+
+    private static final String MANAGED_SUFFIX = "_(p[0-9]{8}|legacy)";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private static final String FIND_PARTITIONS_SQL =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                    + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+                    + "WHERE p.oid = to_regclass(?)";
+
+    private static final String FIND_DETACHED_SQL =
+            "SELECT c.relname FROM pg_class c WHERE c.relkind = 'r' AND NOT c.relispartition "
+                    + "AND c.relname ~ ('^' || ? || '" + MANAGED_SUFFIX + "$') AND pg_table_is_visible(c.oid)";
+
+    // Rows the row purge would keep, plus failed ones still waiting for a retry
+    private static final String UNFINISHED_CONDITION = "status NOT IN ('DELIVERED', 'FAILED') OR next_attempt_at IS NOT NULL";
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * A partition and the exclusive upper bound of the partition key values it holds.
+     */
+    public record Partition(String name, LocalDateTime upperBound) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return The partitions currently attached to {@code parent}, excluding a default partition
+     */
+    public List<Partition> findPartitions(String parent) {
+        return jdbcTemplate.query(FIND_PARTITIONS_SQL, (rs, rowNum) -> {
+            Matcher bound = UPPER_BOUND.matcher(rs.getString(2));
+            return bound.find() ? new Partition(rs.getString(1), Timestamp.valueOf(bound.group(1)).toLocalDateTime()) : null;
+        }, managedParent(parent)).stream().filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * @return Partitions of {@code parent} that were detached for retention but not yet dropped
+     */
+    public List<String> findDetached(String parent) {
+        return jdbcTemplate.queryForList(FIND_DETACHED_SQL, String.class, managedParent(parent));
+    }
+
+    public void createPartition(String parent, String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + managed(parent, name) + " PARTITION OF " + parent
+                + " FOR VALUES FROM ('" + Timestamp.valueOf(from) + "') TO ('" + Timestamp.valueOf(to) + "')");
+    }
+
+    /**
+     * @return Number of notifications in a partition of the notifications table that are not delivered or
+     *         finally failed yet
+     */
+    public long countUnfinished(String name) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + managed(NOTIFICATIONS, name)
+                + " WHERE " + UNFINISHED_CONDITION, Long.class);
+        return count != null ? count : 0;
+    }
+
+    public void detach(String parent, String name) {
+        jdbcTemplate.execute("ALTER TABLE " + parent + " DETACH PARTITION " + managed(parent, name));
+    }
+
+    public void drop(String parent, String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + managed(parent, name));
+    }
+
+    /**
+     * Stream every row of a table to {@code out} as CSV with a header line. Runs in a read-only transaction
+     * so the driver fetches rows through a cursor instead of loading the whole table.
+     *
+     * @return Number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long export(String parent, String name, OutputStream out) {
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(EXPORT_FETCH_SIZE);
+        long[] rows = {0};
+        cursor.query("SELECT * FROM " + managed(parent, name) + " ORDER BY id", rs -> {
+            try {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columns = metaData.getColumnCount();
+                if (rows[0] == 0) {
+                    StringBuilder header = new StringBuilder();
+                    for (int i = 1; i <= columns; i++) {
+                        header.append(i > 1 ? "," : "").append(metaData.getColumnName(i));
+                    }
+                    out.write(header.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                }
+                StringBuilder line = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    line.append(i > 1 ? "," : "").append(csv(rs.getString(i)));
+                }
+                out.write(line.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows[0];
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    // Names end up in DDL, so anything but a table or partition this service manages is refused
+    private static String managedParent(String parent) {
+        if (!PARENTS.contains(parent)) {
+            throw new IllegalArgumentException("Not a managed partitioned table: " + parent);
+        }
+        return parent;
+    }
+
+    private static String managed(String parent, String name) {
+        if (!name.matches(managedParent(parent) + MANAGED_SUFFIX)) {
+            throw new IllegalArgumentException("Not a managed partition of " + parent + ": " + name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,134 @@
+package com.notification.repository;
+
+import com.notification.model.PurgeCheckpoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access for purging old notifications in id-range chunks and for the purge checkpoint.
+ *
+ * Each chunk covers the next {@code chunkSize} ids of the table and is removed with one range-bounded
+ * DELETE, so a chunk touches a bounded slice of the primary key index no matter how many rows qualify.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PurgeRepository {
+
+    private static final String END_ID_SQL =
+            "SELECT MAX(id) FROM notifications WHERE created_at <= ?";
+
+    private static final String CHUNK_END_SQL =
+            "SELECT id FROM notifications WHERE id > ? AND id <= ? ORDER BY id LIMIT 1 OFFSET ?";
+
+    // A FAILED row with next_attempt_at set is still waiting in the retry queue
+    private static final String PURGEABLE_CONDITION =
+            "created_at <= ? AND status IN ('DELIVERED', 'FAILED') AND next_attempt_at IS NULL";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM notifications WHERE id > ? AND id <= ? AND " + PURGEABLE_CONDITION;
+
+    private static final String LOCK_RANGE_SQL =
+            "SELECT id FROM notifications WHERE id > ? AND id <= ? AND " + PURGEABLE_CONDITION + " FOR UPDATE";
+
+    private static final String FIND_ACTIVE_SQL =
+            "SELECT job, cutoff, end_id, last_id, deleted_count, started_at, updated_at, completed_at "
+                    + "FROM notification_purge_checkpoints WHERE job = ? AND completed_at IS NULL";
+
+    private static final String DELETE_CHECKPOINT_SQL =
+            "DELETE FROM notification_purge_checkpoints WHERE job = ?";
+
+    private static final String INSERT_CHECKPOINT_SQL =
+            "INSERT INTO notification_purge_checkpoints (job, cutoff, end_id, last_id, deleted_count, started_at, updated_at) "
+                    + "VALUES (?, ?, ?, 0, 0, ?, ?)";
+
+    private static final String ADVANCE_SQL =
+            "UPDATE notification_purge_checkpoints SET last_id = ?, deleted_count = deleted_count + ?, updated_at = ? WHERE job = ?";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE notification_purge_checkpoints SET completed_at = ?, updated_at = ? WHERE job = ?";
+
+    private static final RowMapper<PurgeCheckpoint> CHECKPOINT_MAPPER = (rs, rowNum) -> {
+        PurgeCheckpoint checkpoint = new PurgeCheckpoint();
+        checkpoint.setJob(rs.getString("job"));
+        checkpoint.setCutoff(rs.getTimestamp("cutoff").toLocalDateTime());
+        checkpoint.setEndId(rs.getLong("end_id"));
+        checkpoint.setLastId(rs.getLong("last_id"));
+        checkpoint.setDeletedCount(rs.getLong("deleted_count"));
+        checkpoint.setStartedAt(toLocalDateTime(rs.getTimestamp("started_at")));
+        checkpoint.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        checkpoint.setCompletedAt(toLocalDateTime(rs.getTimestamp("completed_at")));
+        return checkpoint;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return The unfinished run of a job, if one was interrupted
+     */
+    public Optional<PurgeCheckpoint> findActive(String job) {
+        List<PurgeCheckpoint> checkpoints = jdbcTemplate.query(FIND_ACTIVE_SQL, CHECKPOINT_MAPPER, job);
+        return checkpoints.stream().findFirst();
+    }
+
+    /**
+     * Start a new run, replacing the checkpoint of the previous one.
+     *
+     * @return The new checkpoint, or empty if no row is old enough to be purged
+     */
+    public Optional<PurgeCheckpoint> start(String job, LocalDateTime cutoff, LocalDateTime now) {
+        Long endId = jdbcTemplate.queryForObject(END_ID_SQL, Long.class, Timestamp.valueOf(cutoff));
+        if (endId == null) {
+            return Optional.empty();
+        }
+        jdbcTemplate.update(DELETE_CHECKPOINT_SQL, job);
+        jdbcTemplate.update(INSERT_CHECKPOINT_SQL, job, Timestamp.valueOf(cutoff), endId,
+                Timestamp.valueOf(now), Timestamp.valueOf(now));
+        return findActive(job);
+    }
+
+    /**
+     * @return The id closing the chunk of {@code chunkSize} ids after {@code afterId}, capped at {@code endId}
+     */
+    public long findChunkEnd(long afterId, long endId, int chunkSize) {
+        List<Long> ids = jdbcTemplate.queryForList(CHUNK_END_SQL, Long.class, afterId, endId, chunkSize - 1);
+        return ids.isEmpty() ? endId : ids.get(0);
+    }
+
+    /**
+     * Delete the purgeable notifications with ids in {@code (afterId, upToId]}.
+     *
+     * @return Number of rows deleted
+     */
+    public int deleteRange(long afterId, long upToId, LocalDateTime cutoff) {
+        return jdbcTemplate.update(DELETE_RANGE_SQL, afterId, upToId, Timestamp.valueOf(cutoff));
+    }
+
+    /**
+     * Lock the purgeable notifications with ids in {@code (afterId, upToId]}, so that a following
+     * {@link #deleteRange} in the same transaction is certain to delete every one of them.
+     *
+     * @return Ids of the locked rows
+     */
+    public List<Long> lockRange(long afterId, long upToId, LocalDateTime cutoff) {
+        return jdbcTemplate.queryForList(LOCK_RANGE_SQL, Long.class, afterId, upToId, Timestamp.valueOf(cutoff));
+    }
+
+    public void advance(String job, long lastId, int deleted, LocalDateTime now) {
+        jdbcTemplate.update(ADVANCE_SQL, lastId, deleted, Timestamp.valueOf(now), job);
+    }
+
+    public void complete(String job, LocalDateTime now) {
+        jdbcTemplate.update(COMPLETE_SQL, Timestamp.valueOf(now), Timestamp.valueOf(now), job);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
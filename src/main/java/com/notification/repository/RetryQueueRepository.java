@@ -0,0 +1,84 @@
+package com.notification.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Claims notifications that are due for another delivery attempt.
+ *
+ * A notification waits for a retry while its {@code next_attempt_at} is set; the column is cleared once it is
+ * delivered or out of attempts, so idx_notifications_next_attempt only holds the retry backlog. Due rows are
+ * locked with {@code FOR UPDATE SKIP LOCKED}, so concurrent claimers on any number of nodes each get a
+ * disjoint batch without waiting on each other. The lease is then written per row with the created_at the
+ * claim just read, so on a partitioned table each update only probes the partition holding its row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RetryQueueRepository {
+
+    private static final String SELECT_DUE_SQL =
+            "SELECT id, status, created_at FROM notifications WHERE next_attempt_at <= ? AND status IN ('FAILED', 'RETRYING') "
+                    + "ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String LEASE_SQL =
+            "UPDATE notifications SET status = 'RETRYING', next_attempt_at = ? WHERE id = ? AND created_at = ?";
+
+    private static final String OLDEST_DUE_SQL =
+            "SELECT MIN(next_attempt_at) FROM notifications WHERE next_attempt_at IS NOT NULL "
+                    + "AND status IN ('FAILED', 'RETRYING')";
+
+    /**
+     * Ids of claimed notifications, and how many of them were FAILED rather than RETRYING on an expired lease.
+     */
+    public record Claim(List<Long> ids, int previouslyFailed) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claim up to {@code limit} due notifications, oldest due first, and mark them RETRYING until
+     * {@code leaseUntil}. A claim that is not resolved by then, e.g. because its node died, becomes due again.
+     * Must be called inside a transaction, which should commit right away to release the row locks.
+     *
+     * @return Ids of the claimed notifications
+     */
+    public List<Long> claimDue(LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        return claim(now, leaseUntil, limit).ids();
+    }
+
+    /**
+     * Like {@link #claimDue}, also reporting the status each claimed notification left.
+     */
+    public Claim claim(LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> leases = new ArrayList<>();
+        Timestamp leaseTimestamp = Timestamp.valueOf(leaseUntil);
+        int[] failed = {0};
+        jdbcTemplate.query(SELECT_DUE_SQL, rs -> {
+            long id = rs.getLong("id");
+            ids.add(id);
+            leases.add(new Object[]{leaseTimestamp, id, rs.getTimestamp("created_at")});
+            if ("FAILED".equals(rs.getString("status"))) {
+                failed[0]++;
+            }
+        }, Timestamp.valueOf(now), limit);
+        if (!leases.isEmpty()) {
+            jdbcTemplate.batchUpdate(LEASE_SQL, leases);
+        }
+        return new Claim(ids, failed[0]);
+    }
+
+    /**
+     * @return The earliest due time in the retry backlog, or null if the backlog is empty
+     */
+    public LocalDateTime findOldestDue() {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_DUE_SQL, Timestamp.class);
+        return oldest != null ? oldest.toLocalDateTime() : null;
+    }
+}
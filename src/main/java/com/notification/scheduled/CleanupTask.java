@@ -1,39 +1,190 @@
 package com.notification.scheduled;
 
-import com.notification.model.Notification;
-import com.notification.repository.NotificationRepository;
-import lombok.RequiredArgsConstructor;
+import com.notification.id.NotificationIdFilter;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.PurgeCheckpoint;
+import com.notification.repository.PurgeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Purges delivered and failed notifications older than the retention period.
+ *
+ * The table is walked in id order in chunks of {@code chunk-size} ids. Each chunk is deleted with one
+ * range-bounded statement in its own short transaction, which also advances the checkpoint, and the purge
+ * pauses for {@code pause-ms} between chunks to leave room for regular traffic. A run interrupted by a crash
+ * or shutdown resumes from its checkpoint on the next start or schedule. Purges run on their own thread so
+ * they never hold up the shared scheduler. While the {@link NotificationIdFilter} is enabled, each chunk first
+ * locks the rows it is about to delete so that their ids can be removed from the filter once it commits.
+ *
+ * When the table is partitioned by {@code created_at}, retention is enforced by dropping whole partitions
+ * instead (see {@link PartitionMaintenanceTask}) and this task does nothing.
+ */
 @Component
 @EnableScheduling
-@RequiredArgsConstructor
 @Slf4j
 public class CleanupTask {
 
-    private final NotificationRepository notificationRepository;
+    private static final String JOB = "notifications";
 
-    @Scheduled(cron = "0 0 3 * * *") // Run at 3 AM every day
-    @Transactional
+    private final PurgeRepository purgeRepository;
+    private final NotificationMetrics notificationMetrics;
+    private final NotificationIdFilter notificationIdFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final boolean partitioned;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    private volatile double progress;
+    private ExecutorService purger;
+
+    public CleanupTask(PurgeRepository purgeRepository,
+                       NotificationMetrics notificationMetrics,
+                       NotificationIdFilter notificationIdFilter,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${notification.purge.retention-days:30}") int retentionDays,
+                       @Value("${notification.purge.chunk-size:5000}") int chunkSize,
+                       @Value("${notification.purge.pause-ms:100}") long pauseMs,
+                       @Value("${notification.partitioning.enabled:false}") boolean partitioned) {
+        this.purgeRepository = purgeRepository;
+        this.notificationMetrics = notificationMetrics;
+        this.notificationIdFilter = notificationIdFilter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.partitioned = partitioned;
+    }
+
+    @PostConstruct
+    public void start() {
+        purger = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("notification-purge-"));
+        notificationMetrics.initializePurgeProgressGauge(() -> progress);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedPurge() {
+        if (purgeRepository.findActive(JOB).isPresent()) {
+            log.info("Resuming interrupted purge of old notifications");
+            submit();
+        }
+    }
+
+    @Scheduled(cron = "${notification.purge.cron:0 0 3 * * *}") // Run at 3 AM every day by default
     public void cleanupOldNotifications() {
-        log.info("Starting cleanup of old notifications");
-        
-        // Get notifications older than 30 days
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-        List<Notification> oldNotifications = notificationRepository.findOldNotifications(cutoffDate);
-        
-        if (!oldNotifications.isEmpty()) {
-            log.info("Deleting {} old notifications", oldNotifications.size());
-            notificationRepository.deleteAll(oldNotifications);
-        } else {
+        submit();
+    }
+
+    private void submit() {
+        if (partitioned) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("Purge of old notifications is already running");
+            return;
+        }
+        purger.execute(() -> {
+            try {
+                purge();
+            } catch (Exception e) {
+                log.error("Purge of old notifications failed, it will resume from its checkpoint: {}", e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * Run or resume a purge on the calling thread.
+     *
+     * @return Number of notifications deleted by this call
+     */
+    public long purge() {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<PurgeCheckpoint> active = purgeRepository.findActive(JOB);
+        PurgeCheckpoint checkpoint = active.orElseGet(() -> transactionTemplate.execute(status ->
+                purgeRepository.start(JOB, now.minusDays(retentionDays), now).orElse(null)));
+        if (checkpoint == null) {
             log.info("No old notifications to delete");
+            return 0;
+        }
+        log.info("{} purge of notifications created before {} from id {}",
+                active.isPresent() ? "Resuming" : "Starting", checkpoint.getCutoff(), checkpoint.getLastId());
+
+        long firstId = checkpoint.getLastId();
+        long endId = checkpoint.getEndId();
+        long lastId = firstId;
+        long deleted = 0;
+        progress = 0;
+        while (lastId < endId && !stopping) {
+            long afterId = lastId;
+            long start = System.nanoTime();
+            Chunk chunk = transactionTemplate.execute(status -> {
+                long upToId = purgeRepository.findChunkEnd(afterId, endId, chunkSize);
+                List<Long> purgedIds = notificationIdFilter.isEnabled()
+                        ? purgeRepository.lockRange(afterId, upToId, checkpoint.getCutoff()) : List.of();
+                int count = purgeRepository.deleteRange(afterId, upToId, checkpoint.getCutoff());
+                purgeRepository.advance(JOB, upToId, count, LocalDateTime.now());
+                return new Chunk(upToId, count, purgedIds);
+            });
+            notificationIdFilter.removeAll(chunk.purgedIds());
+            notificationMetrics.recordPurgeChunk(chunk.deleted(), System.nanoTime() - start);
+            lastId = chunk.lastId();
+            deleted += chunk.deleted();
+            progress = endId > firstId ? (double) (lastId - firstId) / (endId - firstId) : 1.0;
+
+            if (pauseMs > 0 && lastId < endId && !pause()) {
+                break;
+            }
+        }
+
+        if (lastId >= endId) {
+            transactionTemplate.executeWithoutResult(status -> purgeRepository.complete(JOB, LocalDateTime.now()));
+            log.info("Deleted {} old notifications", deleted);
+        } else {
+            log.info("Purge paused at id {} after deleting {} old notifications", lastId, deleted);
         }
+        return deleted;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        purger.shutdownNow();
+        purger.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private record Chunk(long lastId, int deleted, List<Long> purgedIds) {
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.notification.scheduled;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Length of the {@code created_at} range held by one notifications partition.
+ */
+public enum PartitionGranularity {
+
+    DAILY {
+        @Override
+        public LocalDateTime floor(LocalDateTime time) {
+            return time.toLocalDate().atStartOfDay();
+        }
+
+        @Override
+        public LocalDateTime next(LocalDateTime time) {
+            return time.toLocalDate().plusDays(1).atStartOfDay();
+        }
+    },
+
+    // Weeks start on Monday
+    WEEKLY {
+        @Override
+        public LocalDateTime floor(LocalDateTime time) {
+            return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        }
+
+        @Override
+        public LocalDateTime next(LocalDateTime time) {
+            return time.toLocalDate().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atStartOfDay();
+        }
+    };
+
+    /**
+     * @return Start of the period containing {@code time}
+     */
+    public abstract LocalDateTime floor(LocalDateTime time);
+
+    /**
+     * @return First period boundary strictly after {@code time}
+     */
+    public abstract LocalDateTime next(LocalDateTime time);
+}
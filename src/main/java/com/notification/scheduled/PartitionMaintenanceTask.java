@@ -0,0 +1,256 @@
+package com.notification.scheduled;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.PartitionRepository;
+import com.notification.repository.PartitionRepository.Partition;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the range partitions of the time-partitioned tables: notifications by {@code created_at} when
+ * {@code notification.partitioning.enabled} is set (see {@code scripts/partition-notifications.sql}), and
+ * notification_audit_log by {@code timestamp} when {@code audit.partitioning.enabled} is set (see
+ * {@code scripts/partition-audit-log.sql}).
+ *
+ * Each run creates partitions ahead of time so that the next {@code premake} periods always have one, and
+ * enforces retention by detaching partitions whose whole range is older than the table's retention and then
+ * dropping them, optionally after exporting them to a gzipped CSV file under {@code archive.dir}. A
+ * notifications partition is kept past its retention while it still holds notifications that are pending,
+ * being retried or waiting for a retry, the same rows the row purge keeps. New
+ * partitions always start where the newest one ends, so changing the granularity never leaves gaps or
+ * overlaps. A partition that was detached but not dropped, because of a crash or a failed export, is picked
+ * up again by the next run. Every statement tolerates another node doing the same work concurrently.
+ */
+@Component
+@ConditionalOnExpression("${notification.partitioning.enabled:false} or ${audit.partitioning.enabled:false}")
+@Slf4j
+public class PartitionMaintenanceTask {
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final PartitionRepository partitionRepository;
+    private final NotificationMetrics notificationMetrics;
+    private final List<ManagedTable> tables = new ArrayList<>();
+    private final boolean archiveEnabled;
+    private final Path archiveDir;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService maintainer;
+
+    public PartitionMaintenanceTask(PartitionRepository partitionRepository,
+                                    NotificationMetrics notificationMetrics,
+                                    @Value("${notification.partitioning.enabled:false}") boolean notificationsEnabled,
+                                    @Value("${notification.partitioning.granularity:daily}") String notificationsGranularity,
+                                    @Value("${notification.partitioning.premake:7}") int notificationsPremake,
+                                    @Value("${notification.purge.retention-days:30}") int notificationsRetentionDays,
+                                    @Value("${audit.partitioning.enabled:false}") boolean auditEnabled,
+                                    @Value("${audit.partitioning.granularity:daily}") String auditGranularity,
+                                    @Value("${audit.partitioning.premake:7}") int auditPremake,
+                                    @Value("${audit.max-history-days:90}") int auditRetentionDays,
+                                    @Value("${notification.partitioning.archive.enabled:false}") boolean archiveEnabled,
+                                    @Value("${notification.partitioning.archive.dir:archive}") String archiveDir) {
+        this.partitionRepository = partitionRepository;
+        this.notificationMetrics = notificationMetrics;
+        if (notificationsEnabled) {
+            tables.add(new ManagedTable(PartitionRepository.NOTIFICATIONS, granularity(notificationsGranularity),
+                    notificationsPremake, notificationsRetentionDays));
+        }
+        if (auditEnabled) {
+            tables.add(new ManagedTable(PartitionRepository.AUDIT_LOG, granularity(auditGranularity),
+                    auditPremake, auditRetentionDays));
+        }
+        this.archiveEnabled = archiveEnabled;
+        this.archiveDir = Path.of(archiveDir);
+    }
+
+    @PostConstruct
+    public void start() {
+        maintainer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("notification-partition-"));
+        for (ManagedTable table : tables) {
+            notificationMetrics.initializePartitionGauges(table.parent, () -> table.partitionCount,
+                    () -> table.horizon != null ? Duration.between(LocalDateTime.now(), table.horizon).toSeconds() : 0);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        submit();
+    }
+
+    @Scheduled(cron = "${notification.partitioning.cron:0 15 * * * *}") // Every hour by default
+    public void maintainPartitions() {
+        submit();
+    }
+
+    private void submit() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Partition maintenance is already running");
+            return;
+        }
+        maintainer.execute(() -> {
+            try {
+                maintain(LocalDateTime.now());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * Run one round of maintenance of every partitioned table on the calling thread.
+     *
+     * @return Number of partitions dropped
+     */
+    public int maintain(LocalDateTime now) {
+        int dropped = 0;
+        for (ManagedTable table : tables) {
+            try {
+                dropped += maintain(table, now);
+            } catch (Exception e) {
+                log.error("Maintenance of the partitions of {} failed, it will be retried on the next run: {}",
+                        table.parent, e.getMessage());
+            }
+        }
+        return dropped;
+    }
+
+    private int maintain(ManagedTable table, LocalDateTime now) {
+        int dropped = 0;
+        for (String name : partitionRepository.findDetached(table.parent)) {
+            dropped += archiveAndDrop(table, name) ? 1 : 0;
+        }
+
+        // Partitions continue from the newest one; a range already in the past could never receive rows
+        List<Partition> partitions = partitionRepository.findPartitions(table.parent);
+        LocalDateTime current = table.granularity.floor(now);
+        LocalDateTime frontier = partitions.stream().map(Partition::upperBound)
+                .filter(current::isBefore).max(LocalDateTime::compareTo).orElse(current);
+        LocalDateTime target = current;
+        for (int i = 0; i <= table.premake; i++) {
+            target = table.granularity.next(target);
+        }
+        int created = 0;
+        while (frontier.isBefore(target)) {
+            LocalDateTime to = table.granularity.next(frontier);
+            String name = table.parent + "_p" + frontier.format(NAME_FORMAT);
+            partitionRepository.createPartition(table.parent, name, frontier, to);
+            log.info("Created partition {} for rows from {} until {}", name, frontier, to);
+            frontier = to;
+            created++;
+        }
+        table.horizon = frontier;
+
+        LocalDateTime cutoff = now.minusDays(table.retentionDays);
+        int expired = 0;
+        for (Partition partition : partitions) {
+            if (partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+            // Dropping would lose deliveries that are still owed; the partition is checked again on the next run
+            if (PartitionRepository.NOTIFICATIONS.equals(table.parent)) {
+                long unfinished = partitionRepository.countUnfinished(partition.name());
+                if (unfinished > 0) {
+                    log.warn("Keeping expired partition {}, it still holds {} unfinished notifications", partition.name(), unfinished);
+                    continue;
+                }
+            }
+            expired++;
+            try {
+                partitionRepository.detach(table.parent, partition.name());
+            } catch (Exception e) {
+                log.warn("Could not detach expired partition {}: {}", partition.name(), e.getMessage());
+                continue;
+            }
+            dropped += archiveAndDrop(table, partition.name()) ? 1 : 0;
+        }
+        table.partitionCount = partitions.size() + created - expired;
+        return dropped;
+    }
+
+    // The partition is only dropped once its archive is complete; a failed export leaves it detached for the next run
+    private boolean archiveAndDrop(ManagedTable table, String name) {
+        long archivedBytes = 0;
+        if (archiveEnabled) {
+            try {
+                archivedBytes = archive(table, name);
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not archive expired partition {}, keeping it: {}", name, e.getMessage());
+                return false;
+            }
+        }
+        partitionRepository.drop(table.parent, name);
+        notificationMetrics.recordPartitionDropped(table.parent, archiveEnabled, archivedBytes);
+        log.info("Dropped expired partition {}", name);
+        return true;
+    }
+
+    private long archive(ManagedTable table, String name) throws IOException {
+        Files.createDirectories(archiveDir);
+        Path file = archiveDir.resolve(name + ".csv.gz");
+        Path partial = archiveDir.resolve(name + ".csv.gz.partial");
+        long rows;
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+            rows = partitionRepository.export(table.parent, name, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long bytes = Files.size(file);
+        log.info("Archived {} rows of partition {} to {} ({} bytes)", rows, name, file, bytes);
+        return bytes;
+    }
+
+    private static PartitionGranularity granularity(String value) {
+        return PartitionGranularity.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        maintainer.shutdownNow();
+        maintainer.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static class ManagedTable {
+
+        private final String parent;
+        private final PartitionGranularity granularity;
+        private final int premake;
+        private final int retentionDays;
+        private volatile int partitionCount;
+        private volatile LocalDateTime horizon;
+
+        private ManagedTable(String parent, PartitionGranularity granularity, int premake, int retentionDays) {
+            this.parent = parent;
+            this.granularity = granularity;
+            this.premake = premake;
+            this.retentionDays = retentionDays;
+        }
+    }
+}
@@ -1,43 +1,164 @@
 package com.notification.scheduled;
 
+import com.notification.metrics.NotificationMetrics;
 import com.notification.model.Notification;
 import com.notification.repository.NotificationRepository;
+import com.notification.repository.RetryQueueRepository;
 import com.notification.service.NotificationService;
-import lombok.RequiredArgsConstructor;
+import com.notification.status.NotificationStatusCounters;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Retries failed notifications once their backoff has elapsed.
+ *
+ * Each poll tops the pool up to {@code workers} drainers. A drainer repeatedly claims a batch of due
+ * notifications in its own short transaction (see {@link RetryQueueRepository#claimDue}) and retries them,
+ * stopping when nothing is due. Claims are disjoint across drainers and nodes, so every node can run
+ * this task.
+ */
 @Component
 @EnableScheduling
-@RequiredArgsConstructor
 @Slf4j
 public class RetryTask {
 
     private final NotificationRepository notificationRepository;
+    private final RetryQueueRepository retryQueueRepository;
     private final NotificationService notificationService;
+    private final NotificationMetrics notificationMetrics;
+    private final NotificationStatusCounters notificationStatusCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int batchSize;
+    private final Duration lease;
 
-    @Scheduled(fixedRate = 300000) // Every 5 minutes
+    private final AtomicInteger activeDrainers = new AtomicInteger();
+    private final AtomicLong backlogAgeSeconds = new AtomicLong();
+    private ExecutorService executor;
+
+    public RetryTask(NotificationRepository notificationRepository,
+                     RetryQueueRepository retryQueueRepository,
+                     NotificationService notificationService,
+                     NotificationMetrics notificationMetrics,
+                     NotificationStatusCounters notificationStatusCounters,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${notification.retry.workers:4}") int workers,
+                     @Value("${notification.retry.batch-size:100}") int batchSize,
+                     @Value("${notification.retry.lease-ms:300000}") long leaseMs) {
+        this.notificationRepository = notificationRepository;
+        this.retryQueueRepository = retryQueueRepository;
+        this.notificationService = notificationService;
+        this.notificationMetrics = notificationMetrics;
+        this.notificationStatusCounters = notificationStatusCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.lease = Duration.ofMillis(leaseMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("notification-retry-"));
+        notificationMetrics.initializeRetryBacklogAgeGauge(backlogAgeSeconds::get);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.retry.poll-interval-ms:5000}")
     public void retryFailedNotifications() {
-        log.info("Starting retry of failed notifications");
-        
-        List<Notification> failedNotifications = notificationRepository.findFailedNotificationsToRetry();
-        
-        if (!failedNotifications.isEmpty()) {
-            log.info("Found {} failed notifications to retry", failedNotifications.size());
-            
-            for (Notification notification : failedNotifications) {
+        updateBacklogAge();
+        int started = 0;
+        while (true) {
+            int active = activeDrainers.get();
+            if (active >= workers) {
+                break;
+            }
+            if (activeDrainers.compareAndSet(active, active + 1)) {
+                executor.execute(this::drain);
+                started++;
+            }
+        }
+        if (started > 0) {
+            log.debug("Started {} retry drainers", started);
+        }
+    }
+
+    /**
+     * Claim and retry batches until nothing is due.
+     *
+     * @return Number of notifications retried
+     */
+    public int drainOnce() {
+        int retried = 0;
+        List<Long> ids;
+        do {
+            ids = claim();
+            if (ids.isEmpty()) {
+                break;
+            }
+            notificationMetrics.recordRetryClaimed(ids.size());
+            for (Notification notification : notificationRepository.findAllById(ids)) {
                 try {
                     notificationService.retryFailedNotification(notification);
                 } catch (Exception e) {
                     log.error("Error retrying notification {}: {}", notification.getId(), e.getMessage());
                 }
+                retried++;
             }
-        } else {
-            log.info("No failed notifications to retry");
+        } while (ids.size() == batchSize);
+        return retried;
+    }
+
+    private void drain() {
+        try {
+            int retried = drainOnce();
+            if (retried > 0) {
+                log.info("Retried {} failed notifications", retried);
+            }
+        } catch (Exception e) {
+            log.error("Retry drainer failed: {}", e.getMessage());
+        } finally {
+            activeDrainers.decrementAndGet();
+        }
+    }
+
+    private List<Long> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        RetryQueueRepository.Claim claim = transactionTemplate.execute(status -> retryQueueRepository.claim(now, now.plus(lease), batchSize));
+        notificationStatusCounters.transition("FAILED", "RETRYING", claim.previouslyFailed());
+        return claim.ids();
+    }
+
+    private void updateBacklogAge() {
+        try {
+            LocalDateTime oldest = retryQueueRepository.findOldestDue();
+            long age = oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).getSeconds();
+            backlogAgeSeconds.set(Math.max(0, age));
+        } catch (Exception e) {
+            log.warn("Could not measure retry backlog age: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package com.notification.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.exception.NotificationException;
+import com.notification.model.AuditLogEntry;
+import com.notification.repository.AuditLogRepository;
+import com.notification.repository.AuditLogRepository.Filter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Searches the audit trail in notification_audit_log, newest first, one keyset page at a time.
+ *
+ * A page is written as {@code {"items": [...], "nextCursor": ...}} straight from the result set to the
+ * response, so memory use does not grow with the page size. {@code nextCursor} is null on the last page.
+ */
+@Service
+public class AuditSearchService {
+
+    // Entries are flushed to the client in groups of this many
+    private static final int FLUSH_EVERY = 100;
+
+    private final AuditLogRepository auditLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public AuditSearchService(AuditLogRepository auditLogRepository,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${audit.search.default-limit:100}") int defaultLimit,
+                              @Value("${audit.search.max-limit:1000}") int maxLimit) {
+        this.auditLogRepository = auditLogRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Validate a search and return the body that streams its page. Invalid input fails here, before any of
+     * the response has been written.
+     *
+     * @param filter Conditions the entries must match
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit Page size, or null for the default
+     * @throws NotificationException if the limit, cursor or time range is invalid
+     */
+    public StreamingResponseBody search(Filter filter, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultLimit : limit;
+        if (pageSize < 1 || pageSize > maxLimit) {
+            throw new NotificationException(String.format("Limit must be between 1 and %d", maxLimit));
+        }
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new NotificationException("from must be before to");
+        }
+        AuditCursor after = cursor != null ? AuditCursor.decode(cursor) : null;
+        return out -> writePage(filter, after, pageSize, out);
+    }
+
+    private void writePage(Filter filter, AuditCursor after, int pageSize, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("items");
+            PageWriter page = new PageWriter(generator, pageSize);
+            try {
+                // Fetch one extra row to learn whether another page follows
+                transactionTemplate.executeWithoutResult(status -> auditLogRepository.search(filter,
+                        after != null ? after.timestamp() : null, after != null ? after.id() : null, pageSize + 1, page));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            generator.writeStringField("nextCursor", page.more ? new AuditCursor(page.last.getTimestamp(), page.last.getId()).encode() : null);
+            generator.writeEndObject();
+        }
+    }
+
+    private static class PageWriter implements Consumer<AuditLogEntry> {
+
+        private final JsonGenerator generator;
+        private final int pageSize;
+        private int written;
+        private AuditLogEntry last;
+        private boolean more;
+
+        private PageWriter(JsonGenerator generator, int pageSize) {
+            this.generator = generator;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public void accept(AuditLogEntry entry) {
+            if (written == pageSize) {
+                more = true;
+                return;
+            }
+            try {
+                generator.writeObject(entry);
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            last = entry;
+        }
+    }
+}
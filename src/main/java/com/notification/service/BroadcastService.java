@@ -0,0 +1,118 @@
+package com.notification.service;
+
+import com.notification.audit.AuditLogger;
+import com.notification.dispatch.BroadcastFanout;
+import com.notification.exception.NotificationException;
+import com.notification.model.Broadcast;
+import com.notification.model.BroadcastRequest;
+import com.notification.repository.BroadcastRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Sends one payload to many recipients, either as a per-recipient fan-out or as a single publish to a
+ * {@code /topic} destination that subscribed clients receive.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BroadcastService {
+
+    private static final Pattern TOPIC_PATTERN = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final String BROADCAST_NOT_FOUND = "Broadcast not found with id: %d";
+
+    private final BroadcastRepository broadcastRepository;
+    private final BroadcastFanout broadcastFanout;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AuditLogger auditLogger;
+
+    @Value("${notification.broadcast.max-recipients:1000000}")
+    private int maxRecipients;
+
+    /**
+     * Store a broadcast and start delivering it. Recipient fan-out continues in the background; poll
+     * {@link #getBroadcast(Long)} for progress.
+     *
+     * @param request The payload plus either a recipient list or a topic
+     * @return The stored broadcast
+     */
+    public Broadcast createBroadcast(BroadcastRequest request) {
+        validate(request);
+
+        Broadcast broadcast = new Broadcast();
+        broadcast.setType(request.getType());
+        broadcast.setPayload(request.getPayload());
+
+        Map<String, Object> details = new HashMap<>();
+        details.put("type", request.getType());
+
+        if (request.getTopic() != null) {
+            broadcast.setTopic(request.getTopic());
+            broadcast.setStatus("COMPLETED");
+            broadcast.setCompletedAt(LocalDateTime.now());
+            broadcast = broadcastRepository.save(broadcast);
+            messagingTemplate.convertAndSend("/topic/" + request.getTopic(), request.getPayload());
+            details.put("topic", request.getTopic());
+        } else {
+            List<String> recipients = distinctRecipients(request.getRecipients());
+            broadcast.setStatus("IN_PROGRESS");
+            broadcast.setRecipientCount(recipients.size());
+            broadcast = broadcastRepository.save(broadcast);
+            broadcastFanout.fanOut(broadcast.getId(), broadcast.getPayload(), recipients);
+            details.put("recipients", recipients.size());
+        }
+
+        log.info("Created broadcast {} of type {}", broadcast.getId(), broadcast.getType());
+        auditLogger.logEvent("BROADCAST_CREATE", "BROADCAST", broadcast.getId().toString(), details);
+        return broadcast;
+    }
+
+    public Broadcast getBroadcast(Long id) {
+        return broadcastRepository.findById(id)
+                .orElseThrow(() -> new NotificationException(String.format(BROADCAST_NOT_FOUND, id)));
+    }
+
+    private void validate(BroadcastRequest request) {
+        if (request.getType() == null || request.getType().isEmpty()) {
+            throw new NotificationException("Broadcast type is required");
+        }
+        if (request.getPayload() == null || request.getPayload().isEmpty()) {
+            throw new NotificationException("Broadcast payload is required");
+        }
+        boolean hasRecipients = request.getRecipients() != null && !request.getRecipients().isEmpty();
+        boolean hasTopic = request.getTopic() != null;
+        if (hasRecipients == hasTopic) {
+            throw new NotificationException("Broadcast requires either recipients or a topic, but not both");
+        }
+        if (hasTopic && !TOPIC_PATTERN.matcher(request.getTopic()).matches()) {
+            throw new NotificationException("Broadcast topic may only contain letters, digits, '.', '_' and '-'");
+        }
+        if (hasRecipients && request.getRecipients().size() > maxRecipients) {
+            throw new NotificationException(String.format("Broadcast has %d recipients, the maximum is %d",
+                    request.getRecipients().size(), maxRecipients));
+        }
+    }
+
+    // Duplicates would collide on the delivery row key and deliver twice
+    private List<String> distinctRecipients(List<String> recipients) {
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(recipients.size() * 2);
+        for (String recipient : recipients) {
+            if (recipient == null || recipient.isBlank()) {
+                throw new NotificationException("Broadcast recipients must not be blank");
+            }
+            distinct.add(recipient);
+        }
+        return new ArrayList<>(distinct);
+    }
+}
@@ -0,0 +1,208 @@
+package com.notification.service;
+
+import com.notification.exception.DispatchRejectedException;
+import com.notification.exception.NotificationException;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces concurrent single-notification inserts into shared transactions.
+ *
+ * Callers hand over a new notification and wait on a future. Committer threads take whatever arrived
+ * within a short window (up to {@code max-batch-size} rows), insert it with one JDBC batch in one
+ * transaction and complete every caller's future with its assigned id. Only the committers hold
+ * database connections, so hundreds of request threads share a handful of pool connections.
+ *
+ * At most {@code queue-capacity} writes wait for a committer; beyond that new writes are rejected. A write
+ * whose caller gave up waiting before a committer took it is withdrawn, so it is never stored behind the
+ * caller's back.
+ */
+@Slf4j
+@Component
+public class GroupCommitWriter {
+
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationMetrics notificationMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long maxWaitMicros;
+    private final int maxBatchSize;
+    private final int committers;
+    private final long timeoutMs;
+
+    private final BlockingQueue<PendingWrite> queue;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public GroupCommitWriter(NotificationBatchRepository notificationBatchRepository,
+                             NotificationMetrics notificationMetrics,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${notification.group-commit.enabled:false}") boolean enabled,
+                             @Value("${notification.group-commit.max-wait-micros:2000}") long maxWaitMicros,
+                             @Value("${notification.group-commit.max-batch-size:256}") int maxBatchSize,
+                             @Value("${notification.group-commit.committers:2}") int committers,
+                             @Value("${notification.group-commit.timeout-ms:5000}") long timeoutMs,
+                             @Value("${notification.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.notificationBatchRepository = notificationBatchRepository;
+        this.notificationMetrics = notificationMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxWaitMicros = maxWaitMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.committers = committers;
+        this.timeoutMs = timeoutMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        executor = Executors.newFixedThreadPool(committers, new CustomizableThreadFactory("notification-group-commit-"));
+        for (int i = 0; i < committers; i++) {
+            executor.execute(this::commitLoop);
+        }
+        log.info("Group commit enabled with {} committers, window {}us, max batch {}", committers, maxWaitMicros, maxBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Insert a new notification as part of the next group and wait for it to commit.
+     *
+     * @param notification A notification prepared for insert (status, createdAt and retryCount set, no id)
+     * @return The same notification with its id assigned
+     * @throws DispatchRejectedException if {@code queue-capacity} writes are already waiting
+     */
+    public Notification write(Notification notification) {
+        PendingWrite write = new PendingWrite(notification, new CompletableFuture<>(), new AtomicBoolean());
+        if (!queue.offer(write)) {
+            throw new DispatchRejectedException("Group commit queue is full, retry later");
+        }
+        try {
+            try {
+                return write.future().get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (withdraw(write)) {
+                    throw new NotificationException("Timed out waiting for group commit", e);
+                }
+                // A committer is already writing it, so the caller learns the real outcome
+                return write.future().get();
+            }
+        } catch (ExecutionException e) {
+            throw new NotificationException("Group commit failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            withdraw(write);
+            throw new NotificationException("Interrupted waiting for group commit", e);
+        }
+    }
+
+    // Take a write back before any committer has claimed it; false if one already has
+    private boolean withdraw(PendingWrite write) {
+        if (!write.claimed().compareAndSet(false, true)) {
+            return false;
+        }
+        queue.remove(write);
+        write.future().cancel(false);
+        return true;
+    }
+
+    private void commitLoop() {
+        List<PendingWrite> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || !first.claimed().compareAndSet(false, true)) {
+                    continue;
+                }
+                group.add(first);
+
+                // Gather whatever else arrives within the window
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+                while (group.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    // Skip writes withdrawn by callers that gave up
+                    if (next.claimed().compareAndSet(false, true)) {
+                        group.add(next);
+                    }
+                }
+
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(write -> write.future().completeExceptionally(e));
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> group) {
+        long start = System.nanoTime();
+        List<Notification> notifications = new ArrayList<>(group.size());
+        group.forEach(write -> notifications.add(write.notification()));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> notificationBatchRepository.insertAll(notifications, maxBatchSize));
+            group.forEach(write -> write.future().complete(write.notification()));
+        } catch (Exception e) {
+            log.warn("Group commit of {} notifications failed, retrying individually: {}", group.size(), e.getMessage());
+            // Isolate the failing row so one bad notification does not fail its neighbours
+            for (PendingWrite write : group) {
+                write.notification().setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            notificationBatchRepository.insertAll(List.of(write.notification()), 1));
+                    write.future().complete(write.notification());
+                } catch (Exception ex) {
+                    write.future().completeExceptionally(ex);
+                }
+            }
+        }
+        notificationMetrics.recordGroupCommit(group.size(), System.nanoTime() - start);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private record PendingWrite(Notification notification, CompletableFuture<Notification> future, AtomicBoolean claimed) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.notification.service;
+
+import com.notification.exception.NotificationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a recipient's inbox: the {@code (createdAt, id)} of the last notification already returned.
+ * Clients only ever see it as an opaque URL-safe token.
+ */
+public record InboxCursor(LocalDateTime createdAt, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws NotificationException if the token was not produced by {@link #encode()}
+     */
+    public static InboxCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new NotificationException("Invalid cursor");
+            }
+            return new InboxCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new NotificationException("Invalid cursor");
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.notification.service;
 
+import com.notification.model.BatchResult;
 import com.notification.model.Notification;
+import com.notification.model.NotificationPage;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface NotificationService {
     Notification saveNotification(Notification notification);
+    BatchResult saveNotifications(List<Notification> notifications);
     Notification getNotification(Long id);
     void processNotification(Notification notification);
+    CompletableFuture<Void> deliverNotification(Notification notification);
     void retryFailedNotification(Notification notification);
-    List<Notification> getNotificationsByRecipient(String recipient);
+    NotificationPage getNotificationsByRecipient(String recipient, String status, String cursor, Integer limit);
 } 
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.notification.service;
+
+import com.notification.model.Notification;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+public final class NotificationValidator {
+
+    private NotificationValidator() {
+    }
+
+    /**
+     * Check the fields a notification needs before it can be persisted.
+     *
+     * @param notification The notification to check
+     * @return A description of the problem, or null if the notification is valid
+     */
+    public static String validate(Notification notification) {
+        if (notification == null) {
+            return "Notification is required";
+        }
+        if (!StringUtils.hasText(notification.getType())) {
+            return "Notification type is required";
+        }
+        if (!StringUtils.hasText(notification.getRecipient())) {
+            return "Notification recipient is required";
+        }
+        if (!StringUtils.hasText(notification.getPayload())) {
+            return "Notification payload is required";
+        }
+        if (notification.getTargetUrl() != null && !isWebhookUrl(notification.getTargetUrl())) {
+            return "Notification targetUrl must be an absolute http or https URL";
+        }
+        return null;
+    }
+
+    private static boolean isWebhookUrl(String targetUrl) {
+        try {
+            URI uri = new URI(targetUrl);
+            return ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))
+                    && uri.getHost() != null;
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+}
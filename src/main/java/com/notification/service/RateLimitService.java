@@ -1,34 +1,176 @@
 package com.notification.service;
 
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.ratelimit.LeasedRateLimiter;
+import com.notification.ratelimit.RateLimiter;
+import com.notification.ratelimit.TokenStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Per-client request limits.
+ *
+ * A client is its JWT subject when the request is authenticated and its remote address otherwise. Every
+ * client gets {@code notification.rate-limit.default-limit} requests per {@code period-ms}, or the limit listed
+ * for its subject in {@code subjects}. Requests matching one of the {@code endpoints} rules count against that
+ * rule's own limit instead. The first matching rule wins.
+ *
+ * Rules are written as {@code [METHOD ]pattern=limit}, separated by commas, for example
+ * {@code POST /api/notifications/batch=10}; subjects as {@code name=limit}. State for clients that are back at
+ * their full allowance is evicted every {@code eviction-interval-ms}.
+ *
+ * By default every instance enforces the limits on its own. With {@code mode: distributed} they are shared
+ * through a {@link TokenStore} instead, which instances lease tokens from in batches of {@code lease.batch-size};
+ * see {@link LeasedRateLimiter} for how far that can drift from the exact limit.
+ */
+@Slf4j
 @Service
 public class RateLimitService {
-    private final CacheManager cacheManager;
-    private static final int MAX_REQUESTS_PER_MINUTE = 100;
 
-    public RateLimitService(CacheManager cacheManager) {
-        this.cacheManager = cacheManager;
+    private final RateLimiter.Algorithm algorithm;
+    private final long periodNanos;
+    private final RateLimiter defaultLimiter;
+    private final Map<String, RateLimiter> subjectLimiters = new HashMap<>();
+    private final List<EndpointRule> endpointRules = new ArrayList<>();
+    private final List<LeasedRateLimiter> leasedLimiters = new ArrayList<>();
+    private final TokenStore tokenStore;
+    private final int leaseBatchSize;
+    private final long leaseTtlNanos;
+    private final NotificationMetrics notificationMetrics;
+
+    public RateLimitService(String algorithm, long periodMs, int defaultLimit, String subjects, String endpoints) {
+        this(algorithm, periodMs, defaultLimit, subjects, endpoints, null, 1, 0, null);
+    }
+
+    @Autowired
+    public RateLimitService(@Value("${notification.rate-limit.algorithm:token-bucket}") String algorithm,
+                            @Value("${notification.rate-limit.period-ms:60000}") long periodMs,
+                            @Value("${notification.rate-limit.default-limit:100}") int defaultLimit,
+                            @Value("${notification.rate-limit.subjects:}") String subjects,
+                            @Value("${notification.rate-limit.endpoints:}") String endpoints,
+                            @Nullable TokenStore tokenStore,
+                            @Value("${notification.rate-limit.lease.batch-size:10}") int leaseBatchSize,
+                            @Value("${notification.rate-limit.lease.ttl-ms:1000}") long leaseTtlMs,
+                            NotificationMetrics notificationMetrics) {
+        this.tokenStore = tokenStore;
+        this.leaseBatchSize = leaseBatchSize;
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+        this.notificationMetrics = notificationMetrics;
+        this.algorithm = RateLimiter.algorithm(algorithm);
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+        this.defaultLimiter = limiter("default", defaultLimit);
+        for (String entry : StringUtils.commaDelimitedListToStringArray(subjects)) {
+            if (StringUtils.hasText(entry)) {
+                String[] parts = splitLimit(entry);
+                subjectLimiters.put(parts[0], limiter("subject " + parts[0], Integer.parseInt(parts[1])));
+            }
+        }
+        PathPatternParser parser = new PathPatternParser();
+        for (String entry : StringUtils.commaDelimitedListToStringArray(endpoints)) {
+            if (StringUtils.hasText(entry)) {
+                String[] parts = splitLimit(entry);
+                String[] target = parts[0].split("\\s+");
+                String method = target.length > 1 ? target[0].toUpperCase(Locale.ROOT) : null;
+                PathPattern pattern = parser.parse(target[target.length - 1]);
+                endpointRules.add(new EndpointRule(method, pattern, limiter(parts[0], Integer.parseInt(parts[1]))));
+            }
+        }
+        if (!leasedLimiters.isEmpty()) {
+            notificationMetrics.initializeRateLimitOutstandingGauge(
+                    () -> leasedLimiters.stream().mapToLong(LeasedRateLimiter::outstanding).sum());
+        }
     }
 
+    /**
+     * Count a request from {@code clientId} against the default limit.
+     *
+     * @return Whether the request is within the limit
+     */
     public boolean isAllowed(String clientId) {
-        Cache cache = cacheManager.getCache("rateLimit");
-        AtomicInteger requestCount = cache.get(clientId, AtomicInteger.class);
-        
-        if (requestCount == null) {
-            requestCount = new AtomicInteger(0);
-            cache.put(clientId, requestCount);
+        return defaultLimiter.tryAcquire(clientId);
+    }
+
+    /**
+     * Count a request against the limit of the endpoint rule it matches, else of its client.
+     *
+     * @param subject Authenticated subject, or null for an anonymous request
+     * @param remoteAddress Address the request came from, identifying anonymous clients
+     * @return Whether the request is within the limit
+     */
+    public boolean isAllowed(String subject, String remoteAddress, String method, String path) {
+        // Subjects and addresses are kept apart so that a user name can never share an address's allowance
+        String clientId = subject != null ? "subject:" + subject : "address:" + remoteAddress;
+        if (!endpointRules.isEmpty()) {
+            PathContainer pathContainer = PathContainer.parsePath(path);
+            for (EndpointRule rule : endpointRules) {
+                if (rule.matches(method, pathContainer)) {
+                    return rule.limiter().tryAcquire(clientId);
+                }
+            }
         }
-        
-        return requestCount.incrementAndGet() <= MAX_REQUESTS_PER_MINUTE;
+        RateLimiter limiter = subject != null ? subjectLimiters.getOrDefault(subject, defaultLimiter) : defaultLimiter;
+        return limiter.tryAcquire(clientId);
     }
 
     public void resetLimit(String clientId) {
-        Cache cache = cacheManager.getCache("rateLimit");
-        cache.evict(clientId);
+        defaultLimiter.reset(clientId);
+        subjectLimiters.values().forEach(limiter -> limiter.reset(clientId));
+        endpointRules.forEach(rule -> rule.limiter().reset(clientId));
+    }
+
+    @Scheduled(fixedDelayString = "${notification.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        int evicted = defaultLimiter.evictIdle();
+        for (RateLimiter limiter : subjectLimiters.values()) {
+            evicted += limiter.evictIdle();
+        }
+        for (EndpointRule rule : endpointRules) {
+            evicted += rule.limiter().evictIdle();
+        }
+        if (evicted > 0) {
+            log.debug("Evicted rate limit state of {} idle clients", evicted);
+        }
+    }
+
+    private RateLimiter limiter(String name, int limit) {
+        RateLimiter local = RateLimiter.create(algorithm, limit, periodNanos, System::nanoTime);
+        if (tokenStore == null) {
+            return local;
+        }
+        // The local limiter only takes over while the store cannot be reached
+        LeasedRateLimiter leased = new LeasedRateLimiter(name, limit, periodNanos, tokenStore, leaseBatchSize,
+                leaseTtlNanos, local, System::nanoTime, notificationMetrics);
+        leasedLimiters.add(leased);
+        return leased;
+    }
+
+    private static String[] splitLimit(String entry) {
+        int separator = entry.lastIndexOf('=');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Rate limit entry must be written as target=limit: " + entry);
+        }
+        return new String[] {entry.substring(0, separator).trim(), entry.substring(separator + 1).trim()};
+    }
+
+    private record EndpointRule(String method, PathPattern pattern, RateLimiter limiter) {
+
+        private boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && pattern.matches(path);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -1,28 +1,57 @@
 package com.notification.service.impl;
 
 import com.notification.audit.AuditLogger;
+import com.notification.cache.TwoTierCache;
+import com.notification.dispatch.DeliveryRetryScheduler;
+import com.notification.exception.DispatchRejectedException;
 import com.notification.exception.NotificationException;
+import com.notification.exception.NotificationNotFoundException;
+import com.notification.exception.WebhookException;
+import com.notification.id.NotificationIdFilter;
+import com.notification.id.SnowflakeIdGenerator;
 import com.notification.metrics.NotificationMetrics;
+import com.notification.metrics.NotificationMetrics.Stage;
+import com.notification.model.BatchResult;
 import com.notification.model.Notification;
+import com.notification.model.NotificationPage;
+import com.notification.repository.NotificationBatchRepository;
 import com.notification.repository.NotificationRepository;
+import com.notification.service.GroupCommitWriter;
+import com.notification.service.InboxCursor;
 import com.notification.service.NotificationService;
+import com.notification.service.NotificationValidator;
+import com.notification.status.NotificationStatusCounters;
+import com.notification.status.NotificationStatusUpdater;
+import com.notification.webhook.WebhookClient;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -33,13 +62,47 @@ public class NotificationServiceImpl implements NotificationService {
     private final SimpMessagingTemplate messagingTemplate;
     private final NotificationMetrics notificationMetrics;
     private final AuditLogger auditLogger;
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationStatusUpdater notificationStatusUpdater;
+    private final NotificationStatusCounters notificationStatusCounters;
+    private final GroupCommitWriter groupCommitWriter;
+    private final WebhookClient webhookClient;
+    private final DeliveryRetryScheduler deliveryRetryScheduler;
+    private final CacheManager cacheManager;
+    private final NotificationIdFilter notificationIdFilter;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Value("${notification.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${notification.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Value("${notification.inbox.default-limit:50}")
+    private int inboxDefaultLimit;
+
+    @Value("${notification.inbox.max-limit:200}")
+    private int inboxMaxLimit;
+
+    @Value("${notification.retry.backoff.initial-ms:30000}")
+    private long retryInitialBackoffMs;
+
+    @Value("${notification.retry.backoff.multiplier:2.0}")
+    private double retryBackoffMultiplier;
+
+    @Value("${notification.retry.backoff.max-ms:3600000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${notification.partitioning.enabled:false}")
+    private boolean partitioned;
+
     private static final int MAX_RETRIES = 3;
     private static final String NOTIFICATION_NOT_FOUND = "Notification not found with id: %d";
     private static final String NOTIFICATION_SERVICE = "notificationService";
+    private static final String NOTIFICATIONS_CACHE = "notifications";
 
     @Override
-    @Transactional
-    @CacheEvict(value = "notifications", key = "#notification.id", condition = "#notification.id != null")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Notification saveNotification(Notification notification) {
         try {
             log.info("Saving notification for recipient: {}", notification.getRecipient());
@@ -47,7 +110,23 @@ public class NotificationServiceImpl implements NotificationService {
             boolean isNew = notification.getId() == null;
             String action = isNew ? "CREATE" : "UPDATE";
             
-            Notification savedNotification = notificationRepository.save(notification);
+            long persistStart = System.nanoTime();
+            Notification savedNotification;
+            if (isNew && groupCommitWriter.isEnabled()) {
+                // Joins the next group insert instead of taking a pool connection of its own
+                prepareForInsert(notification, LocalDateTime.now());
+                savedNotification = groupCommitWriter.write(notification);
+            } else {
+                savedNotification = notificationRepository.save(notification);
+            }
+            long auditStart = System.nanoTime();
+            notificationMetrics.recordStage(Stage.PERSIST, auditStart - persistStart);
+            if (isNew) {
+                notificationStatusCounters.created(savedNotification.getStatus(), 1);
+                long id = savedNotification.getId();
+                afterCommit(() -> notificationIdFilter.add(id));
+            }
+            writeThrough(savedNotification);
             
             // Audit logging
             Map<String, Object> details = new HashMap<>();
@@ -56,6 +135,7 @@ public class NotificationServiceImpl implements NotificationService {
             details.put("status", notification.getStatus());
             
             auditLogger.logNotificationAction(action, savedNotification.getId(), details);
+            notificationMetrics.recordStage(Stage.AUDIT, System.nanoTime() - auditStart);
             
             return savedNotification;
         } catch (Exception e) {
@@ -69,20 +149,122 @@ public class NotificationServiceImpl implements NotificationService {
             
             auditLogger.logNotificationAction("SAVE_FAILED", notification.getId(), details);
             
+            // Back-pressure from the group commit queue is answered like a full dispatch queue
+            if (e instanceof DispatchRejectedException rejected) {
+                throw rejected;
+            }
             throw new NotificationException("Failed to save notification", e);
         }
     }
 
+    @Override
+    @Transactional
+    public BatchResult saveNotifications(List<Notification> notifications) {
+        if (notifications == null || notifications.isEmpty()) {
+            throw new NotificationException("Batch must contain at least one notification");
+        }
+        if (notifications.size() > maxBatchSize) {
+            throw new NotificationException(String.format("Batch size %d exceeds the maximum of %d", notifications.size(), maxBatchSize));
+        }
+        
+        log.info("Saving batch of {} notifications", notifications.size());
+        long startTime = System.currentTimeMillis();
+        
+        List<BatchResult.Item> items = new ArrayList<>(notifications.size());
+        List<Notification> valid = new ArrayList<>(notifications.size());
+        List<BatchResult.Item> validItems = new ArrayList<>(notifications.size());
+        LocalDateTime now = LocalDateTime.now();
+        
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            BatchResult.Item item = new BatchResult.Item(i, null, NotificationValidator.validate(notification));
+            items.add(item);
+            if (item.getError() == null) {
+                notification.setId(null);
+                prepareForInsert(notification, now);
+                valid.add(notification);
+                validItems.add(item);
+            }
+        }
+        
+        try {
+            notificationBatchRepository.insertAll(valid, jdbcBatchSize);
+        } catch (Exception e) {
+            log.error("Error saving notification batch: {}", e.getMessage());
+            
+            Map<String, Object> details = new HashMap<>();
+            details.put("count", notifications.size());
+            details.put("error", e.getMessage());
+            
+            auditLogger.logEvent("BATCH_SAVE_FAILED", "NOTIFICATION", "BATCH", details);
+            
+            throw new NotificationException("Failed to save notification batch", e);
+        }
+        
+        for (int i = 0; i < valid.size(); i++) {
+            validItems.get(i).setId(valid.get(i).getId());
+        }
+        afterCommit(() -> valid.forEach(notification -> notificationIdFilter.add(notification.getId())));
+        notificationStatusCounters.created("PENDING", valid.size());
+        int rejected = notifications.size() - valid.size();
+        
+        // One aggregated audit record for the whole batch
+        Map<String, Object> details = new HashMap<>();
+        details.put("accepted", valid.size());
+        details.put("rejected", rejected);
+        if (!valid.isEmpty()) {
+            details.put("firstId", valid.get(0).getId());
+            details.put("lastId", valid.get(valid.size() - 1).getId());
+        }
+        
+        auditLogger.logEvent("BATCH_CREATE", "NOTIFICATION", "BATCH", details);
+        
+        notificationMetrics.recordBatchIngested(valid.size(), rejected, System.currentTimeMillis() - startTime);
+        
+        return new BatchResult(valid.size(), rejected, items);
+    }
+
+    // Calls from within this class bypass the caching proxy, so the cache is updated here rather than by annotation;
+    // inside a transaction the put is held back until it commits, so a rolled back change is never cached
+    private void writeThrough(Notification notification) {
+        Cache cache = cacheManager.getCache(NOTIFICATIONS_CACHE);
+        if (cache == null || notification.getId() == null) {
+            return;
+        }
+        afterCommit(() -> cache.put(notification.getId(), notification));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Mirrors Notification#onCreate for rows written with plain JDBC
+    private void prepareForInsert(Notification notification, LocalDateTime now) {
+        notification.setStatus("PENDING");
+        notification.setRetryCount(0);
+        notification.setCreatedAt(now);
+    }
+
     @Override
     @CircuitBreaker(name = NOTIFICATION_SERVICE, fallbackMethod = "getNotificationFallback")
-    @Cacheable(value = "notifications", key = "#id")
+    @Cacheable(value = "notifications", key = "#id", sync = true)
     public Notification getNotification(Long id) {
         log.debug("Fetching notification with id: {}", id);
         try {
-            Notification notification = notificationRepository.findById(id)
+            Notification notification = findById(id)
                     .orElseThrow(() -> {
                         log.error(NOTIFICATION_NOT_FOUND, id);
-                        return new NotificationException(String.format(NOTIFICATION_NOT_FOUND, id));
+                        notificationIdFilter.recordNotFound(id);
+                        return new NotificationNotFoundException(id);
                     });
             
             // Audit logging
@@ -104,7 +286,42 @@ public class NotificationServiceImpl implements NotificationService {
         }
     }
 
+    // On a partitioned table, bound created_at by the time encoded in the snowflake id so that only the one or two
+    // partitions that can hold the row are probed; ids issued before snowflake ids fall back to a plain lookup
+    private Optional<Notification> findById(Long id) {
+        if (!partitioned) {
+            return notificationRepository.findById(id);
+        }
+        LocalDateTime issuedAt = LocalDateTime.ofInstant(SnowflakeIdGenerator.timestampOf(id), ZoneId.systemDefault());
+        return notificationRepository.findByIdAndCreatedAtBetween(id,
+                        issuedAt.minus(SnowflakeIdGenerator.TIMESTAMP_SLACK), issuedAt.plus(SnowflakeIdGenerator.TIMESTAMP_SLACK))
+                .or(() -> notificationRepository.findById(id));
+    }
+
+    // A missing notification is an answer, not a failure, so it is passed on rather than replaced by a fallback
+    public Notification getNotificationFallback(Long id, NotificationNotFoundException e) {
+        throw e;
+    }
+
+    // Serves the last known copy while the database cannot be read. The breaker sits in front of the cache, so the
+    // placeholder built when there is no copy never reaches it
     public Notification getNotificationFallback(Long id, Exception e) {
+        Cache cache = cacheManager.getCache(NOTIFICATIONS_CACHE);
+        if (cache != null) {
+            // A call refused by the open breaker has not been looked up in the cache yet
+            if (e instanceof CallNotPermittedException) {
+                Notification cached = cache.get(id, Notification.class);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            TwoTierCache.LocalEntry lastKnown = cache instanceof TwoTierCache twoTierCache ? twoTierCache.getStale(id) : null;
+            if (lastKnown != null && lastKnown.value() instanceof Notification notification) {
+                Instant asOf = Instant.now().minusNanos(System.nanoTime() - lastKnown.loadedAt());
+                log.warn("Circuit breaker triggered for getNotification. Serving copy of notification {} as of {}", id, asOf);
+                return notification.staleCopy(asOf);
+            }
+        }
         log.warn("Circuit breaker triggered for getNotification. Creating fallback notification for id: {}", id);
         // Return a fallback notification
         Notification fallback = new Notification();
@@ -118,46 +335,147 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
-    @Transactional
     @CircuitBreaker(name = NOTIFICATION_SERVICE, fallbackMethod = "processNotificationFallback")
-    @Retryable(maxAttempts = MAX_RETRIES, 
-               backoff = @Backoff(delay = 1000, multiplier = 2),
-               exclude = {NotificationException.class})
     public void processNotification(Notification notification) {
+        long startTime = System.currentTimeMillis();
         try {
             log.info("Processing notification for recipient: {}", notification.getRecipient());
-            long startTime = System.currentTimeMillis();
             
             // Save notification
             notification = saveNotification(notification);
-            
-            // Send notification via WebSocket
-            messagingTemplate.convertAndSendToUser(
-                notification.getRecipient(),
-                "/queue/notifications",
-                notification.getPayload()
-            );
-            
-            // Update notification status
-            notification.setStatus("DELIVERED");
-            notification.setProcessedAt(LocalDateTime.now());
-            saveNotification(notification);
-            
-            // Record metrics
-            long processingTime = System.currentTimeMillis() - startTime;
-            notificationMetrics.recordNotificationProcessed(
-                notification.getType(),
-                notification.getStatus(),
-                processingTime,
-                notification.getPayload().length()
-            );
-            
-            log.info("Successfully processed notification with id: {}", notification.getId());
         } catch (Exception e) {
             log.error("Error processing notification: {}", e.getMessage());
             handleNotificationFailure(notification, e);
             throw new NotificationException("Failed to process notification", e);
         }
+        
+        // Failed attempts are re-run from the retry timer, never by sleeping on this thread
+        attemptDelivery(notification, startTime);
+    }
+
+    @Override
+    public CompletableFuture<Void> deliverNotification(Notification notification) {
+        log.info("Delivering notification with id: {}", notification.getId());
+        return attemptDelivery(notification, System.currentTimeMillis());
+    }
+
+    /**
+     * Deliver a notification, re-attempting failures through the {@link DeliveryRetryScheduler}. Once its
+     * attempts are used up the notification is marked FAILED and left to the retry task.
+     *
+     * @return Completes once the final status has been recorded
+     */
+    private CompletableFuture<Void> attemptDelivery(Notification notification, long startTime) {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        attempt(notification, 1, false, startTime, outcome);
+        return outcome;
+    }
+
+    private void attempt(Notification notification, int attempt, boolean pushed, long startTime, CompletableFuture<Void> outcome) {
+        boolean webSocketDone = pushed;
+        CompletableFuture<Void> delivered;
+        try {
+            // A re-attempt after a webhook failure does not push over WebSocket a second time
+            if (!webSocketDone) {
+                long pushStart = System.nanoTime();
+                messagingTemplate.convertAndSendToUser(
+                    notification.getRecipient(),
+                    "/queue/notifications",
+                    notification.getPayload()
+                );
+                notificationMetrics.recordStage(Stage.PUSH, System.nanoTime() - pushStart);
+                webSocketDone = true;
+            }
+            delivered = StringUtils.hasText(notification.getTargetUrl())
+                    ? sendWebhookAfterCommit(notification)
+                    : CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            delivered = CompletableFuture.failedFuture(e);
+        }
+        
+        boolean pushedBefore = webSocketDone;
+        delivered.whenComplete((result, error) -> {
+            try {
+                if (error == null) {
+                    markDelivered(notification, startTime);
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    // Stored before the attempt is scheduled so that a quick success cannot be overwritten by it
+                    LocalDateTime leaseUntil = deliveryRetryScheduler.leaseUntil(attempt);
+                    if (leaseUntil != null) {
+                        markRetrying(notification, leaseUntil);
+                    }
+                    if (deliveryRetryScheduler.schedule(notification.getRecipient(), attempt,
+                            () -> attempt(notification, attempt + 1, pushedBefore, startTime, outcome))) {
+                        log.warn("Delivery attempt {} of notification {} failed, retrying: {}", attempt, notification.getId(), cause.getMessage());
+                        return;
+                    }
+                    log.error("Error delivering notification {}: {}", notification.getId(), cause.getMessage());
+                    // Delivery fails after the breaker-guarded call has returned, so the failure is recorded on it here
+                    circuitBreakerRegistry.circuitBreaker(NOTIFICATION_SERVICE)
+                            .onError(System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS, cause);
+                    handleNotificationFailure(notification, cause instanceof Exception ex ? ex : new WebhookException(cause.getMessage(), cause));
+                }
+            } catch (Exception e) {
+                log.error("Failed to record delivery outcome of notification {}: {}", notification.getId(), e.getMessage());
+            }
+            outcome.complete(null);
+        });
+    }
+
+    // The webhook outcome is recorded from another thread, so it must not race the caller's pending writes
+    private CompletableFuture<Void> sendWebhookAfterCommit(Notification notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return webhookClient.send(notification);
+        }
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    sent.completeExceptionally(new WebhookException("Webhook not sent, transaction rolled back"));
+                    return;
+                }
+                webhookClient.send(notification).whenComplete((result, error) -> {
+                    if (error == null) {
+                        sent.complete(null);
+                    } else {
+                        sent.completeExceptionally(error);
+                    }
+                });
+            }
+        });
+        return sent;
+    }
+
+    // Leased like a claimed retry: if this process goes away before the re-attempts finish, the retry queue takes over
+    private void markRetrying(Notification notification, LocalDateTime leaseUntil) {
+        notificationStatusCounters.transition(notification.getStatus(), "RETRYING");
+        notification.setStatus("RETRYING");
+        notification.setNextAttemptAt(leaseUntil);
+        notificationStatusUpdater.record(notification);
+    }
+
+    private void markDelivered(Notification notification, long startTime) {
+        // Update notification status, written behind in bulk rather than as a second save
+        notificationStatusCounters.transition(notification.getStatus(), "DELIVERED");
+        notification.setStatus("DELIVERED");
+        notification.setProcessedAt(LocalDateTime.now());
+        notification.setNextAttemptAt(null);
+        long statusStart = System.nanoTime();
+        notificationStatusUpdater.record(notification);
+        notificationMetrics.recordStage(Stage.STATUS, System.nanoTime() - statusStart);
+        
+        // Record metrics
+        long processingTime = System.currentTimeMillis() - startTime;
+        notificationMetrics.recordNotificationProcessed(
+            notification.getType(),
+            notification.getStatus(),
+            processingTime,
+            notification.getPayload().length()
+        );
+        
+        log.info("Successfully processed notification with id: {}", notification.getId());
     }
 
     public void processNotificationFallback(Notification notification, Exception e) {
@@ -165,9 +483,17 @@ public class NotificationServiceImpl implements NotificationService {
                 notification.getId() != null ? notification.getId() : "new");
         
         try {
+            boolean isNew = notification.getId() == null;
+            String previous = isNew ? null : notification.getStatus();
             notification.setStatus("PENDING");
             notification.setErrorMessage("Service temporarily unavailable, will retry later");
-            notificationRepository.save(notification);
+            Notification saved = notificationRepository.save(notification);
+            writeThrough(saved);
+            if (isNew) {
+                long id = saved.getId();
+                afterCommit(() -> notificationIdFilter.add(id));
+            }
+            notificationStatusCounters.transition(previous, "PENDING");
             
             // Record metrics for fallback
             notificationMetrics.recordNotificationProcessed(
@@ -191,6 +517,7 @@ public class NotificationServiceImpl implements NotificationService {
                 long startTime = System.currentTimeMillis();
                 
                 notification.setRetryCount(notification.getRetryCount() + 1);
+                notificationStatusCounters.transition(notification.getStatus(), "RETRYING");
                 notification.setStatus("RETRYING");
                 saveNotification(notification);
                 processNotification(notification);
@@ -205,8 +532,10 @@ public class NotificationServiceImpl implements NotificationService {
                 );
             } else {
                 log.error("Max retry attempts reached for notification with id: {}", notification.getId());
+                notificationStatusCounters.transition(notification.getStatus(), "FAILED");
                 notification.setStatus("FAILED");
                 notification.setErrorMessage("Max retry attempts reached");
+                notification.setNextAttemptAt(null);
                 saveNotification(notification);
                 
                 // Record failure metrics
@@ -228,10 +557,21 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     private void handleNotificationFailure(Notification notification, Exception e) {
+        // A notification that was never stored is saved as a new PENDING one below
+        if (notification.getId() != null) {
+            notificationStatusCounters.transition(notification.getStatus(), "FAILED");
+        }
         notification.setStatus("FAILED");
         notification.setErrorMessage(e.getMessage());
         notification.setRetryCount(notification.getRetryCount() + 1);
-        saveNotification(notification);
+        notification.setNextAttemptAt(nextAttemptAfter(notification.getRetryCount()));
+        if (notification.getId() != null) {
+            long statusStart = System.nanoTime();
+            notificationStatusUpdater.record(notification);
+            notificationMetrics.recordStage(Stage.STATUS, System.nanoTime() - statusStart);
+        } else {
+            saveNotification(notification);
+        }
         
         // Record failure metrics
         notificationMetrics.recordNotificationProcessed(
@@ -242,23 +582,43 @@ public class NotificationServiceImpl implements NotificationService {
         );
     }
     
-    @Scheduled(fixedRate = 3600000) // Every hour
-    @CacheEvict(value = "notifications", allEntries = true)
-    public void clearCache() {
-        log.info("Clearing notifications cache");
+    // Exponential backoff from the attempt count; null once the notification is out of attempts
+    private LocalDateTime nextAttemptAfter(int retryCount) {
+        if (retryCount >= MAX_RETRIES) {
+            return null;
+        }
+        double delayMs = retryInitialBackoffMs * Math.pow(retryBackoffMultiplier, Math.max(0, retryCount - 1));
+        return LocalDateTime.now().plusNanos((long) Math.min(delayMs, retryMaxBackoffMs) * 1_000_000L);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<Notification> getNotificationsByRecipient(String recipient) {
+    public NotificationPage getNotificationsByRecipient(String recipient, String status, String cursor, Integer limit) {
         log.debug("Fetching notifications for recipient: {}", recipient);
-        return notificationRepository.findByRecipientOrderByCreatedAtDesc(recipient);
-    }
-    
-    @PostConstruct
-    public void initializeMetrics() {
-        // Set up a gauge for active notifications
-        notificationMetrics.initializeActiveNotificationsGauge(() -> 
-            notificationRepository.countByStatus("PENDING"));
+        int pageSize = limit == null ? inboxDefaultLimit : limit;
+        if (pageSize < 1 || pageSize > inboxMaxLimit) {
+            throw new NotificationException(String.format("Limit must be between 1 and %d", inboxMaxLimit));
+        }
+        
+        // Fetch one extra row to learn whether another page follows
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Notification> rows;
+        if (cursor == null) {
+            rows = status == null
+                    ? notificationRepository.findByRecipientOrderByCreatedAtDescIdDesc(recipient, fetch)
+                    : notificationRepository.findByRecipientAndStatusOrderByCreatedAtDescIdDesc(recipient, status, fetch);
+        } else {
+            InboxCursor after = InboxCursor.decode(cursor);
+            rows = status == null
+                    ? notificationRepository.findPageAfter(recipient, after.createdAt(), after.id(), fetch)
+                    : notificationRepository.findPageAfterWithStatus(recipient, status, after.createdAt(), after.id(), fetch);
+        }
+        
+        if (rows.size() <= pageSize) {
+            return new NotificationPage(rows, null);
+        }
+        List<Notification> items = rows.subList(0, pageSize);
+        Notification last = items.get(pageSize - 1);
+        return new NotificationPage(items, new InboxCursor(last.getCreatedAt(), last.getId()).encode());
     }
 } 
\ No newline at end of file
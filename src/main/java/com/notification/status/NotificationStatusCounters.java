@@ -0,0 +1,156 @@
+package com.notification.status;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of notifications in each status, kept in memory so that metric scrapes never touch the database.
+ *
+ * Every status change made on this node adjusts the counts as it happens. A background task replaces them
+ * with a {@code GROUP BY status} count every {@code reconcile-interval-ms}, which corrects whatever the local
+ * view misses: changes made by other nodes, rolled-back transactions and rows removed by the purge or by
+ * partition drops. Changes made while that query runs are carried over onto its result.
+ */
+@Slf4j
+@Component
+public class NotificationStatusCounters {
+
+    static final List<String> KNOWN_STATUSES = List.of("PENDING", "DELIVERED", "FAILED", "RETRYING");
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationMetrics notificationMetrics;
+    private final long reconcileIntervalMs;
+
+    private final ConcurrentHashMap<String, StatusCount> counts = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reconciler;
+
+    public NotificationStatusCounters(NotificationRepository notificationRepository,
+                                      NotificationMetrics notificationMetrics,
+                                      @Value("${notification.status.counts.reconcile-interval-ms:60000}") long reconcileIntervalMs) {
+        this.notificationRepository = notificationRepository;
+        this.notificationMetrics = notificationMetrics;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        KNOWN_STATUSES.forEach(this::count);
+        notificationMetrics.initializeActiveNotificationsGauge(() -> get("PENDING"));
+        reconciler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("notification-status-count-"));
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, 0, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Count {@code count} new notifications stored with {@code status}.
+     */
+    public void created(String status, long count) {
+        if (status != null && count > 0) {
+            count(status).delta.add(count);
+        }
+    }
+
+    /**
+     * Count one notification moving from {@code from} to {@code to}. A null {@code from} is a new notification.
+     */
+    public void transition(String from, String to) {
+        transition(from, to, 1);
+    }
+
+    /**
+     * Count {@code count} notifications moving from {@code from} to {@code to}.
+     */
+    public void transition(String from, String to, long count) {
+        if (count <= 0 || (from != null && from.equals(to))) {
+            return;
+        }
+        if (from != null) {
+            count(from).delta.add(-count);
+        }
+        if (to != null) {
+            count(to).delta.add(count);
+        }
+    }
+
+    /**
+     * @return Current number of notifications in {@code status}
+     */
+    public long get(String status) {
+        StatusCount count = counts.get(status);
+        return count != null ? count.value() : 0;
+    }
+
+    /**
+     * Replace the counts with the ones in the database, keeping changes recorded while the query ran.
+     */
+    public void reconcile() {
+        Map<String, Long> marks = new HashMap<>();
+        counts.forEach((status, count) -> marks.put(status, count.delta.sum()));
+
+        Map<String, Long> stored = new HashMap<>();
+        for (Object[] row : notificationRepository.countGroupedByStatus()) {
+            if (row[0] != null) {
+                stored.put((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+
+        stored.keySet().forEach(this::count);
+        counts.forEach((status, count) ->
+                count.base = new Base(stored.getOrDefault(status, 0L), marks.getOrDefault(status, 0L)));
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Could not reconcile notification status counts: {}", e.getMessage());
+        }
+    }
+
+    private StatusCount count(String status) {
+        StatusCount count = counts.get(status);
+        if (count != null) {
+            return count;
+        }
+        return counts.computeIfAbsent(status, s -> {
+            StatusCount created = new StatusCount();
+            notificationMetrics.initializeStatusCountGauge(s, created::value);
+            return created;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+    }
+
+    // Count stored at the last reconcile and the local delta total at the moment its query started
+    private record Base(long stored, long deltaMark) {
+    }
+
+    private static class StatusCount {
+
+        // Every local change ever recorded; only its growth since the last reconcile matters
+        private final LongAdder delta = new LongAdder();
+        private volatile Base base = new Base(0, 0);
+
+        private long value() {
+            Base current = base;
+            return current.stored() + delta.sum() - current.deltaMark();
+        }
+    }
+}
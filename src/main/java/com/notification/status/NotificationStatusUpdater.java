@@ -0,0 +1,271 @@
+package com.notification.status;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationBatchRepository;
+import com.notification.repository.NotificationBatchRepository.StatusRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind store for notification status transitions.
+ *
+ * Delivery outcomes are recorded in memory, coalesced per notification (the latest transition wins) and
+ * flushed as JDBC batches of {@code UPDATE ... WHERE id = ?} statements carrying each row's own values,
+ * either every {@code flush-interval-ms} or as soon as {@code flush-size} transitions are pending.
+ *
+ * {@code max-pending} bounds how many transitions can be lost if the process dies: once that many are
+ * pending, the recording thread flushes synchronously before returning. Setting it to 0 makes every
+ * transition write-through.
+ */
+@Slf4j
+@Component
+public class NotificationStatusUpdater {
+
+    private static final String NOTIFICATIONS_CACHE = "notifications";
+    private static final int MAX_ROWS_PER_BATCH = 1000;
+
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationMetrics notificationMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final long flushIntervalMs;
+    private final int flushSize;
+    private final int maxPending;
+
+    private final ConcurrentHashMap<Long, StatusUpdate> pending = new ConcurrentHashMap<>();
+    // Transitions taken by the flush currently in progress, keyed by id until it commits
+    private final ConcurrentHashMap<Long, StatusUpdate> inFlight = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ScheduledExecutorService flusher;
+
+    public NotificationStatusUpdater(NotificationBatchRepository notificationBatchRepository,
+                                     NotificationMetrics notificationMetrics,
+                                     PlatformTransactionManager transactionManager,
+                                     CacheManager cacheManager,
+                                     @Value("${notification.status.write-behind.flush-interval-ms:100}") long flushIntervalMs,
+                                     @Value("${notification.status.write-behind.flush-size:500}") int flushSize,
+                                     @Value("${notification.status.write-behind.max-pending:5000}") int maxPending) {
+        this.notificationBatchRepository = notificationBatchRepository;
+        this.notificationMetrics = notificationMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushSize = flushSize;
+        this.maxPending = maxPending;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("notification-status-flush-"));
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        notificationMetrics.initializeStatusPendingGauge(pending::size);
+    }
+
+    /**
+     * Record the current status of a persisted notification. If called inside a transaction the
+     * transition is only queued once that transaction commits, so it can never overtake the row's INSERT.
+     *
+     * @param notification The notification whose status, processedAt, errorMessage, retryCount and nextAttemptAt to store
+     */
+    public void record(Notification notification) {
+        StatusUpdate update = new StatusUpdate(
+                notification.getId(),
+                notification.getStatus(),
+                notification.getProcessedAt(),
+                notification.getErrorMessage(),
+                notification.getRetryCount() != null ? notification.getRetryCount() : 0,
+                notification.getNextAttemptAt(),
+                List.of());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    writeThrough(notification);
+                    enqueue(update);
+                }
+            });
+        } else {
+            writeThrough(notification);
+            enqueue(update);
+        }
+    }
+
+    /**
+     * Run a callback once the latest recorded transition for a notification is durable. Runs immediately
+     * if nothing is pending for the id.
+     *
+     * @param id The notification id
+     * @param callback Invoked on the flushing thread after the transition has committed
+     */
+    public void afterPersisted(long id, Runnable callback) {
+        if (pending.computeIfPresent(id, (key, update) -> update.withCallback(callback)) != null) {
+            return;
+        }
+        if (inFlight.computeIfPresent(id, (key, update) -> update.withCallback(callback)) != null) {
+            return;
+        }
+        callback.run();
+    }
+
+    private void enqueue(StatusUpdate update) {
+        // A newer transition replaces the pending one but inherits its callbacks
+        pending.merge(update.id(), update, (previous, latest) -> latest.withCallbacks(previous.callbacks()));
+
+        int size = pending.size();
+        if (size > maxPending) {
+            // Durability bound reached: apply back-pressure by flushing on the caller's thread
+            flush();
+        } else if (size >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Write all pending transitions to the database.
+     *
+     * @return Number of transitions written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            List<StatusUpdate> batch = drain();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+            } catch (RuntimeException e) {
+                // Put back whatever has not been superseded by a newer transition in the meantime
+                for (StatusUpdate update : batch) {
+                    StatusUpdate latest = inFlight.remove(update.id());
+                    pending.merge(update.id(), latest != null ? latest : update,
+                            (newer, failed) -> newer.withCallbacks(failed.callbacks()));
+                }
+                throw e;
+            }
+            notificationMetrics.recordStatusFlush(batch.size(), System.nanoTime() - start);
+            runCallbacks(batch);
+
+            log.debug("Flushed {} notification status transitions", batch.size());
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private List<StatusUpdate> drain() {
+        List<StatusUpdate> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, StatusUpdate> entry : pending.entrySet()) {
+            StatusUpdate update = entry.getValue();
+            inFlight.put(update.id(), update);
+            // Conditional remove keeps a transition recorded concurrently with the drain
+            if (pending.remove(entry.getKey(), update)) {
+                batch.add(update);
+            } else {
+                inFlight.remove(update.id(), update);
+            }
+        }
+        return batch;
+    }
+
+    private void runCallbacks(List<StatusUpdate> batch) {
+        for (StatusUpdate update : batch) {
+            StatusUpdate latest = inFlight.remove(update.id());
+            if (latest == null) {
+                continue;
+            }
+            for (Runnable callback : latest.callbacks()) {
+                try {
+                    callback.run();
+                } catch (Exception e) {
+                    log.error("Status flush callback failed for notification {}: {}", update.id(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<StatusUpdate> batch) {
+        List<StatusRow> rows = new ArrayList<>(batch.size());
+        for (StatusUpdate update : batch) {
+            rows.add(new StatusRow(update.id(), update.status(), update.processedAt(), update.errorMessage(),
+                    update.retryCount(), update.nextAttemptAt()));
+        }
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_BATCH) {
+            notificationBatchRepository.updateStatuses(rows.subList(from, Math.min(from + MAX_ROWS_PER_BATCH, rows.size())));
+        }
+    }
+
+    // Readers get the new status from the cache straight away, before the transition is flushed
+    private void writeThrough(Notification notification) {
+        Cache cache = cacheManager.getCache(NOTIFICATIONS_CACHE);
+        if (cache != null) {
+            cache.put(notification.getId(), notification);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush notification status transitions: {}", e.getMessage());
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flushQuietly();
+        if (!pending.isEmpty()) {
+            log.warn("{} notification status transitions could not be written on shutdown", pending.size());
+        }
+    }
+
+    private record StatusUpdate(long id, String status, LocalDateTime processedAt, String errorMessage, int retryCount,
+                                LocalDateTime nextAttemptAt, List<Runnable> callbacks) {
+
+        StatusUpdate withCallback(Runnable callback) {
+            return withCallbacks(List.of(callback));
+        }
+
+        StatusUpdate withCallbacks(List<Runnable> additional) {
+            if (additional.isEmpty()) {
+                return this;
+            }
+            List<Runnable> combined = new ArrayList<>(callbacks);
+            combined.addAll(additional);
+            return new StatusUpdate(id, status, processedAt, errorMessage, retryCount, nextAttemptAt, List.copyOf(combined));
+        }
+    }
+}
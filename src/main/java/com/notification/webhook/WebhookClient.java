@@ -0,0 +1,320 @@
+package com.notification.webhook;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.exception.WebhookException;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.Notification;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers notifications to their {@code targetUrl} as JSON POSTs without blocking the caller.
+ *
+ * Requests go through one shared {@link HttpClient}, which keeps connections alive and negotiates HTTP/2
+ * where the endpoint supports it. Each host gets at most {@code max-concurrency-per-host} requests in
+ * flight; further requests wait in that host's queue (bounded by {@code max-queued-per-host}) and are
+ * started as earlier ones complete, so a slow endpoint only delays its own deliveries.
+ *
+ * Target URLs come from clients, so per-host state is bounded: at most {@code max-hosts} hosts can have
+ * a lane at once, and lanes with nothing queued or in flight are evicted every {@code eviction-interval-ms}.
+ * Right before each request is sent its host is resolved, and the request is refused if any address is
+ * loopback, site-local, link-local (including cloud metadata at 169.254.169.254), wildcard, multicast or
+ * IPv6 unique-local, unless the host is listed in {@code allowed-hosts}. The client then connects through
+ * the JVM's DNS cache, so it reaches an address that was just checked as long as
+ * {@code networkaddress.cache.ttl} is not set to 0.
+ */
+@Slf4j
+@Component
+public class WebhookClient {
+
+    private final ObjectMapper objectMapper;
+    private final NotificationMetrics notificationMetrics;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final int maxConcurrencyPerHost;
+    private final int maxQueuedPerHost;
+    private final int maxHosts;
+    private final Set<String> allowedHosts;
+
+    private final ConcurrentHashMap<String, HostLane> hosts = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private ExecutorService executor;
+    private HttpClient httpClient;
+
+    public WebhookClient(ObjectMapper objectMapper,
+                         NotificationMetrics notificationMetrics,
+                         @Value("${notification.webhook.connect-timeout-ms:2000}") long connectTimeoutMs,
+                         @Value("${notification.webhook.request-timeout-ms:5000}") long requestTimeoutMs,
+                         @Value("${notification.webhook.max-concurrency-per-host:16}") int maxConcurrencyPerHost,
+                         @Value("${notification.webhook.max-queued-per-host:1000}") int maxQueuedPerHost,
+                         @Value("${notification.webhook.max-hosts:10000}") int maxHosts,
+                         @Value("${notification.webhook.allowed-hosts:}") List<String> allowedHosts) {
+        this.objectMapper = objectMapper;
+        this.notificationMetrics = notificationMetrics;
+        this.connectTimeout = Duration.ofMillis(connectTimeoutMs);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.maxQueuedPerHost = maxQueuedPerHost;
+        this.maxHosts = maxHosts;
+        this.allowedHosts = allowedHosts.stream()
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @PostConstruct
+    public void start() {
+        // Only runs response callbacks and connection housekeeping, never waits on a response
+        executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("notification-webhook-"));
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+        notificationMetrics.initializeWebhookInFlightGauge(inFlight::get);
+    }
+
+    /**
+     * POST a notification to its target URL.
+     *
+     * @return Completes normally on a 2xx response, exceptionally with {@link WebhookException} otherwise
+     */
+    public CompletableFuture<Void> send(Notification notification) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(notification.getTargetUrl()))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("X-Notification-Id", String.valueOf(notification.getId()))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body(notification)))
+                    .build();
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new WebhookException("Invalid webhook request: " + e.getMessage(), e));
+        }
+
+        String host = hostKey(request.uri());
+        // The lane is reserved under the map's lock, so eviction can never remove a lane a request is entering
+        HostLane lane = hosts.compute(host, (key, existing) -> {
+            if (existing == null && hosts.size() >= maxHosts) {
+                return null;
+            }
+            HostLane reserved = existing != null ? existing : new HostLane(key);
+            reserved.reservations.incrementAndGet();
+            return reserved;
+        });
+        if (lane == null) {
+            notificationMetrics.recordWebhookResult("rejected", 0);
+            return CompletableFuture.failedFuture(new WebhookException("Too many webhook hosts, not sending to " + host));
+        }
+        PendingRequest pending = new PendingRequest(request, new CompletableFuture<>());
+        if (!lane.submit(pending)) {
+            notificationMetrics.recordWebhookResult("rejected", 0);
+            return CompletableFuture.failedFuture(new WebhookException("Too many queued webhook requests for " + host));
+        }
+        return pending.result();
+    }
+
+    private byte[] body(Notification notification) throws JsonProcessingException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", notification.getId());
+        body.put("type", notification.getType());
+        body.put("recipient", notification.getRecipient());
+        body.put("payload", notification.getPayload());
+        body.put("createdAt", notification.getCreatedAt());
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    /**
+     * Refuse hosts that resolve to an address inside the network, so client supplied URLs cannot reach
+     * internal services.
+     *
+     * @throws WebhookException If the host cannot be resolved or any of its addresses is internal
+     */
+    private void checkTarget(URI uri) {
+        String host = uri.getHost();
+        if (allowedHosts.contains(host.toLowerCase(Locale.ROOT))) {
+            return;
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new WebhookException("Webhook host " + host + " cannot be resolved", e);
+        }
+        // Every address is checked because the client may connect to any of them
+        for (InetAddress address : addresses) {
+            if (isInternal(address)) {
+                throw new WebhookException("Webhook host " + host + " resolves to internal address " + address.getHostAddress());
+            }
+        }
+    }
+
+    private static boolean isInternal(InetAddress address) {
+        return address.isLoopbackAddress()
+                || address.isSiteLocalAddress()
+                || address.isLinkLocalAddress()
+                || address.isAnyLocalAddress()
+                || address.isMulticastAddress()
+                || (address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc);
+    }
+
+    private static String hostKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Drop the lanes of hosts with no request queued or in flight.
+     *
+     * @return Number of lanes evicted
+     */
+    @Scheduled(fixedDelayString = "${notification.webhook.eviction-interval-ms:60000}")
+    public int evictIdleHosts() {
+        int evicted = 0;
+        for (String host : hosts.keySet()) {
+            boolean[] removed = {false};
+            hosts.computeIfPresent(host, (key, lane) -> {
+                removed[0] = lane.reservations.get() == 0;
+                return removed[0] ? null : lane;
+            });
+            evicted += removed[0] ? 1 : 0;
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle webhook host lanes", evicted);
+        }
+        return evicted;
+    }
+
+    public int getHostCount() {
+        return hosts.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record PendingRequest(HttpRequest request, CompletableFuture<Void> result) {
+    }
+
+    /**
+     * Concurrency gate for one host. {@code active} counts requests in flight; requests beyond the limit
+     * wait in {@code queue} and are started by whichever request completes next. {@code reservations} counts
+     * requests from reservation until completion and keeps the lane from being evicted.
+     */
+    private final class HostLane {
+
+        private final String host;
+        private final Queue<PendingRequest> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger reservations = new AtomicInteger();
+
+        private HostLane(String host) {
+            this.host = host;
+        }
+
+        private boolean submit(PendingRequest pending) {
+            if (queued.incrementAndGet() > maxQueuedPerHost) {
+                queued.decrementAndGet();
+                reservations.decrementAndGet();
+                return false;
+            }
+            queue.offer(pending);
+            drain();
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                int current = active.get();
+                if (current >= maxConcurrencyPerHost) {
+                    return;
+                }
+                if (!active.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                PendingRequest next = queue.poll();
+                if (next == null) {
+                    active.decrementAndGet();
+                    // An offer may have slipped in between the poll and the decrement
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                queued.decrementAndGet();
+                start(next);
+            }
+        }
+
+        private void start(PendingRequest pending) {
+            long startNanos = System.nanoTime();
+            inFlight.incrementAndGet();
+            // Resolved off the caller's thread, after any time spent queued
+            CompletableFuture<HttpResponse<Void>> response = CompletableFuture
+                    .runAsync(() -> checkTarget(pending.request().uri()), executor)
+                    .thenCompose(checked -> httpClient.sendAsync(pending.request(), HttpResponse.BodyHandlers.discarding()));
+            response.whenComplete((result, error) -> {
+                inFlight.decrementAndGet();
+                active.decrementAndGet();
+                // Released before the caller hears back, so a lane is idle as soon as its last result is out
+                reservations.decrementAndGet();
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                complete(pending, result, cause, System.nanoTime() - startNanos);
+                drain();
+            });
+        }
+
+        private void complete(PendingRequest pending, HttpResponse<Void> response, Throwable error, long elapsedNanos) {
+            if (error instanceof WebhookException) {
+                notificationMetrics.recordWebhookResult("blocked", elapsedNanos);
+                log.debug("Webhook to {} refused: {}", host, error.getMessage());
+                pending.result().completeExceptionally(error);
+            } else if (error != null) {
+                notificationMetrics.recordWebhookResult("error", elapsedNanos);
+                log.debug("Webhook to {} failed: {}", host, error.getMessage());
+                pending.result().completeExceptionally(new WebhookException("Webhook request failed: " + error.getMessage(), error));
+            } else if (response.statusCode() / 100 == 2) {
+                notificationMetrics.recordWebhookResult("success", elapsedNanos);
+                pending.result().complete(null);
+            } else {
+                notificationMetrics.recordWebhookResult("http_" + response.statusCode() / 100 + "xx", elapsedNanos);
+                pending.result().completeExceptionally(new WebhookException("Webhook returned HTTP " + response.statusCode()));
+            }
+        }
+    }
+}
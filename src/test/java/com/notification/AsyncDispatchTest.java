@@ -0,0 +1,112 @@
+package com.notification;
+
+import com.notification.dispatch.NotificationDispatcher;
+import com.notification.dispatch.StripedDispatchExecutor;
+import com.notification.exception.DispatchRejectedException;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.AuthRequest;
+import com.notification.model.AuthResponse;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationRepository;
+import com.notification.service.NotificationService;
+import com.notification.status.NotificationStatusCounters;
+import com.notification.status.NotificationStatusUpdater;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "notification.dispatch.mode=async")
+class AsyncDispatchTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void testCreateNotificationIsAcceptedAndDeliveredAsynchronously() throws InterruptedException {
+        ResponseEntity<AuthResponse> auth = restTemplate.postForEntity(
+                "/api/authenticate",
+                new AuthRequest("user", "password"),
+                AuthResponse.class
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(auth.getBody().getToken());
+
+        Notification notification = new Notification();
+        notification.setType("TEST");
+        notification.setRecipient("user");
+        notification.setPayload("Async notification");
+
+        ResponseEntity<Notification> response = restTemplate.exchange(
+                "/api/notifications",
+                HttpMethod.POST,
+                new HttpEntity<>(notification, headers),
+                Notification.class
+        );
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        Long id = response.getBody().getId();
+        assertNotNull(id);
+
+        // Delivery happens on a dispatch worker, so poll until the status flips
+        String status = null;
+        for (int i = 0; i < 50 && !"DELIVERED".equals(status); i++) {
+            status = notificationRepository.findById(id).map(Notification::getStatus).orElse(null);
+            Thread.sleep(100);
+        }
+        assertEquals("DELIVERED", status);
+    }
+
+    @Test
+    void testSubmitIsRejectedWhenQueueIsFull() throws InterruptedException {
+        NotificationService notificationService = Mockito.mock(NotificationService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(notificationService.saveNotification(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return CompletableFuture.completedFuture(null);
+        }).when(notificationService).deliverNotification(any());
+
+        StripedDispatchExecutor executor = new StripedDispatchExecutor("test-dispatch-", 1);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(
+                notificationService, new NotificationMetrics(new SimpleMeterRegistry()),
+                Mockito.mock(NotificationStatusUpdater.class), Mockito.mock(NotificationStatusCounters.class),
+                null, executor, "async", 1, 4.0, 100);
+        dispatcher.start();
+        try {
+            // One notification in flight on the single worker, one waiting in the queue
+            dispatcher.submit(newNotification());
+            dispatcher.submit(newNotification());
+
+            assertThrows(DispatchRejectedException.class, () -> dispatcher.submit(newNotification()));
+        } finally {
+            release.countDown();
+            executor.close();
+        }
+    }
+
+    private Notification newNotification() {
+        Notification notification = new Notification();
+        notification.setType("TEST");
+        notification.setRecipient("user");
+        notification.setPayload("Queued notification");
+        return notification;
+    }
+}
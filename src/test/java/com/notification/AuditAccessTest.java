@@ -0,0 +1,55 @@
+package com.notification;
+
+import com.notification.model.AuthRequest;
+import com.notification.model.AuthResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AuditAccessTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void testOtherUsersAuditTrailIsForbidden() {
+        HttpHeaders headers = authenticate("user", "password");
+
+        ResponseEntity<String> foreign = restTemplate.exchange("/api/audit?username=someone-else",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.FORBIDDEN, foreign.getStatusCode());
+
+        ResponseEntity<String> own = restTemplate.exchange("/api/audit?username=user",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, own.getStatusCode());
+    }
+
+    @Test
+    void testAuditorCanSearchOtherUsersAuditTrail() {
+        HttpHeaders headers = authenticate("auditor", "auditor");
+
+        ResponseEntity<String> foreign = restTemplate.exchange("/api/audit?username=user",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, foreign.getStatusCode());
+
+        ResponseEntity<String> all = restTemplate.exchange("/api/audit",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, all.getStatusCode());
+    }
+
+    private HttpHeaders authenticate(String username, String password) {
+        ResponseEntity<AuthResponse> auth = restTemplate.postForEntity(
+                "/api/authenticate",
+                new AuthRequest(username, password),
+                AuthResponse.class
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(auth.getBody().getToken());
+        return headers;
+    }
+}
@@ -0,0 +1,196 @@
+package com.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.audit.AuditEvent;
+import com.notification.audit.AuditLogger;
+import com.notification.audit.AuditPolicy;
+import com.notification.id.SnowflakeIdGenerator;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.AuditLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLoggerTest {
+
+    // Every action gets a full record
+    private static final AuditPolicy FULL_POLICY = new AuditPolicy("", "", 1, 60000);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuditLogger auditLogger;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (auditLogger != null) {
+            auditLogger.shutdown();
+        }
+    }
+
+    @Test
+    void testEventsFromManyThreadsAreWrittenInBatches() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:auditlogtest;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS notification_audit_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "event_id VARCHAR(50) NOT NULL, username VARCHAR(255) NOT NULL, action VARCHAR(50) NOT NULL, "
+                + "target_type VARCHAR(50) NOT NULL, target_id VARCHAR(50) NOT NULL, details VARCHAR(1000), "
+                + "\"TIMESTAMP\" TIMESTAMP NOT NULL)");
+        jdbcTemplate.update("DELETE FROM notification_audit_log");
+        // A small buffer with the blocking policy makes producers wait on the writer instead of losing events
+        auditLogger = auditLogger(new AuditLogRepository(jdbcTemplate), 64, "block", FULL_POLICY);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    auditLogger.logNotificationAction("CREATE", (long) (thread * 1000 + i), Map.of("thread", thread));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        awaitLag(0);
+
+        assertEquals(4000, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_audit_log", Integer.class));
+        assertEquals(4000, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT event_id) FROM notification_audit_log", Integer.class));
+        assertEquals(4000, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT target_id) FROM notification_audit_log", Integer.class));
+        assertEquals("{\"thread\":3}", jdbcTemplate.queryForObject(
+                "SELECT details FROM notification_audit_log WHERE target_id = '3007'", String.class));
+        assertEquals(0.0, meterRegistry.get("notification.audit.dropped").counter().count());
+        assertTrue(meterRegistry.get("notification.audit.batch.size").summary().count() < 4000);
+    }
+
+    @Test
+    void testFullBufferDropsAndCountsEvents() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger written = new AtomicInteger();
+        AuditLogRepository blockingRepository = new AuditLogRepository(null) {
+            @Override
+            public void insertAll(List<AuditEvent> events) {
+                writing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.addAndGet(events.size());
+            }
+        };
+        auditLogger = auditLogger(blockingRepository, 4, "drop", FULL_POLICY);
+
+        // The writer takes the first event and stalls on it, still holding its slot
+        auditLogger.logSystemEvent("START", "test", null);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            auditLogger.logSystemEvent("OVERFLOW", "test", null);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000, "callers waited for a full buffer");
+        assertEquals(7.0, meterRegistry.get("notification.audit.dropped").counter().count());
+
+        release.countDown();
+        awaitLag(0);
+        assertEquals(4, written.get());
+    }
+
+    @Test
+    void testAggregatedReadsKeepExactTotals() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        auditLogger = auditLogger(repository, 256, "block", new AuditPolicy("READ", "", 1, 50));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            String user = "reader-" + (t % 2);
+            executor.execute(() -> {
+                SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, null));
+                for (int i = 0; i < 5000; i++) {
+                    auditLogger.logNotificationAction("READ", (long) i, Map.of("recipient", "someone"));
+                    if (i % 500 == 0) {
+                        auditLogger.logNotificationAction("CREATE", (long) i, Map.of("recipient", "someone"));
+                    }
+                }
+                SecurityContextHolder.clearContext();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        // Shutting down writes the last, partial window
+        auditLogger.shutdown();
+
+        // Every create keeps its own record, reads are condensed into a few counts per user and window
+        assertEquals(40, repository.records.stream().filter(r -> r.action().equals("CREATE")).count());
+        List<Recorded> reads = repository.records.stream().filter(r -> r.action().equals("READ")).toList();
+        assertTrue(reads.size() < 200, "reads were not aggregated: " + reads.size());
+        assertTrue(reads.stream().allMatch(r -> r.targetId().equals("*")));
+        assertEquals(10000L, reads.stream().filter(r -> r.username().equals("reader-0")).mapToLong(Recorded::count).sum());
+        assertEquals(10000L, reads.stream().filter(r -> r.username().equals("reader-1")).mapToLong(Recorded::count).sum());
+        assertEquals(20000.0, meterRegistry.get("notification.audit.aggregated").counter().count());
+    }
+
+    @Test
+    void testSampledActionsRecordEveryNthEventWithItsWeight() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        auditLogger = auditLogger(repository, 256, "block", new AuditPolicy("", "read", 100, 60000));
+
+        for (int i = 0; i < 1000; i++) {
+            auditLogger.logNotificationAction("READ", (long) i, null);
+        }
+        auditLogger.shutdown();
+
+        assertEquals(10, repository.records.size());
+        assertTrue(repository.records.stream().allMatch(r -> r.count() == 100));
+    }
+
+    private AuditLogger auditLogger(AuditLogRepository repository, int bufferSize, String overflow, AuditPolicy policy) {
+        AuditLogger logger = new AuditLogger(new ObjectMapper(), new SnowflakeIdGenerator(1, 5000), repository,
+                new NotificationMetrics(meterRegistry), policy, true, false, true, bufferSize, 16, overflow);
+        logger.start();
+        return logger;
+    }
+
+    private record Recorded(String username, String action, String targetId, long count) {
+    }
+
+    // Copies what it is handed, since the writer reuses event slots
+    private static class RecordingRepository extends AuditLogRepository {
+
+        final List<Recorded> records = new CopyOnWriteArrayList<>();
+
+        RecordingRepository() {
+            super(null);
+        }
+
+        @Override
+        public void insertAll(List<AuditEvent> events) {
+            for (AuditEvent event : events) {
+                Map<String, Object> details = event.getDetails();
+                Object count = details == null ? null : details.getOrDefault("count", details.get("sampleWeight"));
+                records.add(new Recorded(event.getUsername(), event.getAction(), event.getTargetId(),
+                        count != null ? ((Number) count).longValue() : 1));
+            }
+        }
+    }
+
+    private void awaitLag(long expected) throws InterruptedException {
+        for (int i = 0; i < 500 && auditLogger.getLag() != expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, auditLogger.getLag());
+    }
+}
@@ -0,0 +1,118 @@
+package com.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.notification.exception.NotificationException;
+import com.notification.repository.AuditLogRepository;
+import com.notification.repository.AuditLogRepository.Filter;
+import com.notification.service.AuditSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSearchTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    // Configured like Spring Boot's mapper, which writes dates as ISO strings
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private AuditSearchService auditSearchService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:auditsearchtest;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS notification_audit_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "event_id VARCHAR(50) NOT NULL, username VARCHAR(255) NOT NULL, action VARCHAR(50) NOT NULL, "
+                + "target_type VARCHAR(50) NOT NULL, target_id VARCHAR(50) NOT NULL, details VARCHAR(1000), "
+                + "\"TIMESTAMP\" TIMESTAMP NOT NULL)");
+        jdbcTemplate.update("DELETE FROM notification_audit_log");
+        // 90 entries for three users, three per minute, so entries share timestamps and ties fall back to the id
+        for (int i = 0; i < 90; i++) {
+            jdbcTemplate.update("INSERT INTO notification_audit_log (event_id, username, action, target_type, target_id, details, timestamp) "
+                            + "VALUES (?, ?, ?, 'NOTIFICATION', ?, ?, ?)",
+                    "event-" + i, "user-" + (i % 3), i % 2 == 0 ? "CREATE" : "DELETE", Integer.toString(i),
+                    "{\"n\":" + i + "}", Timestamp.valueOf(START.plusMinutes(i / 3)));
+        }
+        auditSearchService = new AuditSearchService(new AuditLogRepository(jdbcTemplate),
+                new DataSourceTransactionManager(dataSource), objectMapper, 10, 50);
+    }
+
+    @Test
+    void testSearchIsWalkedNewestFirstWithCursors() throws Exception {
+        Filter filter = new Filter("user-1", null, null, null, null, null);
+        List<JsonNode> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonNode page = page(filter, cursor, 7);
+            assertTrue(page.get("items").size() <= 7);
+            page.get("items").forEach(seen::add);
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertEquals(30, seen.size());
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < seen.size(); i++) {
+            JsonNode entry = seen.get(i);
+            assertEquals("user-1", entry.get("username").asText());
+            assertTrue(ids.add(entry.get("id").asLong()), "duplicate across pages");
+            // details is written as the stored JSON document, not as a string
+            assertTrue(entry.get("details").isObject());
+            if (i > 0) {
+                JsonNode previous = seen.get(i - 1);
+                int byTime = LocalDateTime.parse(previous.get("timestamp").asText())
+                        .compareTo(LocalDateTime.parse(entry.get("timestamp").asText()));
+                assertTrue(byTime > 0 || (byTime == 0 && previous.get("id").asLong() > entry.get("id").asLong()), "not newest first");
+            }
+        }
+    }
+
+    @Test
+    void testFiltersCombine() throws Exception {
+        // Minutes 10 to 19 hold entries 30 to 59, of which user-0 has the even ones and so only CREATE
+        Filter filter = new Filter("user-0", "CREATE", "NOTIFICATION", null, START.plusMinutes(10), START.plusMinutes(20));
+        JsonNode page = page(filter, null, 50);
+
+        assertEquals(5, page.get("items").size());
+        assertTrue(page.get("nextCursor").isNull());
+        page.get("items").forEach(entry -> {
+            int n = entry.get("details").get("n").asInt();
+            assertTrue(n >= 30 && n < 60 && n % 6 == 0, "unexpected entry " + n);
+        });
+
+        JsonNode single = page(new Filter(null, null, null, "42", null, null), null, null);
+        assertEquals(1, single.get("items").size());
+        assertEquals("event-42", single.get("items").get(0).get("eventId").asText());
+    }
+
+    @Test
+    void testInvalidSearchesFailBeforeStreaming() {
+        Filter all = new Filter(null, null, null, null, null, null);
+        assertThrows(NotificationException.class, () -> auditSearchService.search(all, null, 0));
+        assertThrows(NotificationException.class, () -> auditSearchService.search(all, null, 51));
+        assertThrows(NotificationException.class, () -> auditSearchService.search(all, "not-a-cursor", null));
+        assertThrows(NotificationException.class, () -> auditSearchService.search(
+                new Filter(null, null, null, null, START, START), null, null));
+    }
+
+    private JsonNode page(Filter filter, String cursor, Integer limit) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        auditSearchService.search(filter, cursor, limit).writeTo(out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+}
@@ -0,0 +1,95 @@
+package com.notification;
+
+import com.notification.model.AuthRequest;
+import com.notification.model.AuthResponse;
+import com.notification.model.BatchResult;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BatchIngestionTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private HttpHeaders headers;
+
+    @BeforeEach
+    void setup() {
+        ResponseEntity<AuthResponse> response = restTemplate.postForEntity(
+                "/api/authenticate",
+                new AuthRequest("user", "password"),
+                AuthResponse.class
+        );
+        headers = new HttpHeaders();
+        headers.setBearerAuth(response.getBody().getToken());
+    }
+
+    @Test
+    void testBatchPersistsValidItemsAndReportsErrors() {
+        List<Notification> batch = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            batch.add(newNotification("batch-user", "Batch message " + i));
+        }
+        batch.add(newNotification("batch-user", null));
+
+        ResponseEntity<BatchResult> response = restTemplate.exchange(
+                "/api/notifications/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(batch, headers),
+                BatchResult.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        BatchResult result = response.getBody();
+        assertNotNull(result);
+        assertEquals(250, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(251, result.getItems().size());
+
+        BatchResult.Item invalid = result.getItems().get(250);
+        assertNull(invalid.getId());
+        assertNotNull(invalid.getError());
+
+        BatchResult.Item first = result.getItems().get(0);
+        assertNull(first.getError());
+        Notification stored = notificationRepository.findById(first.getId()).orElse(null);
+        assertNotNull(stored);
+        assertEquals("Batch message 0", stored.getPayload());
+        assertEquals("PENDING", stored.getStatus());
+    }
+
+    @Test
+    void testEmptyBatchIsRejected() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/api/notifications/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(List.of(), headers),
+                String.class
+        );
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private Notification newNotification(String recipient, String payload) {
+        Notification notification = new Notification();
+        notification.setType("BATCH");
+        notification.setRecipient(recipient);
+        notification.setPayload(payload);
+        return notification;
+    }
+}
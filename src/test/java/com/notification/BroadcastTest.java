@@ -0,0 +1,111 @@
+package com.notification;
+
+import com.notification.model.AuthRequest;
+import com.notification.model.AuthResponse;
+import com.notification.model.Broadcast;
+import com.notification.model.BroadcastRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "notification.broadcast.chunk-size=1000")
+class BroadcastTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private HttpHeaders headers;
+
+    @BeforeEach
+    void authenticate() {
+        ResponseEntity<AuthResponse> auth = restTemplate.postForEntity(
+                "/api/authenticate",
+                new AuthRequest("user", "password"),
+                AuthResponse.class
+        );
+        headers = new HttpHeaders();
+        headers.setBearerAuth(auth.getBody().getToken());
+    }
+
+    @Test
+    void testBroadcastFansOutToEveryRecipientInChunks() throws InterruptedException {
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            recipients.add("broadcast-user-" + i);
+        }
+        // Duplicates are delivered once
+        recipients.add("broadcast-user-0");
+
+        ResponseEntity<Broadcast> response = restTemplate.exchange(
+                "/api/notifications/broadcast",
+                HttpMethod.POST,
+                new HttpEntity<>(new BroadcastRequest("ANNOUNCEMENT", "Hello everyone", recipients, null), headers),
+                Broadcast.class
+        );
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        Long id = response.getBody().getId();
+        assertNotNull(id);
+        assertEquals(2500, response.getBody().getRecipientCount());
+
+        Broadcast broadcast = response.getBody();
+        for (int i = 0; i < 100 && !"COMPLETED".equals(broadcast.getStatus()); i++) {
+            Thread.sleep(100);
+            broadcast = restTemplate.exchange("/api/notifications/broadcast/" + id, HttpMethod.GET,
+                    new HttpEntity<>(headers), Broadcast.class).getBody();
+        }
+
+        assertEquals("COMPLETED", broadcast.getStatus());
+        assertEquals(2500, broadcast.getDeliveredCount());
+        assertEquals(0, broadcast.getFailedCount());
+        assertEquals(2500, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM broadcast_deliveries WHERE broadcast_id = ? AND status = 'DELIVERED'",
+                Integer.class, id));
+    }
+
+    @Test
+    void testTopicBroadcastIsPublishedOnceAndInvalidRequestsAreRejected() {
+        ResponseEntity<Broadcast> response = restTemplate.exchange(
+                "/api/notifications/broadcast",
+                HttpMethod.POST,
+                new HttpEntity<>(new BroadcastRequest("ANNOUNCEMENT", "Maintenance tonight", null, "maintenance"), headers),
+                Broadcast.class
+        );
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("COMPLETED", response.getBody().getStatus());
+        assertEquals("maintenance", response.getBody().getTopic());
+
+        ResponseEntity<String> both = restTemplate.exchange(
+                "/api/notifications/broadcast",
+                HttpMethod.POST,
+                new HttpEntity<>(new BroadcastRequest("ANNOUNCEMENT", "Hi", List.of("user"), "maintenance"), headers),
+                String.class
+        );
+        assertEquals(HttpStatus.BAD_REQUEST, both.getStatusCode());
+
+        // Payloads are not limited to a short column
+        String longPayload = "x".repeat(5000);
+        ResponseEntity<Broadcast> large = restTemplate.exchange(
+                "/api/notifications/broadcast",
+                HttpMethod.POST,
+                new HttpEntity<>(new BroadcastRequest("ANNOUNCEMENT", longPayload, null, "maintenance"), headers),
+                Broadcast.class
+        );
+        assertEquals(HttpStatus.ACCEPTED, large.getStatusCode());
+        assertEquals(longPayload, large.getBody().getPayload());
+    }
+}
@@ -3,16 +3,22 @@ package com.notification;
 import com.notification.model.Notification;
 import com.notification.repository.NotificationRepository;
 import com.notification.service.NotificationService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -24,6 +30,17 @@ class CircuitBreakerTest {
     @MockBean
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void closeCircuitBreaker() {
+        circuitBreakerRegistry.circuitBreaker("notificationService").reset();
+    }
+
     @Test
     void testCircuitBreakerFallback() {
         // Configure mock to throw exception
@@ -63,4 +80,54 @@ class CircuitBreakerTest {
         assertEquals("PENDING", notification.getStatus());
         assertEquals("user1", notification.getRecipient());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testFallbackIsNotCachedOnceTheDatabaseRecovers() {
+        when(notificationRepository.findById(2L))
+            .thenThrow(new RuntimeException("Database connection failed"));
+        assertEquals("FALLBACK", notificationService.getNotification(2L).getStatus());
+
+        Mockito.reset(notificationRepository);
+        when(notificationRepository.findById(2L)).thenReturn(Optional.of(notification(2L)));
+
+        Notification notification = notificationService.getNotification(2L);
+        assertEquals("TEST", notification.getType());
+        assertNull(notification.getStaleAsOf());
+    }
+
+    @Test
+    void testOpenCircuitBreakerServesCachedAndLastKnownCopies() {
+        when(notificationRepository.findById(3L)).thenReturn(Optional.of(notification(3L)));
+        when(notificationRepository.findById(4L)).thenReturn(Optional.of(notification(4L)));
+        notificationService.getNotification(3L);
+        notificationService.getNotification(4L);
+        // Id 4 expires from the in-process tier but is still known
+        ((com.github.benmanes.caffeine.cache.Cache<String, ?>) cacheManager.getCache("notifications").getNativeCache()).invalidate("4");
+
+        circuitBreakerRegistry.circuitBreaker("notificationService").transitionToOpenState();
+
+        Notification cached = notificationService.getNotification(3L);
+        assertEquals("TEST", cached.getType());
+        assertNull(cached.getStaleAsOf());
+
+        Notification stale = notificationService.getNotification(4L);
+        assertEquals("TEST", stale.getType());
+        assertEquals(4L, stale.getId());
+        assertNotNull(stale.getStaleAsOf());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker("notificationService").getState());
+        verify(notificationRepository, times(1)).findById(4L);
+
+        // Nothing is known about id 5, so only the placeholder is left
+        assertEquals("FALLBACK", notificationService.getNotification(5L).getStatus());
+    }
+
+    private static Notification notification(Long id) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setType("TEST");
+        notification.setRecipient("user1");
+        notification.setPayload("Test notification");
+        notification.setStatus("PENDING");
+        return notification;
+    }
+}
@@ -0,0 +1,87 @@
+package com.notification;
+
+import com.notification.exception.DispatchRejectedException;
+import com.notification.exception.NotificationException;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationRepository;
+import com.notification.service.GroupCommitWriter;
+import com.notification.service.NotificationService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "notification.group-commit.enabled=true",
+        "notification.group-commit.max-wait-micros=20000"
+})
+class GroupCommitTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testConcurrentSavesShareGroupCommits() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Callable<Notification>> saves = IntStream.range(0, 64)
+                .mapToObj(i -> (Callable<Notification>) () -> notificationService.saveNotification(newNotification(i)))
+                .toList();
+
+        List<Future<Notification>> results = executor.invokeAll(saves);
+        executor.shutdown();
+
+        for (Future<Notification> result : results) {
+            Notification saved = result.get();
+            assertNotNull(saved.getId());
+            Notification stored = notificationRepository.findById(saved.getId()).orElseThrow();
+            assertEquals(saved.getPayload(), stored.getPayload());
+            assertEquals("PENDING", stored.getStatus());
+        }
+
+        DistributionSummary groups = meterRegistry.get("notification.groupcommit.size").summary();
+        assertEquals(64, groups.totalAmount());
+        assertTrue(groups.count() < 64, "expected concurrent saves to share commits");
+    }
+
+    @Test
+    void testTimedOutWriteIsWithdrawnAndFullQueueRejects() throws Exception {
+        // Never started, so nothing takes writes off its queue of one
+        GroupCommitWriter writer = new GroupCommitWriter(null, null, null, true, 2000, 256, 1, 300, 1);
+
+        assertThrows(NotificationException.class, () -> writer.write(newNotification(0)));
+
+        // The timed out write left the queue, so the next one is accepted, and a third finds the queue full
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> waiting = executor.submit(() -> writer.write(newNotification(1)));
+        Thread.sleep(100);
+        assertThrows(DispatchRejectedException.class, () -> writer.write(newNotification(2)));
+        ExecutionException timedOut = assertThrows(ExecutionException.class, waiting::get);
+        assertInstanceOf(NotificationException.class, timedOut.getCause());
+        executor.shutdown();
+    }
+
+    private Notification newNotification(int i) {
+        Notification notification = new Notification();
+        notification.setType("TEST");
+        notification.setRecipient("group-user");
+        notification.setPayload("Group commit " + i);
+        return notification;
+    }
+}
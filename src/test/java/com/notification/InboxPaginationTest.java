@@ -0,0 +1,102 @@
+package com.notification;
+
+import com.notification.model.AuthRequest;
+import com.notification.model.AuthResponse;
+import com.notification.model.BatchResult;
+import com.notification.model.Notification;
+import com.notification.model.NotificationPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class InboxPaginationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testInboxIsWalkedNewestFirstWithCursors() {
+        HttpHeaders headers = authenticate();
+        String recipient = "user";
+
+        // A batch shares one created_at, so ordering within it falls back to the id
+        List<Notification> batch = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Notification notification = new Notification();
+            notification.setType("INBOX");
+            notification.setRecipient(recipient);
+            notification.setPayload("Inbox message " + i);
+            batch.add(notification);
+        }
+        restTemplate.exchange("/api/notifications/batch", HttpMethod.POST,
+                new HttpEntity<>(batch, headers), BatchResult.class);
+        jdbcTemplate.update("UPDATE notifications SET status = 'DELIVERED' WHERE recipient = ? AND payload IN (?, ?, ?)",
+                recipient, "Inbox message 3", "Inbox message 13", "Inbox message 23");
+        int total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications WHERE recipient = ?", Integer.class, recipient);
+
+        List<Notification> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            String url = "/api/notifications/recipient/" + recipient + "?limit=10" + (cursor != null ? "&cursor=" + cursor : "");
+            NotificationPage page = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), NotificationPage.class).getBody();
+            assertTrue(page.getItems().size() <= 10);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(total, seen.size());
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < seen.size(); i++) {
+            assertTrue(ids.add(seen.get(i).getId()), "duplicate across pages");
+            if (i > 0) {
+                Notification previous = seen.get(i - 1);
+                Notification current = seen.get(i);
+                int byTime = previous.getCreatedAt().compareTo(current.getCreatedAt());
+                assertTrue(byTime > 0 || (byTime == 0 && previous.getId() > current.getId()), "not newest first");
+            }
+        }
+
+        NotificationPage delivered = restTemplate.exchange("/api/notifications/recipient/" + recipient + "?status=DELIVERED&limit=2",
+                HttpMethod.GET, new HttpEntity<>(headers), NotificationPage.class).getBody();
+        assertEquals(2, delivered.getItems().size());
+        assertNotNull(delivered.getNextCursor());
+        delivered.getItems().forEach(n -> assertEquals("DELIVERED", n.getStatus()));
+
+        ResponseEntity<String> badCursor = restTemplate.exchange("/api/notifications/recipient/" + recipient + "?cursor=not-a-cursor",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+    }
+
+    @Test
+    void testInboxIndexExists() {
+        Integer indexes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(INDEX_NAME) = 'IDX_NOTIFICATIONS_RECIPIENT_CREATED'",
+                Integer.class);
+        assertEquals(1, indexes);
+    }
+
+    private HttpHeaders authenticate() {
+        ResponseEntity<AuthResponse> auth = restTemplate.postForEntity(
+                "/api/authenticate",
+                new AuthRequest("user", "password"),
+                AuthResponse.class
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(auth.getBody().getToken());
+        return headers;
+    }
+}
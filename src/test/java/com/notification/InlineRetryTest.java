@@ -0,0 +1,163 @@
+package com.notification;
+
+import com.notification.dispatch.DeliveryRetryScheduler;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationRepository;
+import com.notification.service.NotificationService;
+import com.notification.status.NotificationStatusUpdater;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "notification.webhook.allowed-hosts=127.0.0.1",
+        "notification.retry.inline.max-attempts=3",
+        "notification.retry.inline.initial-delay-ms=300"
+})
+class InlineRetryTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private DeliveryRetryScheduler deliveryRetryScheduler;
+
+    @Autowired
+    private NotificationStatusUpdater notificationStatusUpdater;
+
+    @SpyBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    private HttpServer stub;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failFirst;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/hook", exchange -> {
+            try (exchange) {
+                int status = requests.incrementAndGet() <= failFirst ? 503 : 204;
+                exchange.sendResponseHeaders(status, -1);
+            }
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop(0);
+    }
+
+    @Test
+    void testFailedAttemptsAreRetriedWithBackoff() throws Exception {
+        failFirst = 2;
+        Notification notification = save("inline-retry-user");
+
+        long start = System.nanoTime();
+        notificationService.deliverNotification(notification).get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("DELIVERED", notification.getStatus());
+        assertEquals(0, notification.getRetryCount());
+        assertEquals(3, requests.get());
+        // Backoff of 300 ms after the first failure and 600 ms after the second
+        assertTrue(elapsedMs >= 900, "attempts were not backed off: " + elapsedMs + " ms");
+        // Only the webhook is re-attempted, the WebSocket push went out once
+        verify(messagingTemplate, times(1)).convertAndSendToUser(eq("inline-retry-user"), eq("/queue/notifications"), any());
+    }
+
+    @Test
+    void testCallerReturnsWhileRetriesAreScheduled() throws Exception {
+        // The first delivery of a fresh context is slow on its own; keep it out of the measured call
+        notificationService.deliverNotification(save("inline-retry-warmup")).get(10, TimeUnit.SECONDS);
+        requests.set(0);
+        failFirst = Integer.MAX_VALUE;
+        Notification notification = new Notification();
+        notification.setType("WEBHOOK");
+        notification.setRecipient("inline-retry-caller");
+        notification.setPayload("Inline retry notification");
+        notification.setTargetUrl(targetUrl());
+
+        long start = System.nanoTime();
+        notificationService.processNotification(notification);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 300,
+                "the calling thread waited for a retry");
+
+        // The first attempt fails quickly and its re-attempt waits on the timer, not on a thread
+        for (int i = 0; i < 50 && deliveryRetryScheduler.getScheduledCount() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(deliveryRetryScheduler.getScheduledCount() > 0);
+
+        // Once all attempts have failed the notification is handed to the retry task
+        for (int i = 0; i < 50 && requests.get() < 3; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(3, requests.get());
+        Notification stored = null;
+        for (int i = 0; i < 50 && (stored == null || !"FAILED".equals(stored.getStatus())); i++) {
+            Thread.sleep(100);
+            stored = notificationRepository.findByRecipientOrderByCreatedAtDescIdDesc("inline-retry-caller", Limit.of(1)).get(0);
+        }
+        assertEquals("FAILED", stored.getStatus());
+        assertEquals(1, stored.getRetryCount());
+        assertNotNull(stored.getNextAttemptAt());
+    }
+
+    @Test
+    void testWaitingRetryIsLeasedToTheRetryQueue() throws Exception {
+        failFirst = Integer.MAX_VALUE;
+        Notification notification = save("inline-retry-lease");
+
+        CompletableFuture<Void> outcome = notificationService.deliverNotification(notification);
+        for (int i = 0; i < 50 && deliveryRetryScheduler.getScheduledCount() == 0; i++) {
+            Thread.sleep(20);
+        }
+        notificationStatusUpdater.flush();
+
+        // Should this process go away now, the retry task claims the row once the lease has passed
+        Notification stored = notificationRepository.findById(notification.getId()).orElseThrow();
+        assertEquals("RETRYING", stored.getStatus());
+        assertNotNull(stored.getNextAttemptAt());
+        assertTrue(stored.getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+        outcome.get(10, TimeUnit.SECONDS);
+        assertEquals("FAILED", notification.getStatus());
+    }
+
+    private Notification save(String recipient) {
+        Notification notification = new Notification();
+        notification.setType("WEBHOOK");
+        notification.setRecipient(recipient);
+        notification.setPayload("Inline retry notification");
+        notification.setTargetUrl(targetUrl());
+        return notificationService.saveNotification(notification);
+    }
+
+    private String targetUrl() {
+        return "http://127.0.0.1:" + stub.getAddress().getPort() + "/hook";
+    }
+}
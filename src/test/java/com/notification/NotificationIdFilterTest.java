@@ -0,0 +1,198 @@
+package com.notification;
+
+import com.notification.exception.NotificationNotFoundException;
+import com.notification.id.CountingBloomFilter;
+import com.notification.id.NotificationIdFilter;
+import com.notification.id.SnowflakeIdGenerator;
+import com.notification.model.AuthRequest;
+import com.notification.model.AuthResponse;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationBatchRepository;
+import com.notification.scheduled.CleanupTask;
+import com.notification.service.NotificationService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own database so that the ids of other test classes do not end up in the filter
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:idfiltertest",
+        "notification.id-filter.rebuild-interval-ms=3600000",
+        "notification.id-filter.trust-lag-ms=1000",
+        "notification.purge.pause-ms=0"
+})
+class NotificationIdFilterTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private NotificationIdFilter notificationIdFilter;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationBatchRepository notificationBatchRepository;
+
+    @Autowired
+    private CleanupTask cleanupTask;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM notifications");
+        jdbcTemplate.update("DELETE FROM notification_purge_checkpoints");
+        circuitBreakerRegistry.circuitBreaker("notificationService").reset();
+    }
+
+    @Test
+    void testUnknownIdsAreAnsweredWithNotFoundWithoutOpeningTheBreaker() {
+        long firstId = SnowflakeIdGenerator.minIdAt(Instant.now().minus(1, ChronoUnit.HOURS));
+        insert(firstId, 10, "PENDING", LocalDateTime.now().minusHours(1));
+        notificationIdFilter.rebuild();
+        HttpHeaders headers = authenticate();
+
+        ResponseEntity<Notification> found = restTemplate.exchange("/api/notifications/" + (firstId + 3),
+                HttpMethod.GET, new HttpEntity<>(headers), Notification.class);
+        assertEquals(HttpStatus.OK, found.getStatusCode());
+        assertEquals("FILTER", found.getBody().getType());
+
+        double absentBefore = lookups("absent");
+        for (long id = firstId + 1000; id < firstId + 1050; id++) {
+            ResponseEntity<String> missing = restTemplate.exchange("/api/notifications/" + id,
+                    HttpMethod.GET, new HttpEntity<>(headers), String.class);
+            assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+        }
+        // Far more than the 1% let through to the database
+        assertTrue(lookups("absent") - absentBefore >= 45);
+
+        // Ids from the future cannot exist yet, whatever the filter holds
+        long futureId = SnowflakeIdGenerator.minIdAt(Instant.now().plus(1, ChronoUnit.DAYS));
+        assertFalse(notificationIdFilter.mightExist(futureId));
+        // Ids newer than the last rebuild may have been stored by another instance since
+        assertTrue(notificationIdFilter.mightExist(SnowflakeIdGenerator.minIdAt(Instant.now())));
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("notificationService");
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testMissingNotificationIsNotAFailureOfTheService() {
+        for (long id = 1; id <= 20; id++) {
+            long missingId = id;
+            assertThrows(NotificationNotFoundException.class, () -> notificationService.getNotification(missingId));
+        }
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("notificationService");
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testPurgedIdsAreRemovedFromTheFilter() {
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        long firstId = SnowflakeIdGenerator.minIdAt(Instant.now().minus(40, ChronoUnit.DAYS));
+        insert(firstId, 20, "DELIVERED", old);
+        insert(firstId + 100, 5, "PENDING", old);
+        notificationIdFilter.rebuild();
+        for (long id = firstId; id < firstId + 20; id++) {
+            assertTrue(notificationIdFilter.mightExist(id));
+        }
+
+        assertEquals(20, cleanupTask.purge());
+
+        for (long id = firstId; id < firstId + 20; id++) {
+            assertFalse(notificationIdFilter.mightExist(id));
+        }
+        for (long id = firstId + 100; id < firstId + 105; id++) {
+            assertTrue(notificationIdFilter.mightExist(id));
+        }
+    }
+
+    @Test
+    void testCountingFilterStaysNearItsFalsePositiveRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (long id = 0; id < 10_000; id++) {
+            filter.add(id * 7919);
+        }
+        for (long id = 0; id < 10_000; id++) {
+            assertTrue(filter.mightContain(id * 7919));
+        }
+        int falsePositives = 0;
+        for (long id = 0; id < 100_000; id++) {
+            if (filter.mightContain(-id - 1)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFpp(), 0.005);
+
+        for (long id = 0; id < 5_000; id++) {
+            filter.remove(id * 7919);
+        }
+        assertEquals(5_000, filter.size());
+        for (long id = 5_000; id < 10_000; id++) {
+            assertTrue(filter.mightContain(id * 7919));
+        }
+    }
+
+    private void insert(long firstId, int count, String status, LocalDateTime createdAt) {
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Notification notification = new Notification();
+            notification.setId(firstId + i);
+            notification.setType("FILTER");
+            notification.setRecipient("user");
+            notification.setPayload("Filter " + i);
+            notification.setStatus(status);
+            notification.setRetryCount(0);
+            notification.setCreatedAt(createdAt);
+            notifications.add(notification);
+        }
+        transactionTemplate.executeWithoutResult(s -> notificationBatchRepository.insertAll(notifications, 100));
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.counter("notification.idfilter.lookups", "result", result).count();
+    }
+
+    private HttpHeaders authenticate() {
+        ResponseEntity<AuthResponse> auth = restTemplate.postForEntity(
+                "/api/authenticate",
+                new AuthRequest("user", "password"),
+                AuthResponse.class
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(auth.getBody().getToken());
+        return headers;
+    }
+}
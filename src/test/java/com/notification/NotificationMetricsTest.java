@@ -0,0 +1,79 @@
+package com.notification;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.metrics.NotificationMetrics.Stage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testTypeTagsStayBoundedUnderConcurrentUniqueTypes() throws Exception {
+        NotificationMetrics metrics = new NotificationMetrics(meterRegistry, 5, 20, 3, "ALERT");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    // Every thread repeats a few common types between a flood of unique ones
+                    metrics.recordNotificationProcessed(i % 4 == 0 ? "COMMON-" + (i % 3) : "junk-" + thread + "-" + i,
+                            "DELIVERED", 1, 10);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        metrics.recordNotificationProcessed("ALERT", "DELIVERED", 1, 10);
+        metrics.recordNotificationProcessed("x".repeat(200), "DELIVERED", 1, 10);
+
+        var typeCounters = meterRegistry.find("notification.count.byType").counters();
+        // Up to five admitted types plus the overflow bucket
+        assertTrue(typeCounters.size() <= 6, "too many series: " + typeCounters.size());
+        assertEquals(1.0, meterRegistry.get("notification.count.byType").tag("type", "ALERT").counter().count());
+        assertNotNull(meterRegistry.find("notification.count.byType").tag("type", "other").counter());
+        double total = typeCounters.stream().mapToDouble(Counter::count).sum();
+        assertEquals(16002.0, total);
+        assertEquals(16002.0, meterRegistry.get("notification.count.byStatus").tag("status", "DELIVERED").counter().count());
+    }
+
+    @Test
+    void testRecurringTypesAreAdmittedBeforeNoise() {
+        NotificationMetrics metrics = new NotificationMetrics(meterRegistry, 2, 20, 3, "");
+
+        for (int i = 0; i < 100; i++) {
+            metrics.recordNotificationProcessed("once-" + i, "PENDING", 1, 10);
+        }
+        for (int i = 0; i < 5; i++) {
+            metrics.recordNotificationProcessed("INFO", "PENDING", 1, 10);
+        }
+
+        // The first occurrences before admission land in "other"
+        assertEquals(3.0, meterRegistry.get("notification.count.byType").tag("type", "INFO").counter().count());
+        assertEquals(102.0, meterRegistry.get("notification.count.byType").tag("type", "other").counter().count());
+        assertNull(meterRegistry.find("notification.count.byType").tag("type", "once-0").counter());
+    }
+
+    @Test
+    void testStagesAreTimedSeparately() {
+        NotificationMetrics metrics = new NotificationMetrics(meterRegistry);
+
+        metrics.recordStage(Stage.PERSIST, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordStage(Stage.PUSH, TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.recordStage(Stage.PUSH, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertEquals(1, meterRegistry.get("notification.stage.time").tag("stage", "persist").timer().count());
+        assertEquals(2, meterRegistry.get("notification.stage.time").tag("stage", "push").timer().count());
+        assertEquals(4.0, meterRegistry.get("notification.stage.time").tag("stage", "push").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, meterRegistry.get("notification.stage.time").tag("stage", "audit").timer().count());
+    }
+}
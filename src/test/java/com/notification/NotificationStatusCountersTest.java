@@ -0,0 +1,95 @@
+package com.notification;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.NotificationRepository;
+import com.notification.status.NotificationStatusCounters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationStatusCountersTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final NotificationRepository notificationRepository = Mockito.mock(NotificationRepository.class);
+    private NotificationStatusCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        when(notificationRepository.countGroupedByStatus()).thenReturn(rows("PENDING", 10L, "DELIVERED", 90L));
+        counters = new NotificationStatusCounters(notificationRepository, new NotificationMetrics(meterRegistry), 3_600_000);
+        counters.start();
+        // The first reconcile runs right away in the background
+        verify(notificationRepository, timeout(5000)).countGroupedByStatus();
+        awaitCount("DELIVERED", 90);
+    }
+
+    @AfterEach
+    void tearDown() {
+        counters.shutdown();
+    }
+
+    @Test
+    void testTransitionsAreCountedWithoutQueryingOnScrape() {
+        counters.created("PENDING", 5);
+        counters.transition("PENDING", "DELIVERED");
+        counters.transition("PENDING", "FAILED");
+        counters.transition("FAILED", "RETRYING", 1);
+        counters.transition("RETRYING", "RETRYING");
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(13.0, meterRegistry.get("notification.active").gauge().value());
+        }
+        assertEquals(91.0, gauge("DELIVERED"));
+        assertEquals(0.0, gauge("FAILED"));
+        assertEquals(1.0, gauge("RETRYING"));
+        verify(notificationRepository, times(1)).countGroupedByStatus();
+    }
+
+    @Test
+    void testReconcileReplacesCountsAndKeepsConcurrentChanges() {
+        counters.created("PENDING", 3);
+        when(notificationRepository.countGroupedByStatus()).thenAnswer(invocation -> {
+            // A delivery recorded while the query runs is not part of its result
+            counters.transition("PENDING", "DELIVERED");
+            return rows("PENDING", 20L, "FAILED", 4L, "CANCELLED", 2L);
+        });
+
+        counters.reconcile();
+
+        assertEquals(19, counters.get("PENDING"));
+        assertEquals(1, counters.get("DELIVERED"));
+        assertEquals(4, counters.get("FAILED"));
+        assertEquals(2.0, gauge("CANCELLED"));
+    }
+
+    private double gauge(String status) {
+        return meterRegistry.get("notification.status.count").tag("status", status).gauge().value();
+    }
+
+    private void awaitCount(String status, long expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counters.get(status) != expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, counters.get(status));
+    }
+
+    private static List<Object[]> rows(Object... values) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < values.length; i += 2) {
+            rows.add(new Object[] {values[i], values[i + 1]});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,202 @@
+package com.notification;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.PartitionRepository;
+import com.notification.repository.PartitionRepository.Partition;
+import com.notification.scheduled.PartitionMaintenanceTask;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// PostgreSQL partitioning cannot run on H2, so the catalog is stood in for by an in-memory list
+class PartitionMaintenanceTest {
+
+    // A Saturday
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 10, 30);
+
+    @TempDir
+    Path archiveDir;
+
+    @Test
+    void testFuturePartitionsAreCreatedContiguously() {
+        FakePartitionRepository repository = new FakePartitionRepository();
+        repository.attached.add(new Partition("notifications_legacy", LocalDateTime.of(2026, 10, 16, 0, 0)));
+
+        task(repository, "daily", false).maintain(NOW);
+
+        // Yesterday is over, so the new partitions start today
+        assertEquals(List.of("notifications_p20261017", "notifications_p20261018",
+                "notifications_p20261019", "notifications_p20261020"), repository.created);
+        assertEquals(LocalDateTime.of(2026, 10, 21, 0, 0), repository.attached.get(repository.attached.size() - 1).upperBound());
+
+        // Nothing is missing on the next run
+        repository.created.clear();
+        task(repository, "daily", false).maintain(NOW.plusHours(1));
+        assertTrue(repository.created.isEmpty());
+    }
+
+    @Test
+    void testWeeklyPartitionsContinueFromTheNewestDailyOne() {
+        FakePartitionRepository repository = new FakePartitionRepository();
+        repository.attached.add(new Partition("notifications_p20261017", LocalDateTime.of(2026, 10, 18, 0, 0)));
+
+        task(repository, "weekly", false).maintain(NOW);
+
+        // The rest of the current week, then whole weeks starting on Monday
+        assertEquals(List.of("notifications_p20261018", "notifications_p20261019", "notifications_p20261026",
+                "notifications_p20261102"), repository.created);
+    }
+
+    @Test
+    void testExpiredPartitionsAreArchivedThenDropped() throws IOException {
+        FakePartitionRepository repository = new FakePartitionRepository();
+        repository.attached.add(new Partition("notifications_p20260901", LocalDateTime.of(2026, 9, 2, 0, 0)));
+        repository.attached.add(new Partition("notifications_p20260902", LocalDateTime.of(2026, 9, 3, 0, 0)));
+        repository.attached.add(new Partition("notifications_p20261017", LocalDateTime.of(2026, 10, 18, 0, 0)));
+
+        assertEquals(2, task(repository, "daily", true).maintain(NOW));
+
+        assertEquals(List.of("notifications_p20260901", "notifications_p20260902"), repository.dropped);
+        assertTrue(repository.detached.isEmpty());
+        assertEquals("notifications_p20261017", repository.attached.get(0).name());
+        assertEquals("id,status\n1,notifications_p20260901\n", readArchive("notifications_p20260901"));
+        assertFalse(Files.exists(archiveDir.resolve("notifications_p20260901.csv.gz.partial")));
+    }
+
+    @Test
+    void testPartitionWhoseExportFailedIsDroppedOnTheNextRun() throws IOException {
+        FakePartitionRepository repository = new FakePartitionRepository();
+        repository.attached.add(new Partition("notifications_p20260901", LocalDateTime.of(2026, 9, 2, 0, 0)));
+        repository.failExport = true;
+
+        assertEquals(0, task(repository, "daily", true).maintain(NOW));
+        assertEquals(List.of("notifications_p20260901"), repository.detached);
+        assertTrue(repository.dropped.isEmpty());
+
+        repository.failExport = false;
+        assertEquals(1, task(repository, "daily", true).maintain(NOW));
+        assertEquals(List.of("notifications_p20260901"), repository.dropped);
+        assertEquals("id,status\n1,notifications_p20260901\n", readArchive("notifications_p20260901"));
+    }
+
+    @Test
+    void testExpiredPartitionWithUnfinishedNotificationsIsKept() {
+        FakePartitionRepository repository = new FakePartitionRepository();
+        repository.attached.add(new Partition("notifications_p20260901", LocalDateTime.of(2026, 9, 2, 0, 0)));
+        repository.attached.add(new Partition("notifications_p20260902", LocalDateTime.of(2026, 9, 3, 0, 0)));
+        repository.unfinished.add("notifications_p20260901");
+
+        assertEquals(1, task(repository, "daily", false).maintain(NOW));
+        assertEquals(List.of("notifications_p20260902"), repository.dropped);
+        assertEquals("notifications_p20260901", repository.attached.get(0).name());
+
+        // Once its last retry has finished it goes on the next run
+        repository.unfinished.clear();
+        assertEquals(1, task(repository, "daily", false).maintain(NOW));
+        assertEquals(List.of("notifications_p20260902", "notifications_p20260901"), repository.dropped);
+    }
+
+    @Test
+    void testAuditLogPartitionsFollowTheirOwnRetention() {
+        FakePartitionRepository repository = new FakePartitionRepository();
+        repository.attached.add(new Partition("notifications_p20260901", LocalDateTime.of(2026, 9, 2, 0, 0)));
+        repository.attached.add(new Partition("notification_audit_log_p20260901", LocalDateTime.of(2026, 9, 2, 0, 0)));
+        repository.attached.add(new Partition("notification_audit_log_p20260701", LocalDateTime.of(2026, 7, 2, 0, 0)));
+
+        PartitionMaintenanceTask task = new PartitionMaintenanceTask(repository, new NotificationMetrics(new SimpleMeterRegistry()),
+                true, "daily", 3, 30, true, "weekly", 1, 90, false, archiveDir.toString());
+        assertEquals(2, task.maintain(NOW));
+
+        // Audit rows are kept for 90 days, notifications for 30
+        assertEquals(List.of("notifications_p20260901", "notification_audit_log_p20260701"), repository.dropped);
+        assertTrue(repository.created.containsAll(List.of("notification_audit_log_p20261012", "notification_audit_log_p20261019")));
+        assertFalse(repository.created.contains("notification_audit_log_p20261026"));
+    }
+
+    private PartitionMaintenanceTask task(PartitionRepository repository, String granularity, boolean archive) {
+        return new PartitionMaintenanceTask(repository, new NotificationMetrics(new SimpleMeterRegistry()),
+                true, granularity, 3, 30, false, "daily", 7, 90, archive, archiveDir.toString());
+    }
+
+    private String readArchive(String name) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(archiveDir.resolve(name + ".csv.gz")))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class FakePartitionRepository extends PartitionRepository {
+
+        final List<Partition> attached = new ArrayList<>();
+        final List<String> detached = new ArrayList<>();
+        final List<String> created = new ArrayList<>();
+        final List<String> dropped = new ArrayList<>();
+        final List<String> unfinished = new ArrayList<>();
+        boolean failExport;
+
+        FakePartitionRepository() {
+            super(null);
+        }
+
+        @Override
+        public List<Partition> findPartitions(String parent) {
+            return attached.stream().filter(partition -> ofParent(parent, partition.name())).toList();
+        }
+
+        @Override
+        public List<String> findDetached(String parent) {
+            return detached.stream().filter(name -> ofParent(parent, name)).toList();
+        }
+
+        @Override
+        public void createPartition(String parent, String name, LocalDateTime from, LocalDateTime to) {
+            created.add(name);
+            attached.add(new Partition(name, to));
+        }
+
+        @Override
+        public long countUnfinished(String name) {
+            return unfinished.contains(name) ? 1 : 0;
+        }
+
+        @Override
+        public void detach(String parent, String name) {
+            attached.removeIf(partition -> partition.name().equals(name));
+            detached.add(name);
+        }
+
+        @Override
+        public void drop(String parent, String name) {
+            detached.remove(name);
+            dropped.add(name);
+        }
+
+        private static boolean ofParent(String parent, String name) {
+            return name.matches(parent + "_(p[0-9]{8}|legacy)");
+        }
+
+        @Override
+        public long export(String parent, String name, OutputStream out) {
+            if (failExport) {
+                throw new IllegalStateException("export failed");
+            }
+            try {
+                out.write(("id,status\n1," + name + "\n").getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return 1;
+        }
+    }
+}
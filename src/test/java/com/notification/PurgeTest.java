@@ -0,0 +1,124 @@
+package com.notification;
+
+import com.notification.model.Notification;
+import com.notification.repository.NotificationBatchRepository;
+import com.notification.scheduled.CleanupTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own database so the purge cannot remove rows other test classes rely on
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:purgetest",
+        "notification.purge.chunk-size=5",
+        "notification.purge.pause-ms=0"
+})
+class PurgeTest {
+
+    @Autowired
+    private CleanupTask cleanupTask;
+
+    @Autowired
+    private NotificationBatchRepository notificationBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM notifications");
+        jdbcTemplate.update("DELETE FROM notification_purge_checkpoints");
+    }
+
+    @Test
+    void testPurgeDeletesOnlyOldFinishedNotificationsInChunks() {
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        insert(23, "DELIVERED", old);
+        insert(5, "FAILED", old);
+        insert(4, "PENDING", old);
+        insert(6, "DELIVERED", LocalDateTime.now());
+
+        assertEquals(28, cleanupTask.purge());
+
+        assertEquals(0, count("created_at < ? AND status IN ('DELIVERED', 'FAILED')", old.plusDays(1)));
+        assertEquals(4, count("status = 'PENDING'", null));
+        assertEquals(6, count("created_at > ?", old.plusDays(1)));
+        assertEquals(28L, jdbcTemplate.queryForObject(
+                "SELECT deleted_count FROM notification_purge_checkpoints WHERE completed_at IS NOT NULL", Long.class));
+
+        // A completed run is not resumed; the next one starts over and finds nothing left
+        assertEquals(0, cleanupTask.purge());
+    }
+
+    @Test
+    void testPurgeKeepsFailedNotificationsWithPendingRetry() {
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        insert(3, "FAILED", old);
+        List<Long> retrying = insert(2, "FAILED", old);
+        retrying.forEach(id -> jdbcTemplate.update("UPDATE notifications SET next_attempt_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)), id));
+
+        assertEquals(3, cleanupTask.purge());
+
+        assertEquals(2, count("next_attempt_at IS NOT NULL", null));
+        assertEquals(0, count("next_attempt_at IS NULL", null));
+    }
+
+    @Test
+    void testInterruptedPurgeResumesFromCheckpoint() {
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        List<Long> ids = insert(20, "DELIVERED", old);
+        long lastId = ids.get(9);
+        long endId = ids.get(ids.size() - 1);
+
+        // State a crash would leave behind: the first ten ids were processed, but their rows are still present
+        jdbcTemplate.update("INSERT INTO notification_purge_checkpoints (job, cutoff, end_id, last_id, deleted_count, started_at, updated_at) "
+                        + "VALUES ('notifications', ?, ?, ?, 10, ?, ?)",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(30)), endId, lastId,
+                Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(LocalDateTime.now()));
+
+        assertEquals(10, cleanupTask.purge());
+
+        assertEquals(10, count("id <= ?", lastId));
+        assertEquals(0, count("id > ?", lastId));
+        assertEquals(20L, jdbcTemplate.queryForObject(
+                "SELECT deleted_count FROM notification_purge_checkpoints WHERE completed_at IS NOT NULL", Long.class));
+    }
+
+    private List<Long> insert(int count, String status, LocalDateTime createdAt) {
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Notification notification = new Notification();
+            notification.setType("TEST");
+            notification.setRecipient("purge-user");
+            notification.setPayload("Purge notification");
+            notification.setStatus(status);
+            notification.setRetryCount(0);
+            notification.setCreatedAt(createdAt);
+            notifications.add(notification);
+        }
+        transactionTemplate.executeWithoutResult(tx -> notificationBatchRepository.insertAll(notifications, 100));
+        return notifications.stream().map(Notification::getId).sorted().toList();
+    }
+
+    private int count(String condition, Object value) {
+        String sql = "SELECT COUNT(*) FROM notifications WHERE " + condition;
+        Integer count = value == null
+                ? jdbcTemplate.queryForObject(sql, Integer.class)
+                : jdbcTemplate.queryForObject(sql, Integer.class, value instanceof LocalDateTime time ? Timestamp.valueOf(time) : value);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.notification;
+
+import com.notification.model.AuthRequest;
+import com.notification.model.AuthResponse;
+import com.notification.messaging.RabbitDispatchListener;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationRepository;
+import com.notification.service.NotificationService;
+import com.notification.status.NotificationStatusCounters;
+import com.notification.status.NotificationStatusUpdater;
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.test.TestRabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the rabbit dispatch mode against {@link TestRabbitTemplate}, which routes each published message
+ * straight into the listener container for the queue named by its routing key, in place of a broker.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "notification.dispatch.mode=rabbit",
+                "notification.dispatch.rabbit.listener-auto-startup=false"
+        })
+class RabbitDispatchTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private Channel channel;
+
+    @Autowired
+    private NotificationStatusUpdater notificationStatusUpdater;
+
+    @Autowired
+    private NotificationStatusCounters notificationStatusCounters;
+
+    @Test
+    void testNotificationIsPublishedDeliveredAndAcknowledgedAfterPersistence() throws Exception {
+        ResponseEntity<AuthResponse> auth = restTemplate.postForEntity(
+                "/api/authenticate",
+                new AuthRequest("user", "password"),
+                AuthResponse.class
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(auth.getBody().getToken());
+
+        Notification notification = new Notification();
+        notification.setType("TEST");
+        notification.setRecipient("user");
+        notification.setPayload("Rabbit notification");
+
+        ResponseEntity<Notification> response = restTemplate.exchange(
+                "/api/notifications",
+                HttpMethod.POST,
+                new HttpEntity<>(notification, headers),
+                Notification.class
+        );
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        Long id = response.getBody().getId();
+        assertNotNull(id);
+
+        // The ack is only sent once the DELIVERED transition has been flushed
+        verify(channel, timeout(5000)).basicAck(anyLong(), eq(false));
+        assertEquals("DELIVERED", notificationRepository.findById(id).map(Notification::getStatus).orElse(null));
+        verify(channel).waitForConfirmsOrDie(anyLong());
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void testFailedConsumeIsHandedToTheRetryQueueBeforeDeadLettering() throws Exception {
+        Notification notification = new Notification();
+        notification.setType("TEST");
+        notification.setRecipient("user");
+        notification.setPayload("Rabbit notification");
+        Notification saved = notificationRepository.save(notification);
+
+        // A listener of its own, whose delivery cannot start, and a channel of its own to watch
+        NotificationService failingService = mock(NotificationService.class);
+        when(failingService.deliverNotification(any())).thenThrow(new IllegalStateException("no session"));
+        RabbitDispatchListener listener = new RabbitDispatchListener(failingService, notificationStatusUpdater, notificationStatusCounters);
+        Channel listenerChannel = mock(Channel.class);
+
+        listener.onNotification(saved, listenerChannel, 7L);
+
+        // The message is only dead-lettered once the FAILED transition has been flushed
+        verify(listenerChannel, timeout(5000)).basicNack(7L, false, false);
+        Notification stored = notificationRepository.findById(saved.getId()).orElseThrow();
+        assertEquals("FAILED", stored.getStatus());
+        assertEquals("Dispatch failed: no session", stored.getErrorMessage());
+        assertNotNull(stored.getNextAttemptAt());
+        verify(listenerChannel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @TestConfiguration
+    static class BrokerStandInConfig {
+
+        @Bean
+        Channel channel() {
+            Channel channel = mock(Channel.class);
+            when(channel.isOpen()).thenReturn(true);
+            return channel;
+        }
+
+        @Bean
+        ConnectionFactory connectionFactory(Channel channel) {
+            ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+            Connection connection = mock(Connection.class);
+            when(connectionFactory.createConnection()).thenReturn(connection);
+            when(connection.createChannel(anyBoolean())).thenReturn(channel);
+            when(connection.isOpen()).thenReturn(true);
+            return connectionFactory;
+        }
+
+        @Bean
+        @Primary
+        TestRabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter notificationMessageConverter) {
+            TestRabbitTemplate template = new TestRabbitTemplate(connectionFactory);
+            template.setMessageConverter(notificationMessageConverter);
+            // There is no broker to assign delivery tags, so stamp one the listener can ack
+            AtomicLong deliveryTags = new AtomicLong();
+            template.setBeforePublishPostProcessors(message -> {
+                message.getMessageProperties().setDeliveryTag(deliveryTags.incrementAndGet());
+                return message;
+            });
+            return template;
+        }
+    }
+}
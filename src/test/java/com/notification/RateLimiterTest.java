@@ -0,0 +1,230 @@
+package com.notification;
+
+import com.notification.metrics.NotificationMetrics;
+import com.notification.ratelimit.InMemoryTokenStore;
+import com.notification.ratelimit.LeasedRateLimiter;
+import com.notification.ratelimit.RateLimiter;
+import com.notification.ratelimit.RateLimiter.Algorithm;
+import com.notification.ratelimit.TokenStore;
+import com.notification.service.RateLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(-5 * SECOND);
+
+    @Test
+    void testTokenBucketAllowsBurstThenRefillsSteadily() {
+        RateLimiter limiter = RateLimiter.create(Algorithm.TOKEN_BUCKET, 10, 10 * SECOND, clock::get);
+
+        assertEquals(10, acquire(limiter, "client", 20));
+        // One token comes back per second
+        clock.addAndGet(SECOND);
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("other"), "keys are limited independently");
+
+        clock.addAndGet(4 * SECOND);
+        assertEquals(4, acquire(limiter, "client", 20));
+    }
+
+    @Test
+    void testSlidingLogNeverAdmitsMoreThanTheLimitInAnyWindow() {
+        RateLimiter limiter = RateLimiter.create(Algorithm.SLIDING_LOG, 3, 10 * SECOND, clock::get);
+
+        assertTrue(limiter.tryAcquire("client"));
+        clock.addAndGet(9 * SECOND);
+        assertEquals(2, acquire(limiter, "client", 5));
+        // The first call leaves the window, the other two are still in it
+        clock.addAndGet(SECOND);
+        assertEquals(1, acquire(limiter, "client", 5));
+        clock.addAndGet(8 * SECOND);
+        assertEquals(0, acquire(limiter, "client", 5));
+        // Both calls made at the nine second mark leave the window together
+        clock.addAndGet(SECOND);
+        assertEquals(2, acquire(limiter, "client", 5));
+    }
+
+    @Test
+    void testIdleKeysAreEvictedOnceBackAtFullAllowance() {
+        for (Algorithm algorithm : Algorithm.values()) {
+            RateLimiter limiter = RateLimiter.create(algorithm, 5, 10 * SECOND, clock::get);
+            for (int i = 0; i < 1000; i++) {
+                limiter.tryAcquire("client-" + i);
+            }
+            acquire(limiter, "busy", 5);
+            assertEquals(0, limiter.evictIdle(), algorithm + " evicted a key still inside its window");
+
+            clock.addAndGet(5 * SECOND);
+            acquire(limiter, "recent", 5);
+            clock.addAndGet(6 * SECOND);
+            assertEquals(1001, limiter.evictIdle(), algorithm.name());
+            assertEquals(1, limiter.size());
+            clock.addAndGet(-11 * SECOND);
+        }
+    }
+
+    @Test
+    void testConcurrentCallersOnOneKeyAreAdmittedExactlyUpToTheLimit() throws Exception {
+        for (Algorithm algorithm : Algorithm.values()) {
+            RateLimiter limiter = RateLimiter.create(algorithm, 1000, 3600 * SECOND, System::nanoTime);
+            AtomicInteger admitted = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(32);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 32; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (limiter.tryAcquire("shared")) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            assertEquals(1000, admitted.get(), algorithm.name());
+        }
+    }
+
+    @Test
+    void testEndpointAndSubjectRulesTakePrecedenceOverTheDefault() {
+        RateLimitService service = new RateLimitService("token-bucket", 60000, 5,
+                "batch-service=50", "POST /api/notifications/batch=2, /api/audit/**=3");
+
+        assertEquals(2, allowed(service, "alice", "POST", "/api/notifications/batch", 10));
+        assertEquals(5, allowed(service, "alice", "POST", "/api/notifications", 10), "endpoint rules have their own allowance");
+        assertEquals(3, allowed(service, "alice", "GET", "/api/audit", 10));
+        assertEquals(5, allowed(service, "bob", "GET", "/api/notifications/batch", 10), "rule only covers POST");
+        assertEquals(50, allowed(service, "batch-service", "GET", "/api/notifications/1", 100));
+        assertEquals(5, allowed(service, null, "GET", "/api/notifications/1", 10));
+
+        service.resetLimit("subject:alice");
+        assertTrue(service.isAllowed("alice", "10.0.0.1", "POST", "/api/notifications"));
+    }
+
+    @Test
+    void testInstancesLeasingFromOneStoreShareTheLimit() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        NotificationMetrics metrics = new NotificationMetrics(registry);
+        TokenStore store = new InMemoryTokenStore(clock::get);
+        LeasedRateLimiter first = leased(store, metrics);
+        LeasedRateLimiter second = leased(store, metrics);
+
+        int admitted = 0;
+        for (int i = 0; i < 150; i++) {
+            admitted += first.tryAcquire("client") ? 1 : 0;
+            admitted += second.tryAcquire("client") ? 1 : 0;
+        }
+        assertEquals(100, admitted);
+        assertEquals(10, registry.get("notification.ratelimit.lease.time").tag("outcome", "granted").timer().count(),
+                "only refills reach the store");
+        assertEquals(0, first.outstanding() + second.outstanding());
+
+        // The shared bucket regains one token every 600ms, which only one of the instances gets
+        clock.addAndGet(600_000_000L);
+        assertEquals(1, acquire(first, "client", 5) + acquire(second, "client", 5));
+    }
+
+    @Test
+    void testUnusedLeasedTokensExpire() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        NotificationMetrics metrics = new NotificationMetrics(registry);
+        LeasedRateLimiter limiter = leased(new InMemoryTokenStore(clock::get), metrics);
+
+        assertTrue(limiter.tryAcquire("client"));
+        assertEquals(9, limiter.outstanding());
+        clock.addAndGet(2 * SECOND);
+        assertTrue(limiter.tryAcquire("client"));
+        assertEquals(9, registry.get("notification.ratelimit.lease.expired").counter().count());
+        assertEquals(9, limiter.outstanding());
+
+        clock.addAndGet(2 * SECOND);
+        assertEquals(1, limiter.evictIdle());
+        assertEquals(0, limiter.outstanding());
+    }
+
+    @Test
+    void testUnreachableStoreFallsBackToTheLocalLimit() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        AtomicInteger calls = new AtomicInteger();
+        TokenStore store = new TokenStore() {
+            @Override
+            public long take(String key, long requested, long limit, long periodNanos) {
+                calls.incrementAndGet();
+                throw new IllegalStateException("store unavailable");
+            }
+
+            @Override
+            public void reset(String key) {
+            }
+        };
+        LeasedRateLimiter limiter = new LeasedRateLimiter("test", 5, 60 * SECOND, store, 10, SECOND,
+                RateLimiter.create(Algorithm.TOKEN_BUCKET, 5, 60 * SECOND, clock::get), clock::get,
+                new NotificationMetrics(registry));
+
+        assertEquals(5, acquire(limiter, "client", 10));
+        assertEquals(1, calls.get(), "the store is not retried before the lease ttl has passed");
+        clock.addAndGet(2 * SECOND);
+        limiter.tryAcquire("client");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testDistributedServicesEnforceOneClusterWideLimit() {
+        TokenStore store = new InMemoryTokenStore(System::nanoTime);
+        NotificationMetrics metrics = new NotificationMetrics(new SimpleMeterRegistry());
+        RateLimitService first = new RateLimitService("token-bucket", 60000, 5, "", "", store, 2, 60000, metrics);
+        RateLimitService second = new RateLimitService("token-bucket", 60000, 5, "", "", store, 2, 60000, metrics);
+
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            admitted += first.isAllowed("alice", "10.0.0.1", "GET", "/api/notifications") ? 1 : 0;
+            admitted += second.isAllowed("alice", "10.0.0.2", "GET", "/api/notifications") ? 1 : 0;
+        }
+        assertEquals(5, admitted);
+        assertTrue(first.isAllowed("bob", "10.0.0.1", "GET", "/api/notifications"));
+    }
+
+    private LeasedRateLimiter leased(TokenStore store, NotificationMetrics metrics) {
+        return new LeasedRateLimiter("test", 100, 60 * SECOND, store, 10, SECOND,
+                RateLimiter.create(Algorithm.TOKEN_BUCKET, 100, 60 * SECOND, clock::get), clock::get, metrics);
+    }
+
+    private static int acquire(RateLimiter limiter, String key, int attempts) {
+        int admitted = 0;
+        for (int i = 0; i < attempts; i++) {
+            admitted += limiter.tryAcquire(key) ? 1 : 0;
+        }
+        return admitted;
+    }
+
+    private static int allowed(RateLimitService service, String subject, String method, String path, int attempts) {
+        int admitted = 0;
+        for (int i = 0; i < attempts; i++) {
+            admitted += service.isAllowed(subject, "10.0.0.1", method, path) ? 1 : 0;
+        }
+        return admitted;
+    }
+}
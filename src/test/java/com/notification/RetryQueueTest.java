@@ -0,0 +1,164 @@
+package com.notification;
+
+import com.notification.model.Notification;
+import com.notification.repository.NotificationRepository;
+import com.notification.repository.RetryQueueRepository;
+import com.notification.scheduled.RetryTask;
+import com.notification.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ServerSocket;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own database so retry pollers of other cached test contexts cannot claim these rows
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:retryqueuetest",
+        "notification.webhook.allowed-hosts=127.0.0.1",
+        "notification.retry.poll-interval-ms=3600000",
+        "notification.retry.batch-size=7",
+        "notification.retry.backoff.initial-ms=200",
+        "notification.retry.inline.max-attempts=1"
+})
+class RetryQueueTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private RetryQueueRepository retryQueueRepository;
+
+    @Autowired
+    private RetryTask retryTask;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testConcurrentClaimersNeverClaimTheSameNotification() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> due = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            due.add(saveFailed(now.minusSeconds(i + 1)));
+        }
+        Set<Long> notDue = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            notDue.add(saveFailed(now.plusMinutes(10)));
+        }
+
+        // Each claimer stands in for a separate node with its own transactions
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Queue<Long> claimed = new ConcurrentLinkedQueue<>();
+        ExecutorService claimers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(claimers.submit(() -> {
+                    List<Long> batch;
+                    do {
+                        batch = transactionTemplate.execute(status ->
+                                retryQueueRepository.claimDue(now, now.plusMinutes(5), 7));
+                        claimed.addAll(batch);
+                    } while (!batch.isEmpty());
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            claimers.shutdownNow();
+        }
+
+        List<Long> claimedIds = new ArrayList<>(claimed);
+        assertEquals(claimedIds.size(), new HashSet<>(claimedIds).size(), "a notification was claimed twice");
+        assertTrue(claimedIds.containsAll(due));
+        assertTrue(claimedIds.stream().noneMatch(notDue::contains));
+        for (Long id : due) {
+            assertEquals("RETRYING", notificationRepository.findById(id).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void testFailedDeliveryIsRetriedAfterBackoffUntilAttemptsRunOut() throws Exception {
+        Notification notification = new Notification();
+        notification.setType("WEBHOOK");
+        notification.setRecipient("retry-user");
+        notification.setPayload("Retry notification");
+        notification.setTargetUrl("http://127.0.0.1:" + unusedPort() + "/hook");
+        notification = notificationService.saveNotification(notification);
+
+        LocalDateTime before = LocalDateTime.now();
+        notificationService.deliverNotification(notification).get(10, TimeUnit.SECONDS);
+        assertEquals("FAILED", notification.getStatus());
+        assertEquals(1, notification.getRetryCount());
+        assertNotNull(notification.getNextAttemptAt());
+        assertFalse(notification.getNextAttemptAt().isBefore(before.plusNanos(200_000_000L)));
+
+        Long id = notification.getId();
+        Notification stored = awaitStored(id, n -> n.getNextAttemptAt() != null);
+        assertEquals("FAILED", stored.getStatus());
+
+        // The notification only becomes claimable once its backoff has elapsed
+        Thread.sleep(Math.max(0, Duration.between(LocalDateTime.now(), stored.getNextAttemptAt()).toMillis()) + 50);
+        assertEquals(1, retryTask.drainOnce());
+
+        // The retry fails again and uses up the remaining attempts, which takes it out of the backlog
+        Notification exhausted = awaitStored(id, n -> n.getRetryCount() >= 3);
+        assertEquals("FAILED", exhausted.getStatus());
+        assertNull(exhausted.getNextAttemptAt());
+    }
+
+    private Long saveFailed(LocalDateTime nextAttemptAt) {
+        Notification notification = new Notification();
+        notification.setType("TEST");
+        notification.setRecipient("claim-user");
+        notification.setPayload("Claim notification");
+        Long id = notificationRepository.save(notification).getId();
+        jdbcTemplate.update("UPDATE notifications SET status = 'FAILED', retry_count = 1, next_attempt_at = ? WHERE id = ?",
+                Timestamp.valueOf(nextAttemptAt), id);
+        return id;
+    }
+
+    private Notification awaitStored(Long id, Predicate<Notification> condition) throws InterruptedException {
+        Notification stored = null;
+        for (int i = 0; i < 100; i++) {
+            stored = notificationRepository.findById(id).orElseThrow();
+            if (condition.test(stored)) {
+                return stored;
+            }
+            Thread.sleep(100);
+        }
+        return stored;
+    }
+
+    private static int unusedPort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.notification;
+
+import com.notification.config.IdGeneratorConfig;
+import com.notification.id.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void testIdsAreUniqueAcrossThreads() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 5000);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(400_000, ids.size());
+    }
+
+    @Test
+    void testIdsEncodeCreationTimeAndIncrease() {
+        AtomicLong clock = new AtomicLong(Instant.parse("2025-06-01T12:00:00Z").toEpochMilli());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 5000, clock::get);
+
+        long first = generator.nextId();
+        clock.addAndGet(10);
+        long second = generator.nextId();
+
+        assertTrue(second > first);
+        assertEquals(Instant.parse("2025-06-01T12:00:00Z"), SnowflakeIdGenerator.timestampOf(first));
+        assertEquals(Instant.parse("2025-06-01T12:00:00.010Z"), SnowflakeIdGenerator.timestampOf(second));
+        assertTrue(first >= SnowflakeIdGenerator.minIdAt(Instant.parse("2025-06-01T12:00:00Z")));
+    }
+
+    @Test
+    void testClockSkewWithinToleranceKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(Instant.parse("2025-06-01T12:00:00Z").toEpochMilli());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 100, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-50);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void testClockSkewBeyondToleranceIsRejected() {
+        AtomicLong clock = new AtomicLong(Instant.parse("2025-06-01T12:00:00Z").toEpochMilli());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 100, clock::get);
+
+        generator.nextId();
+        clock.addAndGet(-1000);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void testWorkerIdMustFitInTenBits() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, 5000));
+    }
+
+    @Test
+    void testMissingWorkerIdFailsStartupWhenRequired() {
+        // Only a node that may derive its worker id from the hostname starts without one
+        assertThrows(IllegalStateException.class, () -> new IdGeneratorConfig().idGenerator(-1, true, 5000));
+    }
+}
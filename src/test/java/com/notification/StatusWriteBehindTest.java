@@ -0,0 +1,130 @@
+package com.notification;
+
+import com.notification.id.IdGenerator;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationBatchRepository;
+import com.notification.repository.NotificationBatchRepository.StatusRow;
+import com.notification.repository.NotificationRepository;
+import com.notification.status.NotificationStatusUpdater;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "notification.status.write-behind.flush-interval-ms=60000",
+        "notification.status.write-behind.flush-size=1000"
+})
+class StatusWriteBehindTest {
+
+    @Autowired
+    private NotificationStatusUpdater statusUpdater;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Test
+    void testTransitionsAreCoalescedAndFlushedInBulk() {
+        Notification first = notificationRepository.save(newNotification());
+        Notification second = notificationRepository.save(newNotification());
+
+        first.setStatus("FAILED");
+        first.setErrorMessage("push failed");
+        first.setRetryCount(1);
+        statusUpdater.record(first);
+
+        // A later transition for the same notification replaces the pending one
+        first.setStatus("DELIVERED");
+        first.setErrorMessage(null);
+        first.setProcessedAt(LocalDateTime.now());
+        statusUpdater.record(first);
+
+        second.setStatus("DELIVERED");
+        second.setProcessedAt(LocalDateTime.now());
+        statusUpdater.record(second);
+
+        assertEquals(2, statusUpdater.getPendingCount());
+        assertEquals("PENDING", notificationRepository.findById(first.getId()).orElseThrow().getStatus());
+
+        assertEquals(2, statusUpdater.flush());
+        assertEquals(0, statusUpdater.getPendingCount());
+
+        Notification storedFirst = notificationRepository.findById(first.getId()).orElseThrow();
+        assertEquals("DELIVERED", storedFirst.getStatus());
+        assertNull(storedFirst.getErrorMessage());
+        assertEquals(1, storedFirst.getRetryCount());
+        assertNotNull(storedFirst.getProcessedAt());
+        assertEquals("DELIVERED", notificationRepository.findById(second.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testRowsWithTheSameTransitionKeepTheirOwnTimestamps() {
+        Notification first = notificationRepository.save(newNotification());
+        Notification second = notificationRepository.save(newNotification());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // Same status, error and retry count, but each failure computed its own backoff
+        first.setStatus("FAILED");
+        first.setErrorMessage("push failed");
+        first.setRetryCount(1);
+        first.setProcessedAt(now);
+        first.setNextAttemptAt(now.plusSeconds(30));
+        statusUpdater.record(first);
+
+        second.setStatus("FAILED");
+        second.setErrorMessage("push failed");
+        second.setRetryCount(1);
+        second.setProcessedAt(now.plusSeconds(1));
+        second.setNextAttemptAt(now.plusSeconds(60));
+        statusUpdater.record(second);
+
+        assertEquals(2, statusUpdater.flush());
+
+        Notification storedFirst = notificationRepository.findById(first.getId()).orElseThrow();
+        Notification storedSecond = notificationRepository.findById(second.getId()).orElseThrow();
+        assertEquals(now, storedFirst.getProcessedAt());
+        assertEquals(now.plusSeconds(30), storedFirst.getNextAttemptAt());
+        assertEquals(now.plusSeconds(1), storedSecond.getProcessedAt());
+        assertEquals(now.plusSeconds(60), storedSecond.getNextAttemptAt());
+    }
+
+    @Test
+    void testPartitionedUpdatesFallBackForRowsOutsideTheirIdRange() {
+        // Updates bound created_at by the id's timestamp, as on a partitioned table
+        NotificationBatchRepository partitionedRepository = new NotificationBatchRepository(jdbcTemplate, idGenerator, true);
+        Notification recent = notificationRepository.save(newNotification());
+        Notification legacy = notificationRepository.save(newNotification());
+        // A created_at far from the id's timestamp, like a row whose id predates snowflake ids
+        jdbcTemplate.update("UPDATE notifications SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(3)), legacy.getId());
+
+        partitionedRepository.updateStatuses(List.of(
+                new StatusRow(recent.getId(), "DELIVERED", LocalDateTime.now(), null, 0, null),
+                new StatusRow(legacy.getId(), "FAILED", LocalDateTime.now(), "push failed", 1, null)));
+
+        assertEquals("DELIVERED", notificationRepository.findById(recent.getId()).orElseThrow().getStatus());
+        assertEquals("FAILED", notificationRepository.findById(legacy.getId()).orElseThrow().getStatus());
+    }
+
+    private Notification newNotification() {
+        Notification notification = new Notification();
+        notification.setType("TEST");
+        notification.setRecipient("user");
+        notification.setPayload("Write-behind test");
+        return notification;
+    }
+}
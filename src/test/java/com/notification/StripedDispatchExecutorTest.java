@@ -0,0 +1,84 @@
+package com.notification;
+
+import com.notification.dispatch.StripedDispatchExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedDispatchExecutorTest {
+
+    @Test
+    void testTasksForSameKeyRunInSubmissionOrder() throws InterruptedException {
+        StripedDispatchExecutor executor = new StripedDispatchExecutor("test-lane-", 4);
+        int recipients = 16;
+        int perRecipient = 2000;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(recipients * perRecipient);
+
+        // One producer thread per recipient, all submitting concurrently
+        List<Thread> producers = new ArrayList<>();
+        for (int r = 0; r < recipients; r++) {
+            String recipient = "user-" + r;
+            List<Integer> order = new ArrayList<>();
+            seen.put(recipient, order);
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < perRecipient; i++) {
+                    int sequence = i;
+                    executor.execute(recipient, () -> {
+                        order.add(sequence);
+                        done.countDown();
+                    });
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        seen.forEach((recipient, order) -> {
+            assertEquals(perRecipient, order.size(), recipient);
+            for (int i = 0; i < perRecipient; i++) {
+                assertEquals(i, order.get(i), recipient);
+            }
+        });
+    }
+
+    @Test
+    void testHotLaneIsDetected() throws InterruptedException {
+        StripedDispatchExecutor executor = new StripedDispatchExecutor("test-lane-", 4);
+        CountDownLatch release = new CountDownLatch(1);
+        String hotRecipient = "hot-user";
+        int hotLane = executor.laneFor(hotRecipient);
+
+        // Block the hot lane and pile work up behind it
+        executor.execute(hotRecipient, () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 500; i++) {
+            executor.execute(hotRecipient, () -> { });
+        }
+
+        try {
+            assertEquals(List.of(hotLane), executor.findHotLanes(2.0, 100));
+            assertTrue(executor.findHotLanes(2.0, 1000).isEmpty());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, executor.getQueuedCount());
+    }
+}
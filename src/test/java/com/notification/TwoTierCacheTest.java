@@ -0,0 +1,227 @@
+package com.notification;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.cache.CacheInvalidationBus;
+import com.notification.cache.TwoTierCache;
+import com.notification.cache.TwoTierCacheManager;
+import com.notification.metrics.NotificationMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoTierCacheTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final ConcurrentMapCacheManager redis = new ConcurrentMapCacheManager("notifications");
+    private final InMemoryBus bus = new InMemoryBus();
+    private Cache nodeA;
+    private Cache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        redis.setAllowNullValues(false);
+        nodeA = node(new NotificationMetrics(registry));
+        nodeB = node(new NotificationMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void testReadsFallThroughToTheSharedTierAndAreKeptLocally() {
+        redis.getCache("notifications").put(1L, "pending");
+
+        assertEquals("pending", nodeA.get(1L).get());
+        assertEquals("pending", nodeA.get(1L).get());
+        assertNull(nodeA.get(2L));
+
+        assertEquals(1, requests("l1", "hit"));
+        assertEquals(2, requests("l1", "miss"));
+        assertEquals(1, requests("l2", "hit"));
+        assertEquals(1, requests("l2", "miss"));
+        assertEquals(2, registry.get("notification.cache.load.time").tag("tier", "l2").timer().count());
+    }
+
+    @Test
+    void testWritesReplaceCopiesHeldByOtherInstances() {
+        nodeA.put(1L, "pending");
+        assertEquals("pending", nodeB.get(1L).get());
+
+        nodeA.put(1L, "delivered");
+        assertEquals("delivered", redis.getCache("notifications").get(1L).get(), "writes go through to the shared tier");
+        assertEquals("delivered", nodeB.get(1L).get());
+
+        nodeB.evict(1L);
+        assertNull(nodeA.get(1L));
+        assertNull(redis.getCache("notifications").get(1L));
+    }
+
+    @Test
+    void testClearReachesEveryInstance() {
+        nodeA.put(1L, "pending");
+        nodeA.put(2L, "pending");
+        assertNotNull(nodeB.get(2L));
+
+        nodeB.clear();
+        assertNull(nodeA.get(1L));
+        assertNull(nodeB.get(2L));
+    }
+
+    @Test
+    void testLoaderRunsOnlyOnAMissAndItsResultIsShared() {
+        assertEquals("loaded", nodeA.get(1L, () -> "loaded"));
+        assertEquals("loaded", nodeA.get(1L, () -> fail("value is cached")));
+        assertEquals("loaded", nodeB.get(1L, () -> fail("value is in the shared tier")));
+        assertEquals(1, registry.get("notification.cache.load.time").tag("tier", "source").timer().count());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService readers = Executors.newFixedThreadPool(1000);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                results.add(readers.submit(() -> {
+                    start.await();
+                    return nodeA.get(1L, () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(200);
+                        return "loaded";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                assertEquals("loaded", result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(999, registry.get("notification.cache.loads.coalesced").counter().count()
+                + requests("l1", "hit"), "every other reader waited for the load or found its result");
+    }
+
+    @Test
+    void testFailedLoadReachesEveryWaiter() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = readers.submit(() -> nodeA.get(1L, () -> {
+                loading.countDown();
+                Thread.sleep(200);
+                throw new IllegalStateException("database down");
+            }));
+            loading.await();
+            Future<Object> second = readers.submit(() -> nodeA.get(1L, () -> fail("load is in progress")));
+
+            for (Future<Object> result : List.of(first, second)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(30, TimeUnit.SECONDS));
+                assertInstanceOf(Cache.ValueRetrievalException.class, e.getCause());
+                assertEquals("database down", e.getCause().getCause().getMessage());
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertEquals("recovered", nodeA.get(1L, () -> "recovered"), "a failed load is not cached");
+    }
+
+    @Test
+    void testOldEntriesAreRefreshedAheadOfExpiry() throws Exception {
+        TwoTierCacheManager manager = new TwoTierCacheManager(List.of("notifications"),
+                Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(5)), redis, bus.join(),
+                new NotificationMetrics(registry), Duration.ofMillis(50));
+        manager.afterPropertiesSet();
+        try {
+            Cache cache = manager.getCache("notifications");
+            assertEquals("v1", cache.get(1L, () -> "v1"));
+            Thread.sleep(100);
+
+            assertEquals("v1", cache.get(1L, () -> "v2"), "the current value is served while it is reloaded");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!"v2".equals(cache.get(1L).get()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("v2", cache.get(1L).get());
+            assertEquals("v2", redis.getCache("notifications").get(1L).get());
+            assertEquals(1, registry.get("notification.cache.refreshes").counter().count());
+        } finally {
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void testLastKnownValuesOutliveTheLocalTierUntilChanged() throws Exception {
+        TwoTierCacheManager manager = new TwoTierCacheManager(List.of("notifications"),
+                Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(50)), null, bus.join(),
+                new NotificationMetrics(registry), Duration.ZERO, Caffeine.newBuilder().maximumSize(100));
+        manager.afterPropertiesSet();
+        TwoTierCache cache = (TwoTierCache) manager.getCache("notifications");
+        cache.put(1L, "pending");
+        assertEquals("loaded", cache.get(2L, () -> "loaded"));
+        cache.put(3L, "pending");
+        Thread.sleep(100);
+
+        assertNull(cache.get(1L), "expired from the local tier");
+        assertEquals("pending", cache.getStale(1L).value());
+        assertEquals("loaded", cache.getStale(2L).value());
+
+        nodeB.evict(3L);
+        assertNull(cache.getStale(3L), "changed on another instance");
+        cache.evict(1L);
+        assertNull(cache.getStale(1L));
+        assertEquals(2, requests("stale", "hit"));
+        assertEquals(2, requests("stale", "miss"));
+    }
+
+    private Cache node(NotificationMetrics metrics) {
+        TwoTierCacheManager manager = new TwoTierCacheManager(List.of("notifications"),
+                Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(5)), redis, bus.join(), metrics);
+        manager.afterPropertiesSet();
+        return manager.getCache("notifications");
+    }
+
+    private double requests(String tier, String result) {
+        return registry.get("notification.cache.requests").tag("tier", tier).tag("result", result).counter().count();
+    }
+
+    // Delivers a message to every instance but its sender, as the Redis bus does
+    private static class InMemoryBus {
+
+        private final List<Map.Entry<CacheInvalidationBus, BiConsumer<String, String>>> subscribers = new CopyOnWriteArrayList<>();
+
+        CacheInvalidationBus join() {
+            return new CacheInvalidationBus() {
+                @Override
+                public void publish(String cacheName, String key) {
+                    subscribers.stream()
+                            .filter(subscriber -> subscriber.getKey() != this)
+                            .forEach(subscriber -> subscriber.getValue().accept(cacheName, key));
+                }
+
+                @Override
+                public void subscribe(BiConsumer<String, String> listener) {
+                    subscribers.add(Map.entry(this, listener));
+                }
+            };
+        }
+    }
+}
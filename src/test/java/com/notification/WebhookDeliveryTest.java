@@ -0,0 +1,239 @@
+package com.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.model.Notification;
+import com.notification.repository.NotificationRepository;
+import com.notification.service.NotificationService;
+import com.notification.webhook.WebhookClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "notification.webhook.allowed-hosts=127.0.0.1",
+        "notification.webhook.max-concurrency-per-host=1",
+        "notification.webhook.request-timeout-ms=3000",
+        "notification.retry.inline.max-attempts=1"
+})
+class WebhookDeliveryTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ExecutorService stubExecutor = Executors.newCachedThreadPool();
+    private final List<HttpServer> stubs = new ArrayList<>();
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+    private String fastUrl;
+    private String slowUrl;
+    private String failingUrl;
+    private String hangingUrl;
+
+    @BeforeEach
+    void startStubs() throws IOException {
+        fastUrl = stub(exchange -> {
+            received.add(exchange.getRequestHeaders().getFirst("X-Notification-Id") + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            respond(exchange, 204);
+        });
+        slowUrl = stub(exchange -> {
+            await(releaseSlow, 10);
+            respond(exchange, 200);
+        });
+        failingUrl = stub(exchange -> respond(exchange, 500));
+        hangingUrl = stub(exchange -> {
+            await(new CountDownLatch(1), 10);
+            respond(exchange, 200);
+        });
+    }
+
+    @AfterEach
+    void stopStubs() {
+        releaseSlow.countDown();
+        stubs.forEach(server -> server.stop(0));
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    void testSlowEndpointDoesNotDelayOtherHosts() throws Exception {
+        // One request to the slow host in flight, two more queued behind it
+        List<Notification> slow = new ArrayList<>();
+        List<CompletableFuture<Void>> slowDeliveries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Notification notification = save(slowUrl);
+            slow.add(notification);
+            slowDeliveries.add(notificationService.deliverNotification(notification));
+        }
+
+        Notification fast = save(fastUrl);
+        notificationService.deliverNotification(fast).get(2, TimeUnit.SECONDS);
+
+        assertEquals("DELIVERED", fast.getStatus());
+        assertNotNull(fast.getProcessedAt());
+        assertEquals(1, received.size());
+        String request = received.peek();
+        assertTrue(request.startsWith(fast.getId() + " "));
+        assertTrue(request.contains("\"payload\":\"Webhook notification\""));
+        assertTrue(slowDeliveries.stream().noneMatch(CompletableFuture::isDone));
+
+        releaseSlow.countDown();
+        CompletableFuture.allOf(slowDeliveries.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        slow.forEach(notification -> assertEquals("DELIVERED", notification.getStatus()));
+
+        // The status is written behind, so wait for it to reach the database
+        assertEquals("DELIVERED", awaitStoredStatus(fast.getId(), "DELIVERED"));
+    }
+
+    @Test
+    void testErrorResponseMarksNotificationFailed() throws Exception {
+        Notification notification = save(failingUrl);
+        notificationService.deliverNotification(notification).get(5, TimeUnit.SECONDS);
+
+        assertEquals("FAILED", notification.getStatus());
+        assertEquals(1, notification.getRetryCount());
+        assertEquals("Webhook returned HTTP 500", notification.getErrorMessage());
+        assertEquals("FAILED", awaitStoredStatus(notification.getId(), "FAILED"));
+    }
+
+    @Test
+    void testUnansweredRequestTimesOut() throws Exception {
+        Notification notification = save(hangingUrl);
+        notificationService.deliverNotification(notification).get(10, TimeUnit.SECONDS);
+
+        assertEquals("FAILED", notification.getStatus());
+        assertEquals(1, notification.getRetryCount());
+        assertTrue(notification.getErrorMessage().startsWith("Webhook request failed"));
+    }
+
+    @Test
+    void testIdleHostLanesAreEvictedAndHostsAreCapped() throws Exception {
+        // A client of its own, allowing a single host at a time
+        WebhookClient client = new WebhookClient(objectMapper, new NotificationMetrics(new SimpleMeterRegistry()),
+                2000, 3000, 1, 10, 1, List.of("127.0.0.1"));
+        client.start();
+        try {
+            client.send(target(fastUrl)).get(5, TimeUnit.SECONDS);
+            assertEquals(1, client.getHostCount());
+
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> client.send(target(failingUrl)).get(5, TimeUnit.SECONDS));
+            assertTrue(rejected.getCause().getMessage().startsWith("Too many webhook hosts"));
+
+            // Nothing is queued or in flight for the first host any more, so its lane makes room
+            assertEquals(1, client.evictIdleHosts());
+            assertEquals(0, client.getHostCount());
+            ExecutionException failed = assertThrows(ExecutionException.class,
+                    () -> client.send(target(failingUrl)).get(5, TimeUnit.SECONDS));
+            assertEquals("Webhook returned HTTP 500", failed.getCause().getMessage());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    void testInternalTargetsAreRefused() throws Exception {
+        // A client of its own, without the loopback stubs on its allow-list
+        WebhookClient client = new WebhookClient(objectMapper, new NotificationMetrics(new SimpleMeterRegistry()),
+                2000, 3000, 1, 10, 10, List.of());
+        client.start();
+        try {
+            ExecutionException loopback = assertThrows(ExecutionException.class,
+                    () -> client.send(target(fastUrl)).get(5, TimeUnit.SECONDS));
+            assertEquals("Webhook host 127.0.0.1 resolves to internal address 127.0.0.1", loopback.getCause().getMessage());
+            assertTrue(received.isEmpty());
+
+            ExecutionException metadata = assertThrows(ExecutionException.class,
+                    () -> client.send(target("http://169.254.169.254/latest/meta-data")).get(5, TimeUnit.SECONDS));
+            assertTrue(metadata.getCause().getMessage().endsWith("internal address 169.254.169.254"));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private static Notification target(String targetUrl) {
+        Notification notification = new Notification();
+        notification.setId(1L);
+        notification.setType("WEBHOOK");
+        notification.setRecipient("webhook-user");
+        notification.setPayload("Webhook notification");
+        notification.setTargetUrl(targetUrl);
+        return notification;
+    }
+
+    private Notification save(String targetUrl) {
+        Notification notification = new Notification();
+        notification.setType("WEBHOOK");
+        notification.setRecipient("webhook-user");
+        notification.setPayload("Webhook notification");
+        notification.setTargetUrl(targetUrl);
+        return notificationService.saveNotification(notification);
+    }
+
+    private String awaitStoredStatus(Long id, String expected) throws InterruptedException {
+        String status = null;
+        for (int i = 0; i < 50 && !expected.equals(status); i++) {
+            status = notificationRepository.findById(id).map(Notification::getStatus).orElse(null);
+            Thread.sleep(100);
+        }
+        return status;
+    }
+
+    private String stub(StubHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", exchange -> {
+            try (exchange) {
+                handler.handle(exchange);
+            }
+        });
+        server.setExecutor(stubExecutor);
+        server.start();
+        stubs.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void await(CountDownLatch latch, long seconds) {
+        try {
+            latch.await(seconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface StubHandler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
@@ -0,0 +1,142 @@
+package com.notification.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.notification.repository.AuditLogRepository;
+import com.notification.repository.AuditLogRepository.Filter;
+import com.notification.service.AuditCursor;
+import com.notification.service.AuditSearchService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one /api/audit page, from query to streamed JSON, over {@code rows} audit entries spread evenly
+ * across 90 days for 1000 users: the newest page of one user, a page of one user half-way back in time, and
+ * the newest page of a one-hour window.
+ *
+ * By default the entries live in an in-memory H2 database, which has neither BRIN indexes nor partitions.
+ * For the 100M-row case point it at a PostgreSQL database created with scripts/init-db.sql (optionally
+ * partitioned with scripts/partition-audit-log.sql); the table is refilled whenever its row count differs:
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main AuditSearchBenchmark -p rows=100000000 \
+ *     -jvmArgsAppend "-Daudit.bench.url=jdbc:postgresql://localhost:5432/notification_db -Daudit.bench.user=... -Daudit.bench.password=..."
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AuditSearchBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final long SPAN_MILLIS = TimeUnit.DAYS.toMillis(90);
+    private static final int USERS = 1000;
+    private static final int LOAD_CHUNK = 1_000_000;
+
+    private static final String H2_SCHEMA = "CREATE TABLE IF NOT EXISTS notification_audit_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "event_id VARCHAR(50) NOT NULL, username VARCHAR(255) NOT NULL, action VARCHAR(50) NOT NULL, "
+            + "target_type VARCHAR(50) NOT NULL, target_id VARCHAR(50) NOT NULL, details VARCHAR(1000), "
+            + "\"TIMESTAMP\" TIMESTAMP NOT NULL)";
+
+    private static final String H2_LOAD = "INSERT INTO notification_audit_log (event_id, username, action, target_type, target_id, details, timestamp) "
+            + "SELECT 'event-' || X, 'user-' || MOD(X, " + USERS + "), "
+            + "CASEWHEN(MOD(X, 2) = 0, 'CREATE', 'DELETE'), 'NOTIFICATION', CAST(X AS VARCHAR), '{\"n\":' || X || '}', "
+            + "DATEADD(MILLISECOND, X * ?, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(?, ?)";
+
+    private static final String POSTGRES_LOAD = "INSERT INTO notification_audit_log (event_id, username, action, target_type, target_id, details, timestamp) "
+            + "SELECT 'event-' || g, 'user-' || (g % " + USERS + "), "
+            + "CASE WHEN g % 2 = 0 THEN 'CREATE' ELSE 'DELETE' END, 'NOTIFICATION', g::text, ('{\"n\":' || g || '}')::jsonb, "
+            + "TIMESTAMP '2024-01-01 00:00:00' + g * ? * INTERVAL '1 millisecond' FROM generate_series(?::bigint, ?::bigint) g";
+
+    @Param({"1000000"})
+    public long rows;
+
+    @Param({"100"})
+    public int limit;
+
+    private AuditSearchService auditSearchService;
+    private String middleCursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getProperty("audit.bench.url", "jdbc:h2:mem:audit-bench;DB_CLOSE_DELAY=-1");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                System.getProperty("audit.bench.user", "sa"), System.getProperty("audit.bench.password", ""));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        boolean postgres = "PostgreSQL".equalsIgnoreCase(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()));
+        if (!postgres) {
+            jdbcTemplate.execute(H2_SCHEMA);
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_timestamp ON notification_audit_log(timestamp)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_username_timestamp ON notification_audit_log(username, timestamp DESC, id DESC)");
+        }
+        load(jdbcTemplate, postgres);
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        auditSearchService = new AuditSearchService(new AuditLogRepository(jdbcTemplate),
+                new DataSourceTransactionManager(dataSource), objectMapper, limit, limit);
+        middleCursor = new AuditCursor(START.plusNanos(SPAN_MILLIS / 2 * 1_000_000L), Long.MAX_VALUE).encode();
+    }
+
+    private void load(JdbcTemplate jdbcTemplate, boolean postgres) {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_audit_log", Long.class);
+        if (existing != null && existing == rows) {
+            return;
+        }
+        jdbcTemplate.execute("TRUNCATE TABLE notification_audit_log");
+        double stepMillis = (double) SPAN_MILLIS / rows;
+        for (long from = 1; from <= rows; from += LOAD_CHUNK) {
+            jdbcTemplate.update(postgres ? POSTGRES_LOAD : H2_LOAD, stepMillis, from, Math.min(rows, from + LOAD_CHUNK - 1));
+        }
+        if (postgres) {
+            jdbcTemplate.execute("ANALYZE notification_audit_log");
+        }
+    }
+
+    @Benchmark
+    public void newestPageOfUser() throws IOException {
+        run(new Filter(randomUser(), null, null, null, null, null), null);
+    }
+
+    @Benchmark
+    public void middlePageOfUser() throws IOException {
+        run(new Filter(randomUser(), null, null, null, null, null), middleCursor);
+    }
+
+    @Benchmark
+    public void newestPageOfHour() throws IOException {
+        LocalDateTime from = START.plusHours(ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toHours(SPAN_MILLIS)));
+        run(new Filter(null, null, null, null, from, from.plusHours(1)), null);
+    }
+
+    private void run(Filter filter, String cursor) throws IOException {
+        auditSearchService.search(filter, cursor, limit).writeTo(OutputStream.nullOutputStream());
+    }
+
+    private static String randomUser() {
+        return "user-" + ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuditSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.notification.benchmark;
+
+import com.notification.dispatch.BroadcastFanout;
+import com.notification.dispatch.StripedDispatchExecutor;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.repository.BroadcastDeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end fan-out of one broadcast to 1M synthetic recipients: chunked delivery row inserts into an
+ * in-memory H2 database, pushes across the dispatch lanes to a no-op message channel and the batched
+ * status updates. Reports seconds per broadcast; recipients/sec is 1M divided by that.
+ *
+ * Run with:
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.notification.benchmark.BroadcastFanoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BroadcastFanoutBenchmark {
+
+    @Param({"1000000"})
+    public int recipientCount;
+
+    @Param({"1000", "5000"})
+    public int chunkSize;
+
+    // "none" swaps in a repository that skips the database, to separate lane throughput from H2 cost
+    @Param({"h2", "none"})
+    public String store;
+
+    private final AtomicLong broadcastIds = new AtomicLong();
+    private List<String> recipients;
+    private JdbcTemplate jdbcTemplate;
+    private StripedDispatchExecutor executor;
+    private BroadcastFanout fanout;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:broadcast-bench;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS notification_broadcasts (id BIGINT PRIMARY KEY, status VARCHAR(255), "
+                + "delivered_count INTEGER, failed_count INTEGER, completed_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS broadcast_deliveries (broadcast_id BIGINT NOT NULL, "
+                + "recipient VARCHAR(255) NOT NULL, status VARCHAR(255) NOT NULL, processed_at TIMESTAMP, "
+                + "PRIMARY KEY (broadcast_id, recipient))");
+
+        recipients = new ArrayList<>(recipientCount);
+        for (int i = 0; i < recipientCount; i++) {
+            recipients.add("user-" + i);
+        }
+
+        executor = new StripedDispatchExecutor("bench-dispatch-", Runtime.getRuntime().availableProcessors());
+        // Every push succeeds immediately, so the benchmark measures the fan-out machinery itself
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        BroadcastDeliveryRepository repository = "none".equals(store)
+                ? new NoOpDeliveryRepository(jdbcTemplate)
+                : new BroadcastDeliveryRepository(jdbcTemplate);
+        fanout = new BroadcastFanout(
+                repository,
+                executor,
+                messagingTemplate,
+                new NotificationMetrics(new SimpleMeterRegistry()),
+                new DataSourceTransactionManager(dataSource),
+                chunkSize, 5000, 2);
+        fanout.start();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE broadcast_deliveries");
+    }
+
+    @Benchmark
+    public BroadcastFanout.Result fanOut() throws Exception {
+        long id = broadcastIds.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO notification_broadcasts (id, status) VALUES (?, 'IN_PROGRESS')", id);
+        return fanout.fanOut(id, "Synthetic broadcast payload", recipients).get(10, TimeUnit.MINUTES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        fanout.shutdown();
+        executor.close();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    private static final class NoOpDeliveryRepository extends BroadcastDeliveryRepository {
+
+        private NoOpDeliveryRepository(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+
+        @Override
+        public void insertPending(long broadcastId, List<String> recipients) {
+        }
+
+        @Override
+        public void updateStatus(long broadcastId, List<String> recipients, String status, LocalDateTime processedAt) {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BroadcastFanoutBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
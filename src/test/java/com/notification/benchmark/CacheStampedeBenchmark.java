@@ -0,0 +1,121 @@
+package com.notification.benchmark;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.cache.TwoTierCacheManager;
+import com.notification.metrics.NotificationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache stampede: {@code readers} threads read the same notification id right after its entry was evicted,
+ * with every load from the database simulated by a {@code loadMillis} sleep. {@code coalesced} reads the way
+ * {@code @Cacheable(sync = true)} does, {@code uncoalesced} the way plain {@code @Cacheable} does (look up, load
+ * on a miss, put). Reports the time until every reader has its value, and as the {@code loads} counter the
+ * database loads summed over all measured stampedes.
+ *
+ * Run with:
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.notification.benchmark.CacheStampedeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class CacheStampedeBenchmark {
+
+    private static final Long ID = 42L;
+
+    @Param({"coalesced", "uncoalesced"})
+    public String mode;
+
+    @Param({"1000"})
+    public int readers;
+
+    @Param({"5"})
+    public int loadMillis;
+
+    private final AtomicLong databaseLoads = new AtomicLong();
+    private TwoTierCacheManager cacheManager;
+    private Cache cache;
+    private ExecutorService executor;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Loads {
+        public long loads;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cacheManager = new TwoTierCacheManager(List.of("notifications"),
+                Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(5)), null, null,
+                new NotificationMetrics(new SimpleMeterRegistry()));
+        cacheManager.afterPropertiesSet();
+        cache = cacheManager.getCache("notifications");
+        executor = Executors.newFixedThreadPool(readers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void stampede(Loads loads) throws Exception {
+        cache.evict(ID);
+        long before = databaseLoads.get();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> results = new ArrayList<>(readers);
+        for (int i = 0; i < readers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return "coalesced".equals(mode) ? cache.get(ID, this::load) : readUncoalesced();
+            }));
+        }
+        start.countDown();
+        for (Future<Object> result : results) {
+            result.get();
+        }
+        loads.loads += databaseLoads.get() - before;
+    }
+
+    private Object readUncoalesced() throws InterruptedException {
+        Cache.ValueWrapper cached = cache.get(ID);
+        if (cached != null) {
+            return cached.get();
+        }
+        Object value = load();
+        cache.put(ID, value);
+        return value;
+    }
+
+    private Object load() throws InterruptedException {
+        databaseLoads.incrementAndGet();
+        Thread.sleep(loadMillis);
+        return "notification";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CacheStampedeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,73 @@
+package com.notification.benchmark;
+
+import com.notification.ratelimit.RateLimiter;
+import com.notification.service.RateLimitService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of one rate limit check under 32-thread contention: every thread on the same key, and threads
+ * spread over {@code keys} clients, for both algorithms and for the full {@link RateLimitService} lookup with
+ * endpoint rules. Limits are 100 per minute, so hot keys are refused almost every time, as under an attack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(32)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RateLimiterBenchmark {
+
+    private static final long PERIOD_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Param({"TOKEN_BUCKET", "SLIDING_LOG"})
+    public RateLimiter.Algorithm algorithm;
+
+    @Param({"1000000"})
+    public int keys;
+
+    private RateLimiter limiter;
+    private RateLimitService rateLimitService;
+    private String[] clients;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        limiter = RateLimiter.create(algorithm, 100, PERIOD_NANOS, System::nanoTime);
+        rateLimitService = new RateLimitService(algorithm.name(), TimeUnit.NANOSECONDS.toMillis(PERIOD_NANOS), 100,
+                "", "POST /api/notifications/batch=10,POST /api/notifications/broadcast=10");
+        clients = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            clients[i] = "client-" + i;
+        }
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return limiter.tryAcquire("client-0");
+    }
+
+    @Benchmark
+    public boolean spreadKeys() {
+        return limiter.tryAcquire(clients[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public boolean serviceSpreadKeys() {
+        return rateLimitService.isAllowed(clients[ThreadLocalRandom.current().nextInt(keys)], "10.0.0.1",
+                "GET", "/api/notifications/inbox");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}